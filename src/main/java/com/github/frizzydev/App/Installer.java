@@ -32,67 +32,103 @@ public class Installer {
     }
 
     /**
-     * Installs Project Lifecycle.
+     * Installs Project Lifecycle. The install is only marked as done once the profile pack is in place, so an
+     * install whose download failed or was interrupted is picked up again on the next launch, and the download
+     * resumes where it stopped.
      *
-     * @return Returns if the install was SUCCESSFUL, FAILED, or ALREADY INSTALLED.
+     * @return Returns if the install was SUCCESSFUL, PARTIAL if the folders were created but the profile pack could
+     * not be downloaded, FAILED, or ALREADY INSTALLED.
      */
     public String install( ) {
 
-        if ( !preferences.getBoolean( "installed" , false ) ) {
-            String installPath = buildInstallDirectory( );
-            System.out.println( "Install Path: " + installPath );
+        if ( preferences.getBoolean( "installed" , false ) )
+            return "ALREADY INSTALLED";
 
-            if ( !installPath.equals( "Unavailable" ) ) {
+        String installPath = buildInstallDirectory( );
+        log.info( "Install Path: " + installPath );
 
-                File installDirectory = new File( installPath );
+        if ( installPath.equals( "Unavailable" ) )
+            return "ALREADY INSTALLED";
 
-                if ( !installDirectory.exists( ) ) {
+        File installDirectory = new File( installPath );
+        File profilesFolder = new File( installPath + File.separator + "Profiles" );
+        File jsonFolder = new File( installPath + File.separator + "JSON" );
 
-                    boolean mainCreated = installDirectory.mkdir( );
+        if ( !installDirectory.isDirectory( ) && !installDirectory.mkdirs( ) )
+            return "FAILED";
 
-                    if ( !mainCreated ) {
-                        return "FAILED";
-                    }
-                } else {
-                    File profilesFolder = new File( installPath + File.separator + "Profiles" );
-                    File jsonFolder = new File( installPath + File.separator + "JSON" );
+        if ( ( !profilesFolder.isDirectory( ) && !profilesFolder.mkdir( ) ) || ( !jsonFolder.isDirectory( ) && !jsonFolder.mkdir( ) ) )
+            return "FAILED";
 
-                    preferences.put( "profiles-location" , profilesFolder.getAbsolutePath( ) );
-                    preferences.put( "json-location" , jsonFolder.getAbsolutePath( ) );
-                    preferences.putBoolean( "installed" , true );
-                    System.out.println( "Profiles Folder: " + profilesFolder );
-                    System.out.println( "Json Folder: " + jsonFolder );
+        preferences.put( "profiles-location" , profilesFolder.getAbsolutePath( ) );
+        preferences.put( "json-location" , jsonFolder.getAbsolutePath( ) );
+        log.info( "Profiles Folder: " + profilesFolder );
+        log.info( "Json Folder: " + jsonFolder );
 
-                    boolean profilesCreated = profilesFolder.mkdir( );
-                    boolean jsonCreated = jsonFolder.mkdir( );
+        if ( !downloadProfiles( installDirectory , profilesFolder , false ) ) {
+            log.log( Level.WARNING , "Profile pack download failed, the install is finished on the next launch." );
+            return "PARTIAL";
+        }
 
-                    if ( !profilesCreated && !jsonCreated ) {
-                        return "FAILED";
-                    } else {
-                        //TODO Make Downloader and Extractor working
+        preferences.putBoolean( "installed" , true );
+        return "SUCCESSFUL";
+    }
 
-                        ProfilesDownloader downloader = new ProfilesDownloader( );
-                        String savedPath = downloader.download( profilesFolder.getAbsolutePath( ) );
+    /**
+     * Brings the profile pack of an installed Project Lifecycle up to date. The download is conditional, so an
+     * unchanged pack costs a single request, and a download interrupted earlier resumes where it stopped. A new
+     * pack is read on the next launch. Does nothing if Project Lifecycle is not installed.
+     *
+     * @return Returns false if the profile pack could not be downloaded.
+     */
+    public boolean refreshProfiles( ) {
+        if ( !preferences.getBoolean( "installed" , false ) )
+            return true;
 
-                        if ( !savedPath.equals( "Failed" ) ) {
+        String installPath = buildInstallDirectory( );
 
-                            ProfilesExtractor extractor = new ProfilesExtractor( );
-                            try {
-                                extractor.extractTo( savedPath , profilesFolder.getAbsolutePath( ) );
-                            } catch ( FileNotFoundException e ) {
-                                log.log( Level.SEVERE , "Extraction process failed." , e );
-                            }
+        if ( installPath.equals( "Unavailable" ) )
+            return true;
 
+        File installDirectory = new File( installPath );
+        File profilesFolder = new File( preferences.get( "profiles-location" , installPath + File.separator + "Profiles" ) );
 
+        if ( !downloadProfiles( installDirectory , profilesFolder , true ) ) {
+            log.log( Level.WARNING , "Profile pack refresh failed." );
+            return false;
+        }
 
-                            return "SUCCESSFUL";
-                        }
-                    }
-                }
+        return true;
+    }
+
+    /**
+     * Downloads the profile pack into the install directory and, if the extract-profiles preference is set,
+     * extracts it into the profiles folder.
+     * <br>
+     * The pack is saved next to the profiles folder as Profiles.zip, which is where ProfilesProcessor reads profiles
+     * from, so the download alone makes every profile available. Extracting it is only needed by users who want to
+     * browse or edit the profile files.
+     *
+     * @param onlyIfChanged True to skip extracting when the server reported the pack unchanged.
+     * @return Returns false if the download failed.
+     */
+    private boolean downloadProfiles( File installDirectory , File profilesFolder , boolean onlyIfChanged ) {
+        ProfilesDownloader downloader = new ProfilesDownloader( );
+        String savedPath = downloader.download( installDirectory.getAbsolutePath( ) );
+
+        if ( savedPath.equals( "Failed" ) )
+            return false;
+
+        if ( preferences.getBoolean( "extract-profiles" , false ) && !( onlyIfChanged && downloader.getLastStatus( ) == 304 ) ) {
+            ProfilesExtractor extractor = new ProfilesExtractor( );
+            try {
+                extractor.extractTo( savedPath , profilesFolder.getAbsolutePath( ) );
+            } catch ( FileNotFoundException e ) {
+                log.log( Level.SEVERE , "Extraction process failed." , e );
             }
         }
 
-        return "ALREADY INSTALLED";
+        return true;
     }
 
     /**
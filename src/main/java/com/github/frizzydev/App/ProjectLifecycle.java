@@ -1,9 +1,12 @@
 package com.github.frizzydev.App;
 
 import com.formdev.flatlaf.intellijthemes.FlatArcDarkIJTheme;
+import com.github.frizzydev.JSON.UsagePersistenceService;
 import com.github.frizzydev.UI.ConnectedDevicesUI;
+import com.github.frizzydev.UI.UsageUI;
 import com.github.frizzydev.controller.ControllerManager;
 import com.github.frizzydev.controller.LController;
+import com.github.frizzydev.controller.PollingEngine;
 import dorkbox.systemTray.MenuItem;
 import dorkbox.systemTray.SystemTray;
 import net.java.games.input.*;
@@ -14,9 +17,9 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.prefs.Preferences;
 
 /**
  * The main class of Project Lifecycle.
@@ -30,9 +33,9 @@ public class ProjectLifecycle {
     final static Logger log = Logger.getLogger( ProjectLifecycle.class.getName( ) );
 
     /**
-     *
+     * Keeps the tracked controllers.
      */
-    private List < LController > controllers;
+    private ControllerManager cManager;
 
     /**
      *
@@ -79,65 +82,78 @@ public class ProjectLifecycle {
 
         String reason = installer.install( );
 
-        if ( reason.equals( "SUCCESSFUL" ) || reason.equals( "ALREADY INSTALLED" ) ) {
+        /*
+         * A partial install has its folders but no profile pack yet, so it starts without profiles and the install
+         * is finished on the next launch.
+         */
+        if ( reason.equals( "PARTIAL" ) )
+            log.log( Level.WARNING , "Starting without profiles, the profile pack could not be downloaded." );
+
+        if ( reason.equals( "SUCCESSFUL" ) || reason.equals( "ALREADY INSTALLED" ) || reason.equals( "PARTIAL" ) ) {
             System.out.println( "Successful" );
-            ControllerManager cManager = new ControllerManager( );
-            cManager.loadLControllers( );
+            cManager = new ControllerManager( );
 
-            controllers = cManager.getLControllers( );
+            /*
+             * Every device starts polling as soon as its own profile and usage are loaded.
+             */
+            cManager.loadLControllers( );
 
-            for ( LController controller : controllers ) {
-                controller.startEventPolling( );
-            }
+            /*
+             * Write any usage that has not been flushed yet when the app exits, including through Quit.
+             */
+            UsagePersistenceService usagePersistence = cManager.getUsagePersistence( );
+            Runtime.getRuntime( ).addShutdownHook( new Thread( usagePersistence::shutdown , "Usage-Persistence-Shutdown" ) );
+
+            /*
+             * Refresh the profile pack of an existing install without holding up tracking. The download is
+             * conditional and resumable, so this is a single request when nothing changed.
+             */
+            if ( reason.equals( "ALREADY INSTALLED" ) )
+                Thread.ofVirtual( ).name( "Profiles-Refresh" ).start( installer::refreshProfiles );
+
+            /*
+             * Pull any profiles that changed online since the last run, without holding up tracking.
+             */
+            if ( Preferences.userNodeForPackage( ProjectLifecycle.class ).getBoolean( "profiles-auto-update" , false ) )
+                Thread.ofVirtual( ).name( "Profiles-Update" ).start( cManager::updateProfiles );
 
             environment.addControllerListener( new ControllerListener( ) {
 
                 /**
                  * Retrieves the removed controller, stops polling, then removes it from
-                 * the LControllers list.
+                 * the registry.
                  */
                 @Override
                 public void controllerRemoved( ControllerEvent controllerEvent ) {
-                    Controller removed = controllerEvent.getController( );
-
-                    for ( LController lc : controllers ) {
-                        if ( lc.getController( ).equals( removed ) ) {
-                            lc.stopEventPolling( );
-                            controllers.remove( lc );
-                            break;
-                        }
-                    }
+                    cManager.removeLController( controllerEvent.getController( ) );
                 }
 
                 /**
-                 * Retrieves the added controller and creates a new LController instance.
+                 * Retrieves the added controller and creates a new LController instance in the background,
+                 * which starts polling once its profile and usage are loaded.
                  */
                 @Override
                 public void controllerAdded( ControllerEvent controllerEvent ) {
-                    Controller added = controllerEvent.getController( );
-                    LController lc = cManager.createLController( added );
-                    lc.startEventPolling( );
-
-                    controllers.add( lc );
+                    cManager.createLController( controllerEvent.getController( ) );
                 }
             } );
         }
     }
 
     /**
-     *
+     * Registers every controller with the shared polling engine.
      */
     private void startAllPolling( ) {
-        for ( LController lc : controllers ) {
+        for ( LController lc : cManager.getLControllers( ) ) {
             lc.startEventPolling( );
         }
     }
 
     /**
-     *
+     * Removes every controller from the shared polling engine.
      */
     private void stopAllPolling( ) {
-        for ( LController lc : controllers ) {
+        for ( LController lc : cManager.getLControllers( ) ) {
             lc.stopEventPolling( );
         }
     }
@@ -182,11 +198,11 @@ public class ProjectLifecycle {
         menu.add( new JSeparator(  ) );
 
         menu.add( new MenuItem( "View Usage" , e -> {
-
+            new UsageUI( ).showUsage( cManager.getLControllers( ) );
         } ) );
 
         menu.add( new MenuItem( "View Connected Devices" , e -> {
-            new ConnectedDevicesUI().showConnectedDevices( controllers );
+            new ConnectedDevicesUI().showConnectedDevices( cManager.getLControllers( ) );
         } ) );
 
         menu.add( new JSeparator( ) );
@@ -198,6 +214,7 @@ public class ProjectLifecycle {
         menu.add( new JSeparator( ) );
 
         menu.add( new MenuItem( "Quit" , e -> {
+            PollingEngine.getDefault( ).shutdown( );
             System.exit( 0 );
         } ) ).setShortcut( 'q' );
     }
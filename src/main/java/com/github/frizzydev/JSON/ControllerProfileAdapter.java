@@ -0,0 +1,77 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streams ControllerProfiles to and from the json profile files without reflection. The field names match the
+ * {@link com.google.gson.annotations.SerializedName} annotations on ControllerProfile, unknown fields are skipped.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class ControllerProfileAdapter extends TypeAdapter< ControllerProfile > {
+
+    @Override
+    public void write( JsonWriter out , ControllerProfile profile ) throws IOException {
+        if ( profile == null ) {
+            out.nullValue( );
+            return;
+        }
+
+        out.beginObject( );
+        out.name( "DeviceName" ).value( profile.getName( ) );
+        out.name( "DeviceDescription" ).value( profile.getDescription( ) );
+        out.name( "DeviceManufacturer" ).value( profile.getManufacturer( ) );
+        out.name( "DeviceType" ).value( profile.getType( ) );
+        out.name( "DevicePortType" ).value( profile.getPortType( ) );
+        out.name( "PollMode" ).value( profile.getPollMode( ) );
+        out.endObject( );
+    }
+
+    @Override
+    public ControllerProfile read( JsonReader in ) throws IOException {
+        if ( in.peek( ) == JsonToken.NULL ) {
+            in.nextNull( );
+            return null;
+        }
+
+        String name = null;
+        String description = null;
+        String manufacturer = null;
+        String type = null;
+        String portType = null;
+        String pollMode = null;
+
+        in.beginObject( );
+
+        while ( in.hasNext( ) ) {
+            String field = in.nextName( );
+
+            if ( in.peek( ) == JsonToken.NULL ) {
+                in.nextNull( );
+                continue;
+            }
+
+            switch ( field ) {
+                case "DeviceName" -> name = in.nextString( );
+                case "DeviceDescription" -> description = in.nextString( );
+                case "DeviceManufacturer" -> manufacturer = in.nextString( );
+                case "DeviceType" -> type = in.nextString( );
+                case "DevicePortType" -> portType = in.nextString( );
+                case "PollMode" -> pollMode = in.nextString( );
+                default -> in.skipValue( );
+            }
+        }
+
+        in.endObject( );
+
+        return new ControllerProfile( name , description , manufacturer , type , portType , pollMode );
+    }
+}
@@ -0,0 +1,315 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.UsageCounters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A fixed-layout usage counter file for a single device, accessed through a memory-mapped buffer. The LController
+ * increments its counters directly in the mapped memory, so the operating system writes usage out on its own,
+ * restarts pick the counts straight back up, and other programs can read live counts from the file.
+ * <br>
+ * The file is little-endian. It starts with a header holding a magic number, the format, the slot count and the
+ * offset of the counters, followed by the identifier name of every slot as a two byte length and UTF-8 bytes.
+ * The counters follow at the 8-byte aligned offset, one 64-bit counter per slot in the same order as the names.
+ * The LController's own slots come first, followed by any names it does not report, which are kept so their
+ * usage is not lost.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class MappedUsageStore implements Closeable {
+
+    final static Logger log = Logger.getLogger( MappedUsageStore.class.getName( ) );
+
+    /**
+     * The suffix added to the device file name to name its counter file.
+     */
+    static final String SUFFIX = ".usage";
+
+    private static final int MAGIC = 0x504C554D;
+
+    private static final int FORMAT = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 4;
+
+    /**
+     * Atomic, aligned 64-bit access to the counters in the mapped buffer.
+     */
+    private static final VarHandle COUNTERS = MethodHandles.byteBufferViewVarHandle( long[].class , ByteOrder.LITTLE_ENDIAN );
+
+    /**
+     * The channel the buffer was mapped from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The identifier name of every slot in the file.
+     */
+    private final String[] names;
+
+    /**
+     * The offset of the first counter.
+     */
+    private final int dataOffset;
+
+    /**
+     * The number of slots that belong to the LController.
+     */
+    private final int ownSlots;
+
+    private MappedUsageStore( Path path , String[] names , int ownSlots ) throws IOException {
+        this.channel = FileChannel.open( path , StandardOpenOption.READ , StandardOpenOption.WRITE );
+        this.buffer = channel.map( FileChannel.MapMode.READ_WRITE , 0 , channel.size( ) );
+        this.buffer.order( ByteOrder.LITTLE_ENDIAN );
+        this.names = names;
+        this.dataOffset = buffer.getInt( Integer.BYTES * 3 );
+        this.ownSlots = ownSlots;
+    }
+
+    /**
+     * Opens the counter file at the provided path for the provided slot names. If the file is missing, it is
+     * created from the provided seed usage. If it exists but was laid out for different slots, it is rewritten
+     * for the new slots, keeping every count.
+     *
+     * @param path      The counter file.
+     * @param slotNames The identifier name of every usage slot of the LController, in slot order.
+     * @param seed      The usage to start from if the file is missing. Can be null.
+     */
+    public static MappedUsageStore open( Path path , String[] slotNames , Map < String, Long > seed ) throws IOException {
+        Map < String, Long > existing = read( path );
+
+        if ( existing != null && startsWith( existing , slotNames ) )
+            return new MappedUsageStore( path , existing.keySet( ).toArray( new String[ 0 ] ) , slotNames.length );
+
+        Map < String, Long > counts = existing != null ? existing : seed != null ? seed : Map.of( );
+        List < String > layout = new ArrayList <>( Arrays.asList( slotNames ) );
+
+        for ( String name : counts.keySet( ) ) {
+            if ( !layout.contains( name ) )
+                layout.add( name );
+        }
+
+        write( path , layout , counts );
+
+        return new MappedUsageStore( path , layout.toArray( new String[ 0 ] ) , slotNames.length );
+    }
+
+    /**
+     * Returns the counters of the LController's own slots, backed by the mapped file.
+     */
+    public UsageCounters counters( ) {
+        return new MappedCounters( );
+    }
+
+    /**
+     * Returns the usage kept for identifier names the LController does not report.
+     */
+    public Map < String, Long > extraCounts( ) {
+        Map < String, Long > extras = new LinkedHashMap <>( );
+
+        for ( int slot = ownSlots; slot < names.length; slot++ ) {
+            extras.put( names[ slot ] , ( long ) COUNTERS.getVolatile( buffer , offsetOf( slot ) ) );
+        }
+
+        return extras;
+    }
+
+    /**
+     * Forces any change to the counters to the file.
+     */
+    public void force( ) {
+        buffer.force( );
+    }
+
+    @Override
+    public void close( ) throws IOException {
+        force( );
+        channel.close( );
+    }
+
+    private int offsetOf( int slot ) {
+        return dataOffset + slot * Long.BYTES;
+    }
+
+    /**
+     * Returns true if the provided counts are laid out with the provided slot names first, in order.
+     */
+    private static boolean startsWith( Map < String, Long > counts , String[] slotNames ) {
+        if ( counts.size( ) < slotNames.length )
+            return false;
+
+        int slot = 0;
+
+        for ( String name : counts.keySet( ) ) {
+            if ( slot == slotNames.length )
+                return true;
+
+            if ( !name.equals( slotNames[ slot++ ] ) )
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the counter file at the provided path, in slot order.
+     *
+     * @return Returns the counts keyed by identifier name, or null if the file is missing or corrupt.
+     */
+    private static Map < String, Long > read( Path path ) throws IOException {
+        ByteBuffer in;
+
+        try {
+            in = ByteBuffer.wrap( Files.readAllBytes( path ) ).order( ByteOrder.LITTLE_ENDIAN );
+        } catch ( NoSuchFileException e ) {
+            return null;
+        }
+
+        try {
+            if ( in.getInt( ) != MAGIC || in.getInt( ) != FORMAT )
+                throw new IOException( "Not a usage counter file." );
+
+            int slotCount = in.getInt( );
+            int dataOffset = in.getInt( );
+
+            if ( slotCount < 0 || dataOffset < HEADER_SIZE || dataOffset % Long.BYTES != 0 || ( long ) dataOffset + ( long ) slotCount * Long.BYTES > in.capacity( ) )
+                throw new IOException( "Invalid usage counter file layout." );
+
+            String[] names = new String[ slotCount ];
+
+            for ( int slot = 0; slot < slotCount; slot++ ) {
+                byte[] name = new byte[ Short.toUnsignedInt( in.getShort( ) ) ];
+                in.get( name );
+                names[ slot ] = new String( name , StandardCharsets.UTF_8 );
+            }
+
+            Map < String, Long > counts = new LinkedHashMap <>( );
+
+            for ( int slot = 0; slot < slotCount; slot++ ) {
+                if ( counts.put( names[ slot ] , in.getLong( dataOffset + slot * Long.BYTES ) ) != null )
+                    throw new IOException( "Duplicate slot name: " + names[ slot ] );
+            }
+
+            return counts;
+        } catch ( IOException | BufferUnderflowException | IndexOutOfBoundsException e ) {
+            log.log( Level.SEVERE , "Usage counter file is corrupt and will be rebuilt: " + path , e );
+            Files.move( path , path.resolveSibling( path.getFileName( ) + ".corrupt" ) , StandardCopyOption.REPLACE_EXISTING );
+            return null;
+        }
+    }
+
+    /**
+     * Writes a counter file with the provided layout and counts. The file is written next to the target and moved
+     * over it, so a crash leaves either the old file or the new one.
+     */
+    private static void write( Path path , List < String > layout , Map < String, Long > counts ) throws IOException {
+        byte[][] names = new byte[ layout.size( ) ][];
+        int namesSize = 0;
+
+        for ( int slot = 0; slot < names.length; slot++ ) {
+            names[ slot ] = layout.get( slot ).getBytes( StandardCharsets.UTF_8 );
+
+            if ( names[ slot ].length > 0xFFFF )
+                throw new IOException( "Identifier name too long: " + layout.get( slot ) );
+
+            namesSize += Short.BYTES + names[ slot ].length;
+        }
+
+        int dataOffset = ( HEADER_SIZE + namesSize + Long.BYTES - 1 ) & -Long.BYTES;
+        ByteBuffer out = ByteBuffer.allocate( dataOffset + names.length * Long.BYTES ).order( ByteOrder.LITTLE_ENDIAN );
+        out.putInt( MAGIC ).putInt( FORMAT ).putInt( names.length ).putInt( dataOffset );
+
+        for ( byte[] name : names ) {
+            out.putShort( ( short ) name.length ).put( name );
+        }
+
+        for ( int slot = 0; slot < names.length; slot++ ) {
+            Long count = counts.get( layout.get( slot ) );
+            out.putLong( dataOffset + slot * Long.BYTES , count != null ? count : 0L );
+        }
+
+        out.clear( );
+        Path temp = path.resolveSibling( path.getFileName( ) + ".tmp" );
+
+        try ( FileChannel channel = FileChannel.open( temp , StandardOpenOption.CREATE , StandardOpenOption.WRITE , StandardOpenOption.TRUNCATE_EXISTING ) ) {
+            while ( out.hasRemaining( ) ) {
+                channel.write( out );
+            }
+
+            channel.force( false );
+        }
+
+        Files.move( temp , path , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    /**
+     * The LController's counters, read and written directly in the mapped file.
+     */
+    private final class MappedCounters implements UsageCounters {
+
+        @Override
+        public int length( ) {
+            return ownSlots;
+        }
+
+        @Override
+        public long get( int slot ) {
+            return ( long ) COUNTERS.getVolatile( buffer , offsetOf( checked( slot ) ) );
+        }
+
+        @Override
+        public void set( int slot , long value ) {
+            COUNTERS.setVolatile( buffer , offsetOf( checked( slot ) ) , value );
+        }
+
+        @Override
+        public long incrementAndGet( int slot ) {
+            return ( long ) COUNTERS.getAndAdd( buffer , offsetOf( checked( slot ) ) , 1L ) + 1L;
+        }
+
+        @Override
+        public boolean isPersistent( ) {
+            return true;
+        }
+
+        @Override
+        public void force( ) {
+            MappedUsageStore.this.force( );
+        }
+
+        private int checked( int slot ) {
+            if ( slot < 0 || slot >= ownSlots )
+                throw new IndexOutOfBoundsException( slot );
+
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A lazy catalog of controller profiles. The catalog only holds an index of device names to where each profile
+ * is stored. A profile is parsed the first time it is asked for and kept in a small, bounded cache, so startup
+ * time and heap stay flat no matter how large the profile repository grows.
+ * <br>
+ * The catalog can be updated in place while it is being read. An update replaces the index as a whole, so a
+ * reader sees either the old profiles or the new ones, never a mix.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public class ProfileCatalog {
+
+    final static Logger log = Logger.getLogger( ProfileCatalog.class.getName( ) );
+
+    /**
+     * The default number of parsed profiles kept in the cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    /**
+     * Device name to where its profile is stored. Never modified, only replaced as a whole.
+     */
+    private volatile Map< String, ProfileRef > index;
+
+    /**
+     * The most recently used parsed profiles. Guarded by itself.
+     */
+    private final Map< String, ControllerProfile > cache;
+
+    /**
+     * @param index     Device name to where its profile is stored. Must not be modified afterwards.
+     * @param cacheSize The number of parsed profiles kept in the cache.
+     */
+    public ProfileCatalog( Map< String, ProfileRef > index , int cacheSize ) {
+        this.index = Collections.unmodifiableMap( index );
+        this.cache = new LinkedHashMap<>( 16 , 0.75f , true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry< String, ControllerProfile > eldest ) {
+                return size( ) > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the profile of the provided device, parsing it if it is not cached. Returns null if the catalog has
+     * no profile for the device or the profile could not be read.
+     */
+    public @Nullable ControllerProfile get( String deviceName ) {
+        synchronized ( cache ) {
+            ControllerProfile cached = cache.get( deviceName );
+
+            if ( cached != null )
+                return cached;
+        }
+
+        ProfileRef ref = index.get( deviceName );
+
+        if ( ref == null )
+            return null;
+
+        try {
+            ControllerProfile profile = ref.load( );
+
+            if ( profile != null ) {
+                synchronized ( cache ) {
+                    cache.put( deviceName , profile );
+                }
+            }
+
+            return profile;
+        } catch ( IOException | RuntimeException e ) {
+            log.log( Level.WARNING , "Could not load the profile of: " + deviceName , e );
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the catalog has a profile for the provided device.
+     */
+    public boolean contains( String deviceName ) {
+        return index.containsKey( deviceName );
+    }
+
+    /**
+     * Returns the name of every device in the catalog.
+     */
+    public Set< String > names( ) {
+        return index.keySet( );
+    }
+
+    /**
+     * Returns where the profile of the provided device is stored, or null if the catalog has no profile for it.
+     */
+    public @Nullable ProfileRef refOf( String deviceName ) {
+        return index.get( deviceName );
+    }
+
+    /**
+     * Returns the number of profiles in the catalog.
+     */
+    public int size( ) {
+        return index.size( );
+    }
+
+    /**
+     * Returns the name of every device whose profile is stored in one of the provided files.
+     */
+    public Set< String > namesFrom( Collection< Path > sources ) {
+        Set< String > names = new LinkedHashSet<>( );
+
+        for ( Map.Entry< String, ProfileRef > entry : index.entrySet( ) ) {
+            if ( sources.contains( entry.getValue( ).source( ) ) )
+                names.add( entry.getKey( ) );
+        }
+
+        return names;
+    }
+
+    /**
+     * Updates the catalog in place. The provided profiles are added or replace the existing ones, and the removed
+     * devices are dropped. Any cached profile of an updated device is evicted, so it is parsed again from its new
+     * location the next time it is asked for.
+     *
+     * @param updated Device name to where its new profile is stored.
+     * @param removed The devices to drop from the catalog.
+     */
+    public synchronized void update( Map< String, ProfileRef > updated , Collection< String > removed ) {
+        Map< String, ProfileRef > next = new LinkedHashMap<>( index );
+        next.keySet( ).removeAll( removed );
+        next.putAll( updated );
+        index = Collections.unmodifiableMap( next );
+
+        synchronized ( cache ) {
+            cache.keySet( ).removeAll( removed );
+            cache.keySet( ).removeAll( updated.keySet( ) );
+        }
+    }
+
+    /**
+     * Where a single profile is stored and how to parse it.
+     */
+    public interface ProfileRef {
+
+        /**
+         * Returns the file the profile is stored in.
+         */
+        Path source( );
+
+        /**
+         * Parses the profile.
+         */
+        ControllerProfile load( ) throws IOException;
+    }
+}
@@ -0,0 +1,419 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A single binary file holding the whole parsed profile catalog, written next to the Profiles folder so warm starts
+ * do not have to parse any json. The snapshot is memory-mapped and profiles are decoded from it on demand.
+ * <br>
+ * The file starts with a header holding the name, modification time and size of every source file the snapshot
+ * was built from. A snapshot is only used if the source files still match exactly. The header is followed by a
+ * table of interned strings, one fixed-size record per profile referring to those strings, and a precomputed
+ * open-addressing lookup table from device name to record. A CRC32 of everything before it ends the file, so a
+ * corrupt snapshot is never used.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+final class ProfileCatalogSnapshot {
+
+    final static Logger log = Logger.getLogger( ProfileCatalogSnapshot.class.getName( ) );
+
+    /**
+     * The file name of the snapshot, written next to the Profiles folder.
+     */
+    static final String FILE_NAME = "Profiles.snapshot";
+
+    private static final int MAGIC = 0x504C5053;
+
+    private static final int FORMAT = 2;
+
+    /**
+     * The number of string references in a profile record: name, description, manufacturer, type, port type,
+     * the source file and the poll mode.
+     */
+    private static final int RECORD_FIELDS = 7;
+
+    private static final int RECORD_SIZE = RECORD_FIELDS * Integer.BYTES;
+
+    private static final int NO_STRING = -1;
+
+    private ProfileCatalogSnapshot( ) {
+    }
+
+    /**
+     * The name, modification time and size of a profile source file. The name is relative to the folder the
+     * snapshot is in.
+     */
+    record Source( String name , long modified , long size ) {
+
+        /**
+         * Returns the source of the provided file, named relative to the provided base folder.
+         */
+        static Source of( File base , File file ) {
+            String name = base.toPath( ).relativize( file.toPath( ) ).toString( ).replace( File.separatorChar , '/' );
+            return new Source( name , file.lastModified( ) , file.length( ) );
+        }
+
+        /**
+         * Returns the file of this source, resolved against the provided base folder.
+         */
+        File resolve( File base ) {
+            return new File( base , name.replace( '/' , File.separatorChar ) );
+        }
+    }
+
+    /**
+     * Loads the snapshot at the provided path as a catalog index.
+     *
+     * @param snapshot The snapshot file.
+     * @param sources  The current profile source files.
+     * @param base     The folder the source file names are relative to.
+     * @return Returns the index, or null if the snapshot is missing, stale or corrupt.
+     */
+    static @Nullable Map< String, ProfileCatalog.ProfileRef > load( Path snapshot , List< Source > sources , File base ) {
+        try ( FileChannel channel = FileChannel.open( snapshot , StandardOpenOption.READ ) ) {
+            /*
+             * The source table is checked with a plain read before anything is mapped, so a stale snapshot is never
+             * left mapped and can be replaced right away.
+             */
+            ByteBuffer header = ByteBuffer.allocate( ( int ) Math.min( channel.size( ) , 1 << 20 ) );
+
+            while ( header.hasRemaining( ) && channel.read( header ) >= 0 ) {
+            }
+
+            header.flip( );
+
+            if ( header.remaining( ) < Integer.BYTES * 3 || header.getInt( ) != MAGIC || header.getInt( ) != FORMAT )
+                return null;
+
+            if ( !readSources( header ).equals( sources ) )
+                return null;
+
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY , 0 , channel.size( ) );
+
+            CRC32 crc = new CRC32( );
+            crc.update( buffer.slice( 0 , buffer.capacity( ) - Long.BYTES ) );
+
+            if ( crc.getValue( ) != buffer.getLong( buffer.capacity( ) - Long.BYTES ) ) {
+                log.log( Level.WARNING , "Profile snapshot is corrupt and will be rebuilt." );
+                return null;
+            }
+
+            return new SnapshotIndex( buffer , header.position( ) , base );
+        } catch ( NoSuchFileException e ) {
+            return null;
+        } catch ( IOException | RuntimeException e ) {
+            log.log( Level.WARNING , "Could not read profile snapshot, it will be rebuilt." , e );
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the provided profiles. The snapshot is written next to the target and moved over it,
+     * so a crash never leaves a partial snapshot behind.
+     *
+     * @param snapshot The snapshot file.
+     * @param sources  The source files the profiles were parsed from, as they were before parsing.
+     * @param profiles The parsed profiles, each paired with the index of its source file.
+     */
+    static void write( Path snapshot , List< Source > sources , List< Map.Entry< ControllerProfile, Integer > > profiles ) throws IOException {
+        Map< String, Integer > stringIds = new HashMap<>( );
+        List< byte[] > strings = new ArrayList<>( );
+        int[] records = new int[ profiles.size( ) * RECORD_FIELDS ];
+
+        for ( int i = 0; i < profiles.size( ); i++ ) {
+            ControllerProfile profile = profiles.get( i ).getKey( );
+            int base = i * RECORD_FIELDS;
+
+            records[ base ] = intern( profile.getName( ) , stringIds , strings );
+            records[ base + 1 ] = intern( profile.getDescription( ) , stringIds , strings );
+            records[ base + 2 ] = intern( profile.getManufacturer( ) , stringIds , strings );
+            records[ base + 3 ] = intern( profile.getType( ) , stringIds , strings );
+            records[ base + 4 ] = intern( profile.getPortType( ) , stringIds , strings );
+            records[ base + 5 ] = profiles.get( i ).getValue( );
+            records[ base + 6 ] = intern( profile.getPollMode( ) , stringIds , strings );
+        }
+
+        int tableSize = Integer.highestOneBit( Math.max( 1 , profiles.size( ) ) * 2 - 1 ) << 1;
+        int[] table = new int[ tableSize ];
+
+        for ( int i = 0; i < profiles.size( ); i++ ) {
+            int slot = profiles.get( i ).getKey( ).getName( ).hashCode( ) & ( tableSize - 1 );
+
+            while ( table[ slot ] != 0 ) {
+                slot = ( slot + 1 ) & ( tableSize - 1 );
+            }
+
+            table[ slot ] = i + 1;
+        }
+
+        List< byte[] > sourceNames = new ArrayList<>( sources.size( ) );
+        int size = Integer.BYTES * 3;
+
+        for ( Source source : sources ) {
+            byte[] name = source.name( ).getBytes( StandardCharsets.UTF_8 );
+            sourceNames.add( name );
+            size += Integer.BYTES + name.length + Long.BYTES * 2;
+        }
+
+        size += Integer.BYTES;
+
+        for ( byte[] string : strings ) {
+            size += Integer.BYTES + string.length;
+        }
+
+        size += Integer.BYTES + records.length * Integer.BYTES + Integer.BYTES + table.length * Integer.BYTES + Long.BYTES;
+
+        ByteBuffer out = ByteBuffer.allocate( size );
+        out.putInt( MAGIC ).putInt( FORMAT ).putInt( sources.size( ) );
+
+        for ( int i = 0; i < sources.size( ); i++ ) {
+            out.putInt( sourceNames.get( i ).length ).put( sourceNames.get( i ) );
+            out.putLong( sources.get( i ).modified( ) ).putLong( sources.get( i ).size( ) );
+        }
+
+        out.putInt( strings.size( ) );
+
+        for ( byte[] string : strings ) {
+            out.putInt( string.length ).put( string );
+        }
+
+        out.putInt( profiles.size( ) );
+
+        for ( int field : records ) {
+            out.putInt( field );
+        }
+
+        out.putInt( table.length );
+
+        for ( int entry : table ) {
+            out.putInt( entry );
+        }
+
+        CRC32 crc = new CRC32( );
+        crc.update( out.array( ) , 0 , out.position( ) );
+        out.putLong( crc.getValue( ) );
+        out.flip( );
+
+        Path temp = snapshot.resolveSibling( snapshot.getFileName( ) + ".tmp" );
+
+        try ( FileChannel channel = FileChannel.open( temp , StandardOpenOption.CREATE , StandardOpenOption.WRITE , StandardOpenOption.TRUNCATE_EXISTING ) ) {
+            while ( out.hasRemaining( ) ) {
+                channel.write( out );
+            }
+
+            channel.force( false );
+        }
+
+        Files.move( temp , snapshot , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    private static int intern( String value , Map< String, Integer > stringIds , List< byte[] > strings ) {
+        if ( value == null )
+            return NO_STRING;
+
+        return stringIds.computeIfAbsent( value , v -> {
+            strings.add( v.getBytes( StandardCharsets.UTF_8 ) );
+            return strings.size( ) - 1;
+        } );
+    }
+
+    private static List< Source > readSources( ByteBuffer in ) {
+        int count = in.getInt( );
+        List< Source > sources = new ArrayList<>( count );
+
+        for ( int i = 0; i < count; i++ ) {
+            byte[] name = new byte[ in.getInt( ) ];
+            in.get( name );
+            sources.add( new Source( new String( name , StandardCharsets.UTF_8 ) , in.getLong( ) , in.getLong( ) ) );
+        }
+
+        return sources;
+    }
+
+    /**
+     * A catalog index backed directly by the mapped snapshot. Lookups go through the precomputed lookup table,
+     * and profiles are decoded from their records when they are loaded. Nothing is copied onto the heap up front.
+     */
+    private static final class SnapshotIndex extends AbstractMap< String, ProfileCatalog.ProfileRef > {
+
+        private final ByteBuffer buffer;
+
+        private final File base;
+
+        /**
+         * The offset of every interned string.
+         */
+        private final int[] stringOffsets;
+
+        /**
+         * Every source file the snapshot was built from.
+         */
+        private final List< Source > sources;
+
+        private final int recordsOffset;
+
+        private final int profileCount;
+
+        private final int tableOffset;
+
+        private final int tableSize;
+
+        private SnapshotIndex( ByteBuffer buffer , int stringsOffset , File base ) {
+            this.buffer = buffer;
+            this.base = base;
+
+            ByteBuffer in = buffer.duplicate( );
+            in.position( Integer.BYTES * 2 );
+            this.sources = readSources( in );
+
+            in.position( stringsOffset );
+            this.stringOffsets = new int[ in.getInt( ) ];
+
+            for ( int i = 0; i < stringOffsets.length; i++ ) {
+                stringOffsets[ i ] = in.position( );
+                in.position( in.position( ) + Integer.BYTES + in.getInt( in.position( ) ) );
+            }
+
+            this.profileCount = in.getInt( );
+            this.recordsOffset = in.position( );
+            in.position( recordsOffset + profileCount * RECORD_SIZE );
+
+            this.tableSize = in.getInt( );
+            this.tableOffset = in.position( );
+
+            if ( Integer.bitCount( tableSize ) != 1 || tableOffset + tableSize * Integer.BYTES > buffer.capacity( ) - Long.BYTES )
+                throw new BufferUnderflowException( );
+        }
+
+        @Override
+        public ProfileCatalog.ProfileRef get( Object key ) {
+            if ( !( key instanceof String name ) )
+                return null;
+
+            int slot = name.hashCode( ) & ( tableSize - 1 );
+
+            for ( int probes = 0; probes < tableSize; probes++ ) {
+                int entry = buffer.getInt( tableOffset + slot * Integer.BYTES );
+
+                if ( entry == 0 )
+                    return null;
+
+                if ( name.equals( field( entry - 1 , 0 ) ) )
+                    return new SnapshotRef( entry - 1 );
+
+                slot = ( slot + 1 ) & ( tableSize - 1 );
+            }
+
+            return null;
+        }
+
+        @Override
+        public boolean containsKey( Object key ) {
+            return get( key ) != null;
+        }
+
+        @Override
+        public int size( ) {
+            return profileCount;
+        }
+
+        @Override
+        public Set< Entry< String, ProfileCatalog.ProfileRef > > entrySet( ) {
+            return new AbstractSet<>( ) {
+                @Override
+                public Iterator< Entry< String, ProfileCatalog.ProfileRef > > iterator( ) {
+                    return new Iterator<>( ) {
+                        private int next = 0;
+
+                        @Override
+                        public boolean hasNext( ) {
+                            return next < profileCount;
+                        }
+
+                        @Override
+                        public Entry< String, ProfileCatalog.ProfileRef > next( ) {
+                            if ( !hasNext( ) )
+                                throw new NoSuchElementException( );
+
+                            int record = next++;
+                            return new SimpleImmutableEntry<>( field( record , 0 ) , new SnapshotRef( record ) );
+                        }
+                    };
+                }
+
+                @Override
+                public int size( ) {
+                    return profileCount;
+                }
+            };
+        }
+
+        /**
+         * Returns the string the provided field of the provided record refers to.
+         */
+        private String field( int record , int field ) {
+            int id = buffer.getInt( recordsOffset + record * RECORD_SIZE + field * Integer.BYTES );
+
+            if ( id == NO_STRING )
+                return null;
+
+            int offset = stringOffsets[ id ];
+            byte[] bytes = new byte[ buffer.getInt( offset ) ];
+            buffer.get( offset + Integer.BYTES , bytes );
+
+            return new String( bytes , StandardCharsets.UTF_8 );
+        }
+
+        /**
+         * A profile stored as a record in the snapshot.
+         */
+        private final class SnapshotRef implements ProfileCatalog.ProfileRef {
+
+            private final int record;
+
+            private SnapshotRef( int record ) {
+                this.record = record;
+            }
+
+            @Override
+            public Path source( ) {
+                int source = buffer.getInt( recordsOffset + record * RECORD_SIZE + 5 * Integer.BYTES );
+                return sources.get( source ).resolve( base ).toPath( );
+            }
+
+            @Override
+            public ControllerProfile load( ) {
+                return new ControllerProfile( field( record , 0 ) , field( record , 1 ) , field( record , 2 ) , field( record , 3 ) , field( record , 4 ) , field( record , 6 ) );
+            }
+        }
+    }
+}
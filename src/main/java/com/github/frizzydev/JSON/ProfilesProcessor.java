@@ -3,19 +3,39 @@ package com.github.frizzydev.JSON;
 import com.github.frizzydev.controller.Profiles.ControllerProfile;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * ProfilesProcessor handles deserializing the json profile files.
@@ -28,16 +48,50 @@ public class ProfilesProcessor {
 
     final static Logger log = Logger.getLogger( ProfilesProcessor.class.getName( ) );
 
+    /**
+     * The file name of the profiles archive, next to the profiles folder.
+     */
+    public static final String ARCHIVE_NAME = "Profiles.zip";
+
+    /**
+     * Streams the profiles without reflection. Shared by every ProfilesProcessor.
+     */
+    private static final TypeAdapter< ControllerProfile > PROFILE_ADAPTER = new ControllerProfileAdapter( );
+
+    /**
+     * Gson with the profile adapter registered once.
+     */
+    private static final Gson GSON = new GsonBuilder( ).registerTypeAdapter( ControllerProfile.class , PROFILE_ADAPTER ).create( );
+
     /**
      * The gson object to deserialize the json files.
      */
-    private Gson gson;
+    private final Gson gson;
 
     /**
      * The location of the profile files.
      */
     private File profilesFolder;
 
+    /**
+     * The order profiles are merged in: the archive first, then the loose profile files by name, so a later profile
+     * overrides an earlier one describing the same device.
+     */
+    private final Comparator< SourceRef > mergeOrder = Comparator.comparingInt( ( SourceRef ref ) -> ref instanceof ZipProfileRef ? 0 : 1 )
+            .thenComparing( SourceRef::getName );
+
+    /**
+     * The profiles archive the catalog reads from. Opened once and shared by every catalog reference into it, so
+     * updating the catalog never opens the archive again. Guarded by this.
+     */
+    private ZipFile archive;
+
+    /**
+     * Device name to every profile describing it, in merge order, so a device whose profile is removed falls back to
+     * the next one without reading every source again. Built the first time a profile is removed, unless the catalog
+     * was just built from the profiles, and kept up to date by updateCatalog ( ). Guarded by this.
+     */
+    private Map< String, List< SourceRef > > providers;
 
     /**
      *
@@ -47,29 +101,496 @@ public class ProfilesProcessor {
             throw new InvalidParameterException( "The provided profilesFolder is null." );
 
         this.profilesFolder = profilesFolder;
-        gson = new GsonBuilder( ).create( );
+        gson = GSON;
     }
 
     /**
      * Retrieves available controller profiles. As a reminder, profiles are not created by ProjectLifecycle,
      * but rather created by me as I have information exported to me by users.
+     * <br>
+     * Every profile is parsed on its own virtual thread. The results are merged in file name order, with the
+     * profiles archive first, so the catalog is the same no matter which profile finishes first. If two profiles
+     * describe the same device, the later one wins, so a loose profile file overrides the archive. A profile that
+     * cannot be parsed is reported and skipped.
      */
     public @NotNull Map< String, ControllerProfile > getProfiles( ) {
         Map< String, ControllerProfile > profiles = new LinkedHashMap<>( );
+        List< ProfileCatalogSnapshot.Source > sources = listSources( );
 
-        for ( File profileFile : Objects.requireNonNull( profilesFolder.listFiles( ) ) ) {
+        if ( sources == null )
+            return profiles;
 
-            try ( JsonReader reader = gson.newJsonReader( new BufferedReader( new FileReader( profileFile ) ) ) ) {
+        List< SourceRef > refs = openSources( sources , false );
+        List< Future< ControllerProfile > > results = new ArrayList<>( refs.size( ) );
+
+        /*
+         * Every profile is parsed before this returns, so the archive is closed right away instead of staying open
+         * and locked for as long as the process runs.
+         */
+        try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor( ) ) {
+            for ( SourceRef ref : refs ) {
+                results.add( executor.submit( ( ) -> readProfile( ref ) ) );
+            }
+        } finally {
+            closeSources( refs );
+        }
 
-                ControllerProfile profile = gson.fromJson( reader , ControllerProfile.class );
+        for ( Future< ControllerProfile > result : results ) {
+            ControllerProfile profile = result.resultNow( );
+
+            if ( profile != null ) {
                 profiles.put( profile.getName( ) , profile );
+            }
+        }
+
+        return profiles;
+    }
+
+    /**
+     * Builds a lazy catalog of the available controller profiles. Only the device name of every profile is read,
+     * the rest of a profile is parsed the first time it is asked for. See {@link ProfileCatalog}.
+     * <br>
+     * Profiles are read straight out of the profiles archive next to the profiles folder, through the zip central
+     * directory, so the archive does not have to be extracted first. Loose profile files in the profiles folder
+     * override the archive. The device names are read in parallel on virtual threads and merged in the same order
+     * {@link #getProfiles()} merges whole profiles.
+     * <br>
+     * If the catalog snapshot next to the profiles folder still matches the name, modification time and size of
+     * the archive and every profile file, the catalog is served straight from the snapshot and no json is read at
+     * all. Otherwise the catalog is built from the profiles, and a new snapshot is written in the background for
+     * the next launch. See {@link ProfileCatalogSnapshot}.
+     */
+    public @NotNull ProfileCatalog getCatalog( ) {
+        Map< String, ProfileCatalog.ProfileRef > index = new LinkedHashMap<>( );
+        List< ProfileCatalogSnapshot.Source > sources = listSources( );
+
+        if ( sources == null )
+            return new ProfileCatalog( index , ProfileCatalog.DEFAULT_CACHE_SIZE );
+
+        Path snapshot = getSnapshotPath( );
+        Map< String, ProfileCatalog.ProfileRef > snapshotIndex = ProfileCatalogSnapshot.load( snapshot , sources , getBaseFolder( ) );
+
+        if ( snapshotIndex != null )
+            return new ProfileCatalog( snapshotIndex , ProfileCatalog.DEFAULT_CACHE_SIZE );
+
+        List< SourceRef > refs = openSources( sources , true );
+        Map< String, List< SourceRef > > byName = readProviders( refs );
+
+        for ( Map.Entry< String, List< SourceRef > > entry : byName.entrySet( ) ) {
+            index.put( entry.getKey( ) , entry.getValue( ).getLast( ) );
+        }
+
+        synchronized ( this ) {
+            providers = byName;
+        }
+
+        Thread.ofVirtual( ).name( "Profiles-Snapshot" ).start( ( ) -> writeSnapshot( snapshot , sources , refs ) );
+
+        return new ProfileCatalog( index , ProfileCatalog.DEFAULT_CACHE_SIZE );
+    }
+
+    /**
+     * Updates the provided catalog in place after profile files were changed or removed, reading only those files.
+     * A device whose profile file was removed, or now describes a different device, falls back to the next profile
+     * describing it, such as the archive entry a removed override was shadowing, and is only dropped from the
+     * catalog if there is none. The device names of every profile are read once, the first time a profile is
+     * removed, unless the catalog was just built from the profiles. The catalog snapshot goes stale on its own,
+     * since the files no longer match it.
+     *
+     * @param catalog      The catalog to update.
+     * @param changedFiles The profile files that were added or changed.
+     * @param removedFiles The profile files that were removed.
+     * @return Returns the name of every device whose profile was added, changed or removed.
+     */
+    public synchronized @NotNull Set< String > updateCatalog( ProfileCatalog catalog , Collection< File > changedFiles , Collection< File > removedFiles ) {
+        List< Path > touched = new ArrayList<>( );
+
+        for ( File file : changedFiles ) {
+            touched.add( file.getAbsoluteFile( ).toPath( ) );
+        }
+
+        for ( File file : removedFiles ) {
+            touched.add( file.getAbsoluteFile( ).toPath( ) );
+        }
+
+        Set< String > affected = catalog.namesFrom( touched );
+        List< SourceRef > refs = new ArrayList<>( changedFiles.size( ) );
+
+        for ( File file : changedFiles ) {
+            refs.add( new FileProfileRef( file.getAbsoluteFile( ).toPath( ) , -1 ) );
+        }
+
+        Map< String, List< SourceRef > > changed = readProviders( refs );
+        Map< String, ProfileCatalog.ProfileRef > updated = new LinkedHashMap<>( );
+        Set< String > removed = new LinkedHashSet<>( affected );
+
+        for ( Map.Entry< String, List< SourceRef > > entry : changed.entrySet( ) ) {
+            updated.put( entry.getKey( ) , entry.getValue( ).getLast( ) );
+        }
+
+        removed.removeAll( updated.keySet( ) );
+
+        if ( providers == null && !removed.isEmpty( ) ) {
+            List< ProfileCatalogSnapshot.Source > sources = listSources( );
+
+            if ( sources != null )
+                providers = readProviders( openSources( sources , true ) );
+        }
+
+        /*
+         * With every profile of a device known, the device gets whichever of its profiles now wins the merge,
+         * so only the affected devices are looked up.
+         */
+        if ( providers != null ) {
+            for ( List< SourceRef > list : providers.values( ) ) {
+                list.removeIf( ref -> touched.contains( ref.source( ) ) );
+            }
+
+            for ( Map.Entry< String, List< SourceRef > > entry : changed.entrySet( ) ) {
+                List< SourceRef > list = providers.computeIfAbsent( entry.getKey( ) , name -> new ArrayList<>( ) );
+                list.addAll( entry.getValue( ) );
+                list.sort( mergeOrder );
+            }
+
+            Set< String > names = new LinkedHashSet<>( affected );
+            names.addAll( updated.keySet( ) );
+            updated.clear( );
+            removed.clear( );
+
+            for ( String name : names ) {
+                List< SourceRef > list = providers.get( name );
+
+                if ( list == null || list.isEmpty( ) ) {
+                    providers.remove( name );
+                    removed.add( name );
+                } else {
+                    updated.put( name , list.getLast( ) );
+                }
+            }
+        }
+
+        catalog.update( updated , removed );
+
+        affected.addAll( updated.keySet( ) );
+        return affected;
+    }
+
+    /**
+     * Reads the device name of every provided profile in parallel on virtual threads.
+     *
+     * @return Returns device name to every profile describing it, in the order of the provided profiles. Profiles
+     * without a device name are left out.
+     */
+    private Map< String, List< SourceRef > > readProviders( List< SourceRef > refs ) {
+        List< Future< String > > results = new ArrayList<>( refs.size( ) );
+
+        try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor( ) ) {
+            for ( SourceRef ref : refs ) {
+                results.add( executor.submit( ( ) -> readDeviceName( ref ) ) );
+            }
+        }
+
+        Map< String, List< SourceRef > > byName = new LinkedHashMap<>( );
+
+        for ( int i = 0; i < refs.size( ); i++ ) {
+            String deviceName = results.get( i ).resultNow( );
+
+            if ( deviceName != null ) {
+                byName.computeIfAbsent( deviceName , name -> new ArrayList<>( ) ).add( refs.get( i ) );
+            }
+        }
+
+        return byName;
+    }
+
+    /**
+     * Returns the folder the profiles folder, the profiles archive and the catalog snapshot are in.
+     */
+    public File getBaseFolder( ) {
+        File parent = profilesFolder.getAbsoluteFile( ).getParentFile( );
+        return parent != null ? parent : profilesFolder.getAbsoluteFile( );
+    }
+
+    /**
+     * Returns the location of the profiles archive, next to the profiles folder.
+     */
+    public Path getArchivePath( ) {
+        return new File( getBaseFolder( ) , ARCHIVE_NAME ).toPath( );
+    }
+
+    /**
+     * Returns the location of the catalog snapshot, next to the profiles folder.
+     */
+    public Path getSnapshotPath( ) {
+        return new File( getBaseFolder( ) , ProfileCatalogSnapshot.FILE_NAME ).toPath( );
+    }
+
+    /**
+     * Lists where profiles are read from: the profiles archive, if there is one, followed by every regular file in
+     * the profiles folder, sorted by name.
+     *
+     * @return Returns the sources, or null if the profiles folder exists but could not be listed.
+     */
+    private @Nullable List< ProfileCatalogSnapshot.Source > listSources( ) {
+        List< ProfileCatalogSnapshot.Source > sources = new ArrayList<>( );
+        File base = getBaseFolder( );
+        File archiveFile = getArchivePath( ).toFile( );
+
+        if ( archiveFile.isFile( ) )
+            sources.add( ProfileCatalogSnapshot.Source.of( base , archiveFile ) );
+
+        if ( !profilesFolder.exists( ) )
+            return sources;
+
+        File[] profileFiles = profilesFolder.listFiles( File::isFile );
 
+        if ( profileFiles == null ) {
+            log.log( Level.SEVERE, "Could not list the profiles folder: " + profilesFolder );
+            return null;
+        }
+
+        Arrays.sort( profileFiles , Comparator.comparing( File::getName ) );
+
+        for ( File profileFile : profileFiles ) {
+            sources.add( ProfileCatalogSnapshot.Source.of( base , profileFile.getAbsoluteFile( ) ) );
+        }
+
+        return sources;
+    }
+
+    /**
+     * Returns a reference to every profile in the provided sources, in order. The archive is opened once and every
+     * profile inside it is read through random access to its entry.
+     *
+     * @param shared True to read the archive through the handle shared with the catalog, false to open a handle of
+     *               its own that the caller closes, see {@link #closeSources(List)}.
+     */
+    private List< SourceRef > openSources( List< ProfileCatalogSnapshot.Source > sources , boolean shared ) {
+        List< SourceRef > refs = new ArrayList<>( sources.size( ) );
+        File base = getBaseFolder( );
+        Path archivePath = getArchivePath( );
+
+        for ( int i = 0; i < sources.size( ); i++ ) {
+            File file = sources.get( i ).resolve( base );
+
+            if ( !file.toPath( ).equals( archivePath ) ) {
+                refs.add( new FileProfileRef( file.toPath( ) , i ) );
+                continue;
+            }
+
+            /*
+             * The archive stays open for as long as its profiles are referenced, since they are read from it lazily.
+             */
+            try {
+                ZipFile zip = shared ? sharedArchive( file ) : new ZipFile( file );
+                List< ZipEntry > entries = new ArrayList<>( );
+
+                zip.stream( ).filter( entry -> !entry.isDirectory( ) ).forEach( entries::add );
+                entries.sort( Comparator.comparing( ZipEntry::getName ) );
+
+                for ( ZipEntry entry : entries ) {
+                    refs.add( new ZipProfileRef( zip , entry , i ) );
+                }
             } catch ( IOException e ) {
-                log.log( Level.SEVERE, "Could not load controller profiles.", e );
+                log.log( Level.SEVERE, "Could not open the profiles archive: " + file , e );
             }
         }
 
-        return profiles;
+        return refs;
+    }
+
+    /**
+     * Returns the archive handle shared with the catalog, opening it the first time.
+     */
+    private synchronized ZipFile sharedArchive( File file ) throws IOException {
+        if ( archive == null )
+            archive = new ZipFile( file );
+
+        return archive;
+    }
+
+    /**
+     * Closes the archive the provided references read from, if any. The references can not be loaded afterwards.
+     */
+    private void closeSources( List< SourceRef > refs ) {
+        Set< ZipFile > zips = Collections.newSetFromMap( new IdentityHashMap<>( ) );
+
+        for ( SourceRef ref : refs ) {
+            if ( ref instanceof ZipProfileRef zipRef )
+                zips.add( zipRef.zip );
+        }
+
+        for ( ZipFile zip : zips ) {
+            try {
+                zip.close( );
+            } catch ( IOException e ) {
+                log.log( Level.WARNING, "Could not close the profiles archive: " + zip.getName( ) , e );
+            }
+        }
+    }
+
+    /**
+     * Parses every profile and writes the catalog snapshot. The sources are the ones listed before parsing, so a
+     * file that changes while the snapshot is written makes the snapshot stale instead of wrong.
+     */
+    private void writeSnapshot( Path snapshot , List< ProfileCatalogSnapshot.Source > sources , List< SourceRef > refs ) {
+        List< Future< ControllerProfile > > results = new ArrayList<>( refs.size( ) );
+
+        try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor( ) ) {
+            for ( SourceRef ref : refs ) {
+                results.add( executor.submit( ( ) -> readProfile( ref ) ) );
+            }
+        }
+
+        Map< String, Map.Entry< ControllerProfile, Integer > > profiles = new LinkedHashMap<>( );
+
+        for ( int i = 0; i < refs.size( ); i++ ) {
+            ControllerProfile profile = results.get( i ).resultNow( );
+
+            if ( profile != null ) {
+                profiles.put( profile.getName( ) , Map.entry( profile , refs.get( i ).sourceIndex ) );
+            }
+        }
+
+        try {
+            ProfileCatalogSnapshot.write( snapshot , sources , new ArrayList<>( profiles.values( ) ) );
+        } catch ( IOException e ) {
+            log.log( Level.WARNING, "Could not write the profile snapshot: " + snapshot , e );
+        }
+    }
+
+    /**
+     * Reads only the device name of a single profile, stopping as soon as it is found.
+     *
+     * @return Returns the device name, or null if the file could not be read, is malformed, or does not name a device.
+     */
+    private @Nullable String readDeviceName( SourceRef ref ) {
+        try ( JsonReader reader = gson.newJsonReader( new BufferedReader( ref.open( ) ) ) ) {
+            reader.beginObject( );
+
+            while ( reader.hasNext( ) ) {
+                if ( reader.nextName( ).equals( "DeviceName" ) && reader.peek( ) == JsonToken.STRING ) {
+                    return reader.nextString( );
+                }
+
+                reader.skipValue( );
+            }
+
+            log.log( Level.WARNING, "Skipping profile without a device name: " + ref.getName( ) );
+            return null;
+        } catch ( IOException | RuntimeException e ) {
+            log.log( Level.WARNING, "Skipping malformed profile: " + ref.getName( ), e );
+            return null;
+        }
+    }
+
+    /**
+     * Parses a single profile.
+     *
+     * @return Returns the profile, or null if the file could not be read, is malformed, or does not name a device.
+     */
+    private @Nullable ControllerProfile readProfile( SourceRef ref ) {
+        try ( JsonReader reader = gson.newJsonReader( new BufferedReader( ref.open( ) ) ) ) {
+            ControllerProfile profile = PROFILE_ADAPTER.read( reader );
+
+            if ( profile == null || profile.getName( ) == null ) {
+                log.log( Level.WARNING, "Skipping profile without a device name: " + ref.getName( ) );
+                return null;
+            }
+
+            return profile;
+        } catch ( IOException | RuntimeException e ) {
+            log.log( Level.WARNING, "Skipping malformed profile: " + ref.getName( ), e );
+            return null;
+        }
     }
 
+    /**
+     * A profile read by this processor, from either a file or the archive.
+     */
+    private abstract class SourceRef implements ProfileCatalog.ProfileRef {
+
+        /**
+         * The index of the source the profile is read from.
+         */
+        final int sourceIndex;
+
+        SourceRef( int sourceIndex ) {
+            this.sourceIndex = sourceIndex;
+        }
+
+        /**
+         * Opens the json of the profile.
+         */
+        abstract Reader open( ) throws IOException;
+
+        /**
+         * Returns the name the profile is reported under.
+         */
+        abstract String getName( );
+
+        @Override
+        public ControllerProfile load( ) {
+            return readProfile( this );
+        }
+    }
+
+    /**
+     * A profile stored in its own json file.
+     */
+    private final class FileProfileRef extends SourceRef {
+
+        private final Path file;
+
+        private FileProfileRef( Path file , int sourceIndex ) {
+            super( sourceIndex );
+            this.file = file;
+        }
+
+        @Override
+        Reader open( ) throws IOException {
+            return new FileReader( file.toFile( ) );
+        }
+
+        @Override
+        String getName( ) {
+            return file.getFileName( ).toString( );
+        }
+
+        @Override
+        public Path source( ) {
+            return file;
+        }
+    }
+
+    /**
+     * A profile stored as an entry of the profiles archive.
+     */
+    private final class ZipProfileRef extends SourceRef {
+
+        private final ZipFile zip;
+
+        private final ZipEntry entry;
+
+        private ZipProfileRef( ZipFile zip , ZipEntry entry , int sourceIndex ) {
+            super( sourceIndex );
+            this.zip = zip;
+            this.entry = entry;
+        }
+
+        @Override
+        Reader open( ) throws IOException {
+            return new InputStreamReader( zip.getInputStream( entry ) , StandardCharsets.UTF_8 );
+        }
+
+        @Override
+        String getName( ) {
+            return ARCHIVE_NAME + "!" + entry.getName( );
+        }
+
+        @Override
+        public Path source( ) {
+            return Path.of( zip.getName( ) );
+        }
+    }
 }
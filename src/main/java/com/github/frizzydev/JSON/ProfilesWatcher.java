@@ -0,0 +1,249 @@
+package com.github.frizzydev.JSON;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the profiles folder and keeps a {@link ProfileCatalog} up to date while the app runs, so new and edited
+ * profile files are picked up without a restart.
+ * <br>
+ * File events are collected on a background thread. A reload runs once no event has arrived for the debounce
+ * delay, so an editor saving a file or a pack being copied in becomes a single reload. A reload only reads the
+ * files that changed and updates the catalog in one step, then tells every listener which devices were affected.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public class ProfilesWatcher implements Closeable {
+
+    final static Logger log = Logger.getLogger( ProfilesWatcher.class.getName( ) );
+
+    /**
+     * The default time without file events before a reload, in milliseconds.
+     */
+    public static final long DEFAULT_DEBOUNCE = 500L;
+
+    /**
+     * The processor that reads the changed profile files.
+     */
+    private final ProfilesProcessor processor;
+
+    /**
+     * The catalog kept up to date.
+     */
+    private final ProfileCatalog catalog;
+
+    /**
+     * The watched folder.
+     */
+    private final Path folder;
+
+    /**
+     * The time without file events before a reload, in milliseconds.
+     */
+    private final long debounce;
+
+    private final WatchService watchService;
+
+    /**
+     * Runs the debounced reloads.
+     */
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Notified with the name of every affected device after a reload.
+     */
+    private final List < Consumer < Set < String > > > listeners = new CopyOnWriteArrayList <>( );
+
+    /**
+     * The files that changed since the last reload. Guarded by this.
+     */
+    private final Set < Path > changed = new LinkedHashSet <>( );
+
+    /**
+     * The files that were removed since the last reload. Guarded by this.
+     */
+    private final Set < Path > removed = new LinkedHashSet <>( );
+
+    /**
+     * Set when events were lost, in which case every profile file is read again. Guarded by this.
+     */
+    private boolean overflowed;
+
+    /**
+     * The pending reload. Guarded by this.
+     */
+    private ScheduledFuture < ? > pendingReload;
+
+    /**
+     * @param processor The processor that reads the changed profile files.
+     * @param catalog   The catalog kept up to date.
+     * @param folder    The profiles folder.
+     * @param debounce  The time without file events before a reload, in milliseconds.
+     */
+    public ProfilesWatcher( ProfilesProcessor processor , ProfileCatalog catalog , File folder , long debounce ) throws IOException {
+        this.processor = processor;
+        this.catalog = catalog;
+        this.folder = folder.getAbsoluteFile( ).toPath( );
+        this.debounce = debounce;
+        this.watchService = FileSystems.getDefault( ).newWatchService( );
+        this.executor = new ScheduledThreadPoolExecutor( 1 , r -> Thread.ofPlatform( )
+                .name( "Profiles-Reload" )
+                .daemon( true )
+                .unstarted( r ) );
+
+        this.folder.register( watchService , StandardWatchEventKinds.ENTRY_CREATE , StandardWatchEventKinds.ENTRY_MODIFY , StandardWatchEventKinds.ENTRY_DELETE );
+    }
+
+    /**
+     * Starts watching the profiles folder.
+     */
+    public void start( ) {
+        Thread.ofPlatform( ).name( "Profiles-Watcher" ).daemon( true ).start( this::watch );
+    }
+
+    /**
+     * Adds a listener notified with the name of every device whose profile was added, changed or removed.
+     */
+    public void addListener( Consumer < Set < String > > listener ) {
+        listeners.add( listener );
+    }
+
+    /**
+     * Removes a listener.
+     */
+    public void removeListener( Consumer < Set < String > > listener ) {
+        listeners.remove( listener );
+    }
+
+    /**
+     * Stops watching the profiles folder. A pending reload is dropped.
+     */
+    @Override
+    public void close( ) throws IOException {
+        executor.shutdownNow( );
+        watchService.close( );
+    }
+
+    /**
+     * Collects file events until the watcher is closed.
+     */
+    private void watch( ) {
+        try {
+            while ( true ) {
+                WatchKey key = watchService.take( );
+
+                synchronized ( this ) {
+                    for ( WatchEvent < ? > event : key.pollEvents( ) ) {
+                        if ( event.kind( ) == StandardWatchEventKinds.OVERFLOW ) {
+                            overflowed = true;
+                            continue;
+                        }
+
+                        Path file = folder.resolve( ( Path ) event.context( ) );
+
+                        if ( event.kind( ) == StandardWatchEventKinds.ENTRY_DELETE ) {
+                            changed.remove( file );
+                            removed.add( file );
+                        } else {
+                            removed.remove( file );
+                            changed.add( file );
+                        }
+                    }
+
+                    if ( pendingReload != null )
+                        pendingReload.cancel( false );
+
+                    pendingReload = executor.schedule( this::reload , debounce , TimeUnit.MILLISECONDS );
+                }
+
+                if ( !key.reset( ) ) {
+                    log.log( Level.WARNING , "The profiles folder can no longer be watched: " + folder );
+                    return;
+                }
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread( ).interrupt( );
+        } catch ( ClosedWatchServiceException e ) {
+            // The watcher was closed.
+        }
+    }
+
+    /**
+     * Reads the files that changed since the last reload and updates the catalog.
+     */
+    private void reload( ) {
+        List < File > changedFiles = new ArrayList <>( );
+        List < File > removedFiles = new ArrayList <>( );
+
+        synchronized ( this ) {
+            if ( overflowed ) {
+                File[] files = folder.toFile( ).listFiles( File::isFile );
+
+                if ( files != null ) {
+                    for ( File file : files ) {
+                        changed.add( file.toPath( ) );
+                    }
+                }
+
+                for ( String name : catalog.names( ) ) {
+                    ProfileCatalog.ProfileRef ref = catalog.refOf( name );
+
+                    if ( ref != null && folder.equals( ref.source( ).getParent( ) ) && !ref.source( ).toFile( ).exists( ) )
+                        removed.add( ref.source( ) );
+                }
+
+                overflowed = false;
+            }
+
+            for ( Path file : changed ) {
+                if ( file.toFile( ).isFile( ) )
+                    changedFiles.add( file.toFile( ) );
+            }
+
+            for ( Path file : removed ) {
+                removedFiles.add( file.toFile( ) );
+            }
+
+            changed.clear( );
+            removed.clear( );
+            pendingReload = null;
+        }
+
+        if ( changedFiles.isEmpty( ) && removedFiles.isEmpty( ) )
+            return;
+
+        try {
+            Set < String > affected = processor.updateCatalog( catalog , changedFiles , removedFiles );
+            log.info( "Profiles reloaded: " + affected );
+
+            if ( !affected.isEmpty( ) ) {
+                for ( Consumer < Set < String > > listener : listeners ) {
+                    listener.accept( affected );
+                }
+            }
+        } catch ( RuntimeException e ) {
+            log.log( Level.SEVERE , "Profile reload failed." , e );
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.UsageHistory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes the usage history of a single device, kept next to its usage files.
+ * <br>
+ * The file starts with a magic number and the format, followed by the newest bucket of every resolution and the
+ * slot count. Every slot is then written as its identifier name followed, for every resolution, by the number of
+ * buckets it used and each of those buckets as its distance from the newest bucket and its count. Unused buckets
+ * are left out, so a history of a few buttons is only a few hundred bytes. The file ends with the CRC32 of
+ * everything before it.
+ * <br>
+ * Slots are matched by identifier name when the file is read, so a history survives the slot order changing.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+final class UsageHistoryFile {
+
+    /**
+     * The suffix added to the device file name to name its history file.
+     */
+    static final String SUFFIX = ".history";
+
+    private static final int MAGIC = 0x504C5548;
+
+    private static final short FORMAT = 1;
+
+    private static final UsageHistory.Resolution[] RESOLUTIONS = UsageHistory.Resolution.values( );
+
+    private UsageHistoryFile( ) {
+    }
+
+    /**
+     * Writes the provided snapshot of a history to the provided path. The file is written next to the target and
+     * moved over it, so a crash leaves either the old history or the new one.
+     *
+     * @param slotNames The identifier name of every slot of the history.
+     * @return Returns the number of bytes written.
+     */
+    static long write( Path path , UsageHistory.Snapshot history , String[] slotNames ) throws IOException {
+        Path temp = path.resolveSibling( path.getFileName( ) + ".tmp" );
+        CRC32 crc = new CRC32( );
+
+        try ( DataOutputStream out = new DataOutputStream( new CheckedOutputStream( new BufferedOutputStream( Files.newOutputStream( temp ) ) , crc ) ) ) {
+            out.writeInt( MAGIC );
+            out.writeShort( FORMAT );
+
+            for ( UsageHistory.Resolution resolution : RESOLUTIONS ) {
+                out.writeLong( history.head( resolution ) );
+            }
+
+            out.writeInt( slotNames.length );
+
+            for ( int slot = 0; slot < slotNames.length; slot++ ) {
+                out.writeUTF( slotNames[ slot ] );
+
+                for ( UsageHistory.Resolution resolution : RESOLUTIONS ) {
+                    long head = history.head( resolution );
+                    int used = 0;
+
+                    for ( int age = 0; age < resolution.capacity; age++ ) {
+                        if ( history.get( resolution , slot , head - age ) != 0 )
+                            used++;
+                    }
+
+                    out.writeShort( used );
+
+                    for ( int age = 0; age < resolution.capacity && used > 0; age++ ) {
+                        int count = history.get( resolution , slot , head - age );
+
+                        if ( count != 0 ) {
+                            out.writeShort( age );
+                            out.writeInt( count );
+                            used--;
+                        }
+                    }
+                }
+            }
+
+            out.flush( );
+            long checksum = crc.getValue( );
+            out.writeLong( checksum );
+        }
+
+        long bytes = Files.size( temp );
+        Files.move( temp , path , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+        return bytes;
+    }
+
+    /**
+     * Adds the history saved at the provided path to the provided history. Slots whose name is not in slotNames are
+     * skipped.
+     *
+     * @return Returns false if there is no file at the path or it is corrupt, in which case nothing was added.
+     */
+    static boolean read( Path path , UsageHistory history , String[] slotNames ) throws IOException {
+        Map < String, Integer > slots = new HashMap <>( );
+
+        for ( int slot = 0; slot < slotNames.length; slot++ ) {
+            slots.putIfAbsent( slotNames[ slot ] , slot );
+        }
+
+        byte[] bytes;
+
+        try {
+            bytes = Files.readAllBytes( path );
+        } catch ( NoSuchFileException e ) {
+            return false;
+        }
+
+        if ( bytes.length < Long.BYTES )
+            return false;
+
+        CRC32 crc = new CRC32( );
+        crc.update( bytes , 0 , bytes.length - Long.BYTES );
+
+        /*
+         * The file is checked as a whole first, so a corrupt file never adds half a history.
+         */
+        if ( ByteBuffer.wrap( bytes , bytes.length - Long.BYTES , Long.BYTES ).getLong( ) != crc.getValue( ) )
+            return false;
+
+        try ( DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes , 0 , bytes.length - Long.BYTES ) ) ) {
+            if ( in.readInt( ) != MAGIC || in.readShort( ) != FORMAT )
+                return false;
+
+            long[] heads = new long[ RESOLUTIONS.length ];
+
+            for ( int r = 0; r < RESOLUTIONS.length; r++ ) {
+                heads[ r ] = in.readLong( );
+            }
+
+            int slotCount = in.readInt( );
+
+            for ( int i = 0; i < slotCount; i++ ) {
+                Integer slot = slots.get( in.readUTF( ) );
+
+                for ( int r = 0; r < RESOLUTIONS.length; r++ ) {
+                    int used = in.readUnsignedShort( );
+
+                    for ( int b = 0; b < used; b++ ) {
+                        int age = in.readUnsignedShort( );
+                        int count = in.readInt( );
+
+                        if ( slot != null )
+                            history.restore( RESOLUTIONS[ r ] , slot , heads[ r ] - age , count );
+                    }
+                }
+            }
+        } catch ( EOFException e ) {
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.frizzydev.JSON;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An append-only binary journal of usage changes for a single device. The journal sits next to the device's
+ * usage json file and holds the usage recorded since that file was last written.
+ * <br>
+ * The file starts with a header holding the CRC32 of the json file the journal applies to. It is followed by
+ * records that are either a slot definition, giving a journal-local slot number to an identifier name, or a
+ * usage delta for a slot. A journal whose header does not match the current json file belongs to a json file
+ * that has since been rewritten with the journal's usage included, so it is ignored. A record torn by a crash
+ * is dropped, along with anything after it.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+final class UsageJournal implements Closeable {
+
+    /**
+     * The suffix added to the device file name to name its journal.
+     */
+    static final String SUFFIX = ".journal";
+
+    private static final int MAGIC = 0x504C554A;
+
+    private static final short FORMAT = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Long.BYTES;
+
+    private static final byte SLOT_RECORD = 1;
+
+    private static final byte DELTA_RECORD = 2;
+
+    private static final int DELTA_RECORD_SIZE = Byte.BYTES + Short.BYTES + Long.BYTES;
+
+    /**
+     * The journal file.
+     */
+    private final Path path;
+
+    /**
+     * The channel appends are written through.
+     */
+    private FileChannel channel;
+
+    /**
+     * Identifier name to journal-local slot, for every slot defined in the journal.
+     */
+    private final Map < String, Integer > slots = new HashMap <>( );
+
+    /**
+     * Buffer records are encoded into before being written. Grown when needed and reused.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate( 4096 );
+
+    /**
+     * True if records have been written since the last sync.
+     */
+    private boolean unsynced = false;
+
+    private UsageJournal( Path path ) {
+        this.path = path;
+    }
+
+    /**
+     * Opens the journal at the provided path for appending. If the journal is missing or belongs to a different
+     * json file, it is started over for the provided one. A torn record at the end is cut off.
+     *
+     * @param path         The journal file.
+     * @param baseChecksum The CRC32 of the json file the journal applies to.
+     */
+    static UsageJournal open( Path path , long baseChecksum ) throws IOException {
+        UsageJournal journal = new UsageJournal( path );
+        Map < String, Long > ignored = new HashMap <>( );
+        long validLength = read( path , baseChecksum , journal.slots , ignored );
+
+        if ( validLength < 0 ) {
+            journal.reset( baseChecksum );
+        } else {
+            journal.channel = FileChannel.open( path , StandardOpenOption.WRITE );
+            journal.channel.truncate( validLength );
+            journal.channel.position( validLength );
+        }
+
+        return journal;
+    }
+
+    /**
+     * Returns the usage deltas recorded in the journal at the provided path, keyed by identifier name. The map is
+     * empty if the journal is missing or belongs to a different json file.
+     *
+     * @param path         The journal file.
+     * @param baseChecksum The CRC32 of the current json file.
+     */
+    static Map < String, Long > replay( Path path , long baseChecksum ) throws IOException {
+        Map < String, Long > deltas = new LinkedHashMap <>( );
+        read( path , baseChecksum , new HashMap <>( ) , deltas );
+        return deltas;
+    }
+
+    /**
+     * Appends the provided usage deltas. The records are written but not synced, see {@link #sync()}. If the append
+     * fails, the journal is cut back to where it was, so the same deltas can be appended again.
+     *
+     * @return Returns the number of bytes appended.
+     */
+    synchronized long append( Map < String, Long > deltas ) throws IOException {
+        buffer.clear( );
+
+        /*
+         * Slots defined by this append are only known to the journal once their records are written, so a failed
+         * append never leaves a slot that later deltas refer to but the file does not define.
+         */
+        Map < String, Integer > defined = new HashMap <>( );
+
+        for ( Map.Entry < String, Long > entry : deltas.entrySet( ) ) {
+            long delta = entry.getValue( );
+
+            if ( delta == 0L )
+                continue;
+
+            Integer slot = slots.get( entry.getKey( ) );
+
+            if ( slot == null )
+                slot = defined.get( entry.getKey( ) );
+
+            if ( slot == null ) {
+                slot = slots.size( ) + defined.size( );
+
+                if ( slot > 0xFFFF )
+                    throw new IOException( "Journal slot limit reached for " + path );
+
+                byte[] name = entry.getKey( ).getBytes( StandardCharsets.UTF_8 );
+
+                if ( name.length > 0xFFFF )
+                    throw new IOException( "Identifier name too long: " + entry.getKey( ) );
+
+                ensureRemaining( Byte.BYTES + Short.BYTES + Short.BYTES + name.length );
+                buffer.put( SLOT_RECORD ).putShort( ( short ) ( int ) slot ).putShort( ( short ) name.length ).put( name );
+                defined.put( entry.getKey( ) , slot );
+            }
+
+            ensureRemaining( DELTA_RECORD_SIZE );
+            buffer.put( DELTA_RECORD ).putShort( ( short ) ( int ) slot ).putLong( delta );
+        }
+
+        buffer.flip( );
+        long written = buffer.remaining( );
+        long start = channel.position( );
+
+        try {
+            while ( buffer.hasRemaining( ) ) {
+                channel.write( buffer );
+            }
+        } catch ( IOException e ) {
+            try {
+                channel.truncate( start );
+                channel.position( start );
+            } catch ( IOException ex ) {
+                e.addSuppressed( ex );
+            }
+
+            throw e;
+        }
+
+        slots.putAll( defined );
+
+        if ( written > 0 )
+            unsynced = true;
+
+        return written;
+    }
+
+    /**
+     * Forces every appended record to disk. Does nothing if nothing was appended since the last sync.
+     */
+    synchronized void sync( ) throws IOException {
+        if ( unsynced ) {
+            channel.force( false );
+            unsynced = false;
+        }
+    }
+
+    /**
+     * Returns the size of the journal in bytes.
+     */
+    synchronized long size( ) throws IOException {
+        return channel.size( );
+    }
+
+    /**
+     * Returns true if the journal holds at least one record past its header.
+     */
+    synchronized boolean hasRecords( ) throws IOException {
+        return channel.size( ) > HEADER_SIZE;
+    }
+
+    /**
+     * Starts the journal over for the provided json file. The empty journal is written next to the old one and
+     * moved over it, so a crash leaves either the old journal or the new one.
+     *
+     * @param baseChecksum The CRC32 of the json file the journal will apply to.
+     */
+    synchronized void reset( long baseChecksum ) throws IOException {
+        if ( channel != null )
+            channel.close( );
+
+        Path temp = path.resolveSibling( path.getFileName( ) + ".tmp" );
+
+        try ( FileChannel out = FileChannel.open( temp , StandardOpenOption.CREATE , StandardOpenOption.WRITE , StandardOpenOption.TRUNCATE_EXISTING ) ) {
+            ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE ).putInt( MAGIC ).putShort( FORMAT ).putLong( baseChecksum ).flip( );
+
+            while ( header.hasRemaining( ) ) {
+                out.write( header );
+            }
+
+            out.force( false );
+        }
+
+        Files.move( temp , path , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+
+        slots.clear( );
+        unsynced = false;
+        channel = FileChannel.open( path , StandardOpenOption.WRITE );
+        channel.position( channel.size( ) );
+    }
+
+    @Override
+    public synchronized void close( ) throws IOException {
+        if ( channel != null ) {
+            sync( );
+            channel.close( );
+            channel = null;
+        }
+    }
+
+    /**
+     * Makes sure the encode buffer has room for the provided number of bytes.
+     */
+    private void ensureRemaining( int bytes ) {
+        if ( buffer.remaining( ) < bytes ) {
+            ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity( ) * 2 , buffer.position( ) + bytes ) );
+            buffer.flip( );
+            grown.put( buffer );
+            buffer = grown;
+        }
+    }
+
+    /**
+     * Reads the journal at the provided path into the provided maps.
+     *
+     * @return Returns the length of the valid part of the journal, or -1 if the journal is missing, unreadable,
+     * or belongs to a different json file.
+     */
+    private static long read( Path path , long baseChecksum , Map < String, Integer > slots , Map < String, Long > deltas ) throws IOException {
+        ByteBuffer in;
+
+        try {
+            in = ByteBuffer.wrap( Files.readAllBytes( path ) );
+        } catch ( NoSuchFileException e ) {
+            return -1L;
+        }
+
+        if ( in.remaining( ) < HEADER_SIZE || in.getInt( ) != MAGIC || in.getShort( ) != FORMAT || in.getLong( ) != baseChecksum )
+            return -1L;
+
+        Map < Integer, String > names = new HashMap <>( );
+        long valid = in.position( );
+
+        try {
+            while ( in.hasRemaining( ) ) {
+                byte type = in.get( );
+                int slot = Short.toUnsignedInt( in.getShort( ) );
+
+                if ( type == SLOT_RECORD ) {
+                    byte[] name = new byte[ Short.toUnsignedInt( in.getShort( ) ) ];
+                    in.get( name );
+
+                    String identifierName = new String( name , StandardCharsets.UTF_8 );
+                    names.put( slot , identifierName );
+                    slots.put( identifierName , slot );
+                } else if ( type == DELTA_RECORD ) {
+                    long delta = in.getLong( );
+                    String identifierName = names.get( slot );
+
+                    if ( identifierName == null )
+                        break;
+
+                    deltas.merge( identifierName , delta , Long::sum );
+                } else {
+                    break;
+                }
+
+                valid = in.position( );
+            }
+        } catch ( BufferUnderflowException e ) {
+            //A record torn by a crash, everything before it is still valid.
+        }
+
+        return valid;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.frizzydev.JSON;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streams usage maps to and from the json usage files without reflection. A usage map is a flat json object
+ * of identifier names to counts. Null counts are skipped.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class UsageMapAdapter extends TypeAdapter< Map< String, Long > > {
+
+    @Override
+    public void write( JsonWriter out , Map< String, Long > usage ) throws IOException {
+        if ( usage == null ) {
+            out.nullValue( );
+            return;
+        }
+
+        out.beginObject( );
+
+        for ( Map.Entry< String, Long > entry : usage.entrySet( ) ) {
+            if ( entry.getValue( ) != null )
+                out.name( entry.getKey( ) ).value( entry.getValue( ).longValue( ) );
+        }
+
+        out.endObject( );
+    }
+
+    @Override
+    public Map< String, Long > read( JsonReader in ) throws IOException {
+        if ( in.peek( ) == JsonToken.NULL ) {
+            in.nextNull( );
+            return null;
+        }
+
+        Map< String, Long > usage = new LinkedHashMap<>( );
+        in.beginObject( );
+
+        while ( in.hasNext( ) ) {
+            String name = in.nextName( );
+
+            if ( in.peek( ) == JsonToken.NULL ) {
+                in.nextNull( );
+            } else {
+                usage.put( name , in.nextLong( ) );
+            }
+        }
+
+        in.endObject( );
+
+        return usage;
+    }
+}
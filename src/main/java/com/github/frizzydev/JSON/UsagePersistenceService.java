@@ -0,0 +1,369 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.LController;
+import com.github.frizzydev.controller.UsageCounters;
+import com.github.frizzydev.controller.UsageHistory;
+import com.github.frizzydev.controller.UsageSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes usage data behind the pollers on a background thread. Every tracked LController remembers the usage
+ * it last wrote. Once per flush interval, only the controllers whose usage changed since then are written, so
+ * a burst of presses becomes a single write. Usage is read through {@link LController#snapshotUsage()}, so a
+ * flush never stalls a poll cycle, and a crash loses at most one flush interval of usage.
+ * <br>
+ * A flush appends only the change in usage to each device's journal and syncs every journal it touched once.
+ * Journals that have grown past the compaction threshold are then compacted back into the json files.
+ * Controllers whose counters are persisted by a storage engine, such as a {@link MappedUsageStore}, are only
+ * forced to storage, and exported to their json files when they are untracked or the service shuts down.
+ * <br>
+ * The usage history of a controller is written to its history file on the same flush as its usage.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public class UsagePersistenceService {
+
+    final static Logger log = Logger.getLogger( UsagePersistenceService.class.getName( ) );
+
+    /**
+     * The default time between flushes, in milliseconds.
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 5000L;
+
+    /**
+     * The default journal size, in bytes, past which a journal is compacted into its json file.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024L;
+
+    /**
+     * The processor that writes the usage files.
+     */
+    private final UsageProcessor processor;
+
+    /**
+     * The time between flushes, in milliseconds.
+     */
+    private final long flushInterval;
+
+    /**
+     * The journal size, in bytes, past which a journal is compacted into its json file.
+     */
+    private final long compactionThreshold;
+
+    /**
+     * The single background thread flushes run on.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The usage last written for every tracked controller.
+     */
+    private final Map < LController, UsageSnapshot > flushed;
+
+    /**
+     * The usage history version last written for every tracked controller.
+     */
+    private final Map < LController, Long > historyVersions;
+
+    /**
+     * How long the last flush took, in nanoseconds.
+     */
+    private volatile long lastFlushLatency;
+
+    /**
+     * How many bytes the last flush wrote.
+     */
+    private volatile long lastFlushBytes;
+
+    /**
+     * How many bytes have been written since the service was created.
+     */
+    private final AtomicLong totalBytesWritten = new AtomicLong( );
+
+    /**
+     * How many flushes wrote at least one device.
+     */
+    private final AtomicLong flushCount = new AtomicLong( );
+
+    /**
+     * @param processor     The processor that writes the usage files.
+     * @param flushInterval The time between flushes, in milliseconds. This is the most usage a crash can lose.
+     */
+    public UsagePersistenceService( UsageProcessor processor , long flushInterval ) {
+        this( processor , flushInterval , DEFAULT_COMPACTION_THRESHOLD );
+    }
+
+    /**
+     * @param processor           The processor that writes the usage files.
+     * @param flushInterval       The time between flushes, in milliseconds. This is the most usage a crash can lose.
+     * @param compactionThreshold The journal size, in bytes, past which a journal is compacted into its json file.
+     */
+    public UsagePersistenceService( UsageProcessor processor , long flushInterval , long compactionThreshold ) {
+        if ( flushInterval <= 0 )
+            throw new IllegalArgumentException( "The flush interval must be positive." );
+
+        this.processor = processor;
+        this.flushInterval = flushInterval;
+        this.compactionThreshold = compactionThreshold;
+        this.flushed = new ConcurrentHashMap <>( );
+        this.historyVersions = new ConcurrentHashMap <>( );
+
+        ScheduledThreadPoolExecutor stpe = new ScheduledThreadPoolExecutor( 1 , r -> Thread.ofPlatform( )
+                .name( "Usage-Persistence" )
+                .daemon( true )
+                .unstarted( r ) );
+        stpe.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+        this.executor = stpe;
+    }
+
+    /**
+     * Starts flushing every flush interval.
+     */
+    public void start( ) {
+        executor.scheduleWithFixedDelay( this::flush , flushInterval , flushInterval , TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Starts tracking the provided controller. Its current usage is considered already written.
+     */
+    public void track( LController lController ) {
+        flushed.putIfAbsent( lController , lController.snapshotUsage( ) );
+        historyVersions.putIfAbsent( lController , lController.getUsageHistory( ).getVersion( ) );
+    }
+
+    /**
+     * Stops tracking the provided controller. Any usage it has not written yet is written on the flush thread first,
+     * and its journal is compacted into its json file.
+     */
+    public void untrack( LController lController ) {
+        executor.execute( ( ) -> {
+            long bytes = Math.max( flushController( lController ) , 0L ) + flushHistory( lController );
+            processor.syncJournals( );
+
+            if ( needsExport( lController ) )
+                bytes += compactController( lController );
+
+            processor.closeJournalFor( lController.getUsageName( ) );
+            processor.closeUsageStoreFor( lController.getUsageName( ) );
+            flushed.remove( lController );
+            historyVersions.remove( lController );
+            totalBytesWritten.addAndGet( bytes );
+        } );
+    }
+
+    /**
+     * Writes every changed controller now and waits for the write to finish.
+     */
+    public void flushNow( ) {
+        try {
+            executor.submit( this::flush ).get( flushInterval , TimeUnit.MILLISECONDS );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread( ).interrupt( );
+        } catch ( ExecutionException | TimeoutException e ) {
+            log.log( Level.SEVERE , "Usage flush failed." , e );
+        }
+    }
+
+    /**
+     * Writes every changed controller, compacts every journal into its json file and stops the flush thread.
+     */
+    public void shutdown( ) {
+        if ( executor.isShutdown( ) )
+            return;
+
+        try {
+            executor.submit( ( ) -> {
+                flush( );
+
+                for ( LController lController : flushed.keySet( ) ) {
+                    totalBytesWritten.addAndGet( flushHistory( lController ) );
+
+                    if ( needsExport( lController ) )
+                        totalBytesWritten.addAndGet( compactController( lController ) );
+
+                    processor.closeJournalFor( lController.getUsageName( ) );
+                    processor.closeUsageStoreFor( lController.getUsageName( ) );
+                }
+            } ).get( flushInterval , TimeUnit.MILLISECONDS );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread( ).interrupt( );
+        } catch ( ExecutionException | TimeoutException e ) {
+            log.log( Level.SEVERE , "Usage flush failed." , e );
+        }
+
+        executor.shutdown( );
+    }
+
+    /**
+     * Returns how long the last flush took, in nanoseconds.
+     */
+    public long getLastFlushLatency( ) {
+        return lastFlushLatency;
+    }
+
+    /**
+     * Returns how many bytes the last flush wrote.
+     */
+    public long getLastFlushBytes( ) {
+        return lastFlushBytes;
+    }
+
+    /**
+     * Returns how many bytes have been written since the service was created.
+     */
+    public long getTotalBytesWritten( ) {
+        return totalBytesWritten.get( );
+    }
+
+    /**
+     * Returns how many flushes wrote at least one device.
+     */
+    public long getFlushCount( ) {
+        return flushCount.get( );
+    }
+
+    /**
+     * Writes every controller whose usage changed since it was last written. Only runs on the flush thread.
+     */
+    private void flush( ) {
+        final long start = System.nanoTime( );
+        long bytes = 0L;
+        boolean wrote = false;
+
+        for ( LController lController : flushed.keySet( ) ) {
+            long written = flushController( lController );
+
+            if ( written >= 0L ) {
+                bytes += written;
+                bytes += flushHistory( lController );
+                wrote = true;
+            }
+        }
+
+        if ( wrote ) {
+            processor.syncJournals( );
+
+            for ( LController lController : flushed.keySet( ) ) {
+                if ( processor.journalSizeFor( lController.getUsageName( ) ) > compactionThreshold ) {
+                    bytes += compactController( lController );
+                }
+            }
+
+            lastFlushLatency = System.nanoTime( ) - start;
+            lastFlushBytes = bytes;
+            totalBytesWritten.addAndGet( bytes );
+            flushCount.incrementAndGet( );
+        }
+    }
+
+    /**
+     * Appends the change in usage of the provided controller since it was last written to its journal.
+     *
+     * @return Returns the number of bytes written, or -1 if the controller had not changed or could not be written.
+     */
+    private long flushController( LController lController ) {
+        UsageSnapshot previous = flushed.get( lController );
+
+        if ( previous == null || previous.getVersion( ) == lController.getUsageVersion( ) )
+            return -1L;
+
+        try {
+            UsageSnapshot snapshot = lController.snapshotUsage( );
+            UsageCounters counters = lController.getUsageCounters( );
+
+            if ( counters.isPersistent( ) ) {
+                counters.force( );
+                flushed.replace( lController , snapshot );
+                return 0L;
+            }
+
+            Map < String, Long > deltas = new LinkedHashMap <>( );
+
+            for ( Map.Entry < String, Long > entry : snapshot.getCounts( ).entrySet( ) ) {
+                long delta = entry.getValue( ) - previous.get( entry.getKey( ) );
+
+                if ( delta != 0L )
+                    deltas.put( entry.getKey( ) , delta );
+            }
+
+            for ( Map.Entry < String, Long > entry : previous.getCounts( ).entrySet( ) ) {
+                if ( !snapshot.getCounts( ).containsKey( entry.getKey( ) ) )
+                    deltas.put( entry.getKey( ) , -entry.getValue( ) );
+            }
+
+            long written = processor.appendUsageFor( lController.getUsageName( ) , deltas );
+
+            /*
+             * The last written snapshot is only moved on once the deltas are in the journal, so usage that failed to
+             * append is appended again by the next flush instead of being lost.
+             */
+            if ( written < 0L )
+                return -1L;
+
+            flushed.replace( lController , snapshot );
+            return written;
+        } catch ( RuntimeException e ) {
+            log.log( Level.SEVERE , "Could not persist usage for: " + lController.getUsageName( ) , e );
+            return -1L;
+        }
+    }
+
+    /**
+     * Writes the usage history of the provided controller if it changed since it was last written. The history
+     * changes together with the usage, so it is only checked for controllers whose usage was just written.
+     *
+     * @return Returns the number of bytes written.
+     */
+    private long flushHistory( LController lController ) {
+        Long previous = historyVersions.get( lController );
+
+        if ( previous == null || previous == lController.getUsageHistory( ).getVersion( ) )
+            return 0L;
+
+        /*
+         * The snapshot is copied without blocking the poller, and its version is the one that was written.
+         */
+        UsageHistory.Snapshot snapshot = lController.getUsageHistory( ).snapshot( );
+        long written = processor.writeHistoryFor( lController.getUsageName( ) , snapshot , lController.getUsageSlotNames( ) );
+
+        if ( written > 0L )
+            historyVersions.replace( lController , snapshot.getVersion( ) );
+
+        return written;
+    }
+
+    /**
+     * Returns true if the json file of the provided controller is behind its usage, either because its journal
+     * holds usage or because its counters are persisted elsewhere.
+     */
+    private boolean needsExport( LController lController ) {
+        return lController.getUsageCounters( ).isPersistent( ) || processor.journalHasRecordsFor( lController.getUsageName( ) );
+    }
+
+    /**
+     * Compacts the journal of the provided controller into its json file, using the usage it last wrote.
+     *
+     * @return Returns the number of bytes written.
+     */
+    private long compactController( LController lController ) {
+        UsageSnapshot snapshot = flushed.get( lController );
+
+        if ( snapshot == null )
+            return 0L;
+
+        return processor.serializeUsageFor( lController.getUsageName( ) , snapshot.getCounts( ) );
+    }
+}
@@ -1,22 +1,41 @@
 package com.github.frizzydev.JSON;
 
+import com.github.frizzydev.controller.UsageHistory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.InvalidParameterException;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 /**
  * UsageProcessor handles the serialization/deserialization of the usage data of
  * devices/controllers.
+ * <br>
+ * Usage is saved in two parts. The json file of a device holds a full snapshot of its usage, and an append-only
+ * binary {@link UsageJournal} next to it holds the usage recorded since that snapshot. Saving usage appends to the
+ * journal, which is cheap enough to do every few seconds. The journal is compacted back into the json file
+ * once it grows large, and whenever the full usage is serialized.
  *
  * @author Frizzy
  * @version 0.1
@@ -26,10 +45,35 @@ public class UsageProcessor {
 
     final static Logger log = Logger.getLogger( UsageProcessor.class.getName( ) );
 
+    /**
+     * The type of the usage maps.
+     */
+    private static final Type USAGE_TYPE = new TypeToken< Map< String, Long > >( ) { }.getType( );
+
+    /**
+     * File names Windows reserves for devices, with or without an extension.
+     */
+    private static final Pattern RESERVED_NAMES = Pattern.compile( "(?i)(CON|PRN|AUX|NUL|COM[0-9]|LPT[0-9])(\\..*)?" );
+
+    /**
+     * Streams the usage maps without reflection. Shared by every UsageProcessor.
+     */
+    private static final TypeAdapter< Map< String, Long > > USAGE_ADAPTER = new UsageMapAdapter( );
+
+    /**
+     * Gson configured for pretty printed usage files, with the usage adapter registered once.
+     */
+    private static final Gson PRETTY_GSON = new GsonBuilder( ).registerTypeAdapter( USAGE_TYPE , USAGE_ADAPTER ).setPrettyPrinting( ).create( );
+
+    /**
+     * Gson configured for compact usage files, with the usage adapter registered once.
+     */
+    private static final Gson COMPACT_GSON = new GsonBuilder( ).registerTypeAdapter( USAGE_TYPE , USAGE_ADAPTER ).create( );
+
     /**
      * Gson object to serialize/deserialize the json data.
      */
-    private Gson gson;
+    private final Gson gson;
 
     /**
      * The location where usage data is saved to.
@@ -37,63 +81,371 @@ public class UsageProcessor {
     private File jsonFolder;
 
     /**
-     *
+     * The journals opened for appending, keyed by device name.
+     */
+    private final Map< String, UsageJournal > journals = new ConcurrentHashMap<>( );
+
+    /**
+     * The memory-mapped counter files that are open, keyed by device name.
+     */
+    private final Map< String, MappedUsageStore > stores = new ConcurrentHashMap<>( );
+
+    /**
+     * Creates a UsageProcessor that writes pretty printed usage files.
      */
     public UsageProcessor( File jsonFolder ) {
+        this( jsonFolder , false );
+    }
+
+    /**
+     * @param jsonFolder The location where usage data is saved to.
+     * @param compact    True to write usage files without indentation or line breaks.
+     */
+    public UsageProcessor( File jsonFolder , boolean compact ) {
         if ( jsonFolder == null )
             throw new InvalidParameterException( "The provided jsonFolder is null." );
 
         this.jsonFolder = jsonFolder;
 
-        gson = new GsonBuilder( ).setPrettyPrinting().serializeNulls().create( );
+        gson = compact ? COMPACT_GSON : PRETTY_GSON;
     }
 
     /**
-     * Loads the usage data for the specified device name. The returned map can be null if the
+     * Loads the usage data for the specified device name. The json snapshot is read first and any usage recorded
+     * in the device's journal since then is added on top. The returned map can be null if the
      * device name does not have usage data.
      */
-    public @Nullable Map< String, Integer > deserializeUsageFor( String deviceName ) {
-        Map< String, Integer > usage = null;
+    public @Nullable Map< String, Long > deserializeUsageFor( String deviceName ) {
+        Map< String, Long > usage = null;
+        long checksum = 0L;
 
         try {
-            for ( File jsonFile : Objects.requireNonNull( jsonFolder.listFiles( ) ) ) {
-                if ( jsonFile.getName( ).equals( deviceName ) ) {
-
-                    try ( JsonReader reader = gson.newJsonReader( new BufferedReader( new FileReader( jsonFile ) ) ) ) {
-                        usage = gson.fromJson( reader , new TypeToken< Map< String, Integer > >( ) {
-                        }.getType( ) );
-                    } catch ( IOException e ) {
-                        log.log( Level.SEVERE , "Could not load usage data." , e );
-                    }
+            byte[] json = Files.readAllBytes( usagePath( deviceName ) );
+            checksum = checksum( json );
+
+            try ( JsonReader reader = gson.newJsonReader( new InputStreamReader( new ByteArrayInputStream( json ) , StandardCharsets.UTF_8 ) ) ) {
+                usage = USAGE_ADAPTER.read( reader );
+            }
+        } catch ( NoSuchFileException e ) {
+            //The device has no usage data yet.
+        } catch ( IOException | IllegalStateException | NumberFormatException e ) {
+            log.log( Level.SEVERE , "Could not load usage data." , e );
+        }
+
+        try {
+            Map< String, Long > deltas = UsageJournal.replay( journalPath( deviceName ) , checksum );
+
+            if ( !deltas.isEmpty( ) ) {
+                usage = usage != null ? new LinkedHashMap<>( usage ) : new LinkedHashMap<>( );
+
+                for ( Map.Entry< String, Long > delta : deltas.entrySet( ) ) {
+                    usage.merge( delta.getKey( ) , delta.getValue( ) , Long::sum );
                 }
             }
-        } catch ( NullPointerException e ) {
-            log.log( Level.SEVERE , "Json files array was null." , e );
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE , "Could not replay usage journal." , e );
         }
 
         return usage;
     }
 
     /**
-     * Exports the usage data to the json file of the specified device.
+     * Exports the usage data to the json file of the specified device and starts its journal over. The file is
+     * written next to the old one and moved over it, so a crash leaves either the old usage or the new usage.
+     * If the device does not have a json file yet, it is created.
      *
      * @param deviceName The name of the device, this is used to locate the correct file.
      * @param usageMap   The usage data for the device. This information will be exported to the json file.
+     * @return Returns the number of bytes written, or zero if nothing was written.
      */
-    public void serializeUsageFor( String deviceName , Map< String, Integer > usageMap ) {
+    public long serializeUsageFor( String deviceName , Map< String, Long > usageMap ) {
+        byte[] json;
 
         try {
-            for ( File jsonFile : Objects.requireNonNull( jsonFolder.listFiles( ) ) ) {
-                if ( jsonFile.getName().equals( deviceName ) ) {
-                    try ( JsonWriter writer = gson.newJsonWriter( new FileWriter( jsonFile ) ) ) {
-                        gson.toJson( usageMap, new TypeToken< Map< String, Integer > >( ) { }.getType(), writer );
-                    } catch ( IOException e ) {
-                        log.log( Level.SEVERE, "Serialization failed." , e );
-                    }
-                }
+            StringWriter out = new StringWriter( );
+
+            try ( JsonWriter writer = gson.newJsonWriter( out ) ) {
+                USAGE_ADAPTER.write( writer , usageMap );
+            }
+
+            json = out.toString( ).getBytes( StandardCharsets.UTF_8 );
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE, "Serialization failed." , e );
+            return 0L;
+        }
+
+        try {
+            Files.createDirectories( jsonFolder.toPath( ) );
+
+            Path target = usagePath( deviceName );
+            Path temp = target.resolveSibling( target.getFileName( ) + ".tmp" );
+
+            try ( FileChannel out = FileChannel.open( temp , StandardOpenOption.CREATE , StandardOpenOption.WRITE , StandardOpenOption.TRUNCATE_EXISTING ) ) {
+                out.write( ByteBuffer.wrap( json ) );
+                out.force( false );
+            }
+
+            Files.move( temp , target , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+
+            /*
+             * The journal is only started over once the new json file is in place. If we crash in between,
+             * the journal's header no longer matches the json file and it is ignored, as it should be.
+             */
+            UsageJournal journal = journals.get( deviceName );
+
+            if ( journal != null ) {
+                journal.reset( checksum( json ) );
+            } else if ( Files.exists( journalPath( deviceName ) ) ) {
+                Files.delete( journalPath( deviceName ) );
             }
-        } catch ( NullPointerException e ) {
-            log.log( Level.SEVERE, "Json files array was null." , e );
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE, "Serialization failed." , e );
+            return 0L;
+        }
+
+        return json.length;
+    }
+
+    /**
+     * Appends usage changes to the journal of the specified device. The records are not forced to disk
+     * until {@link #syncJournals()} is called, so a batch of devices can share one sync.
+     *
+     * @param deviceName The name of the device.
+     * @param deltas     The change in usage since the last save, keyed by identifier name.
+     * @return Returns the number of bytes appended, or -1 if the journal could not be written.
+     */
+    public long appendUsageFor( String deviceName , Map< String, Long > deltas ) {
+        try {
+            return journalFor( deviceName ).append( deltas );
+        } catch ( IOException | UncheckedIOException e ) {
+            log.log( Level.SEVERE , "Could not append to usage journal." , e );
+            return -1L;
         }
     }
+
+    /**
+     * Forces every journal appended to since the last sync to disk.
+     */
+    public void syncJournals( ) {
+        for ( Map.Entry< String, UsageJournal > entry : journals.entrySet( ) ) {
+            try {
+                entry.getValue( ).sync( );
+            } catch ( IOException e ) {
+                log.log( Level.SEVERE , "Could not sync usage journal for: " + entry.getKey( ) , e );
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the open journal of the specified device in bytes, or zero if it is not open.
+     */
+    public long journalSizeFor( String deviceName ) {
+        UsageJournal journal = journals.get( deviceName );
+
+        try {
+            return journal != null ? journal.size( ) : 0L;
+        } catch ( IOException e ) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Returns true if the open journal of the specified device holds usage that is not in its json file yet. A journal
+     * that is not open, or could not be read, holds none.
+     */
+    public boolean journalHasRecordsFor( String deviceName ) {
+        UsageJournal journal = journals.get( deviceName );
+
+        try {
+            return journal != null && journal.hasRecords( );
+        } catch ( IOException e ) {
+            return false;
+        }
+    }
+
+    /**
+     * Syncs and closes the journal of the specified device, if it is open.
+     */
+    public void closeJournalFor( String deviceName ) {
+        UsageJournal journal = journals.remove( deviceName );
+
+        if ( journal != null ) {
+            try {
+                journal.close( );
+            } catch ( IOException e ) {
+                log.log( Level.SEVERE , "Could not close usage journal for: " + deviceName , e );
+            }
+        }
+    }
+
+    /**
+     * Opens the memory-mapped counter file of the specified device, an alternative to the json file and journal
+     * where usage is counted directly in the file. If the device does not have a counter file yet, one is created
+     * from its json usage, so the json files keep working as an import format.
+     *
+     * @param deviceName The name of the device.
+     * @param slotNames  The identifier name of every usage slot of the device's LController, in slot order.
+     * @return Returns the store, or null if it could not be opened.
+     */
+    public @Nullable MappedUsageStore openUsageStoreFor( String deviceName , String[] slotNames ) {
+        MappedUsageStore open = stores.get( deviceName );
+
+        if ( open != null )
+            return open;
+
+        Path path = storePath( deviceName );
+        Map< String, Long > seed = Files.exists( path ) ? null : deserializeUsageFor( deviceName );
+
+        try {
+            MappedUsageStore store = MappedUsageStore.open( path , slotNames , seed );
+            stores.put( deviceName , store );
+
+            return store;
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE , "Could not open usage counter file." , e );
+            return null;
+        }
+    }
+
+    /**
+     * Forces and closes the memory-mapped counter file of the specified device, if it is open.
+     */
+    public void closeUsageStoreFor( String deviceName ) {
+        MappedUsageStore store = stores.remove( deviceName );
+
+        if ( store != null ) {
+            try {
+                store.close( );
+            } catch ( IOException e ) {
+                log.log( Level.SEVERE , "Could not close usage counter file for: " + deviceName , e );
+            }
+        }
+    }
+
+    /**
+     * Loads the saved usage history of the specified device into the provided history.
+     *
+     * @param deviceName The name of the device.
+     * @param slotNames  The identifier name of every usage slot of the history, in slot order.
+     * @return Returns false if the device has no saved history or it could not be read.
+     */
+    public boolean readHistoryFor( String deviceName , UsageHistory history , String[] slotNames ) {
+        try {
+            return UsageHistoryFile.read( historyPath( deviceName ) , history , slotNames );
+        } catch ( IOException | UncheckedIOException e ) {
+            log.log( Level.SEVERE , "Could not load usage history." , e );
+            return false;
+        }
+    }
+
+    /**
+     * Saves a snapshot of the usage history of the specified device, replacing its saved history.
+     *
+     * @param deviceName The name of the device.
+     * @param slotNames  The identifier name of every usage slot of the history, in slot order.
+     * @return Returns the number of bytes written, or zero if nothing was written.
+     */
+    public long writeHistoryFor( String deviceName , UsageHistory.Snapshot history , String[] slotNames ) {
+        try {
+            Files.createDirectories( jsonFolder.toPath( ) );
+            return UsageHistoryFile.write( historyPath( deviceName ) , history , slotNames );
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE , "Could not save usage history for: " + deviceName , e );
+            return 0L;
+        }
+    }
+
+    /**
+     * Returns the journal of the specified device, opening it if needed.
+     */
+    private UsageJournal journalFor( String deviceName ) {
+        return journals.computeIfAbsent( deviceName , name -> {
+            try {
+                Files.createDirectories( jsonFolder.toPath( ) );
+
+                Path jsonFile = usagePath( name );
+                long checksum = Files.exists( jsonFile ) ? checksum( Files.readAllBytes( jsonFile ) ) : 0L;
+
+                return UsageJournal.open( journalPath( name ) , checksum );
+            } catch ( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        } );
+    }
+
+    /**
+     * Returns the path of the json file of the specified device. See {@link #fileNameFor(String)}.
+     */
+    private Path usagePath( String deviceName ) {
+        return new File( jsonFolder , fileNameFor( deviceName ) ).toPath( );
+    }
+
+    /**
+     * Returns the path of the journal of the specified device.
+     */
+    private Path journalPath( String deviceName ) {
+        return new File( jsonFolder , fileNameFor( deviceName ) + UsageJournal.SUFFIX ).toPath( );
+    }
+
+    /**
+     * Returns the path of the usage history file of the specified device.
+     */
+    private Path historyPath( String deviceName ) {
+        return new File( jsonFolder , fileNameFor( deviceName ) + UsageHistoryFile.SUFFIX ).toPath( );
+    }
+
+    /**
+     * Returns the path of the memory-mapped counter file of the specified device.
+     */
+    private Path storePath( String deviceName ) {
+        return new File( jsonFolder , fileNameFor( deviceName ) + MappedUsageStore.SUFFIX ).toPath( );
+    }
+
+    /**
+     * Returns the file name the usage files of the specified device are based on. Device files are resolved
+     * directly from this name instead of by listing the json folder.
+     * <br>
+     * A device name that is already a safe file name is used as is, which is how the usage files have always
+     * been named. Otherwise, every character that is not allowed in a file name is replaced and the CRC32 of
+     * the real device name is appended, so two devices never end up sharing a file.
+     */
+    static String fileNameFor( String deviceName ) {
+        StringBuilder name = new StringBuilder( deviceName.length( ) );
+
+        for ( int i = 0; i < deviceName.length( ); i++ ) {
+            char c = deviceName.charAt( i );
+            name.append( c < 0x20 || "<>:\"/\\|?*".indexOf( c ) >= 0 ? '_' : c );
+        }
+
+        //Windows does not allow names ending in a dot or a space.
+        int end = name.length( );
+
+        while ( end > 0 && ( name.charAt( end - 1 ) == '.' || name.charAt( end - 1 ) == ' ' ) ) {
+            end--;
+        }
+
+        name.setLength( end );
+
+        if ( name.isEmpty( ) || RESERVED_NAMES.matcher( name ).matches( ) )
+            name.insert( 0 , '_' );
+
+        String sanitized = name.toString( );
+
+        if ( sanitized.equals( deviceName ) )
+            return sanitized;
+
+        CRC32 crc = new CRC32( );
+        crc.update( deviceName.getBytes( StandardCharsets.UTF_8 ) );
+
+        return sanitized + "-" + String.format( "%08x" , crc.getValue( ) );
+    }
+
+    /**
+     * Returns the CRC32 of the provided json file contents.
+     */
+    private static long checksum( byte[] json ) {
+        CRC32 crc = new CRC32( );
+        crc.update( json );
+        return crc.getValue( );
+    }
 }
@@ -1,4 +1,94 @@
 package com.github.frizzydev.UI;
 
+import com.github.frizzydev.controller.LController;
+import com.github.frizzydev.controller.UsageHistory;
+import de.milchreis.uibooster.UiBooster;
+import de.milchreis.uibooster.model.FormBuilder;
+import de.milchreis.uibooster.model.ListElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shows the recent usage of the connected devices, read from a snapshot of their usage history so the view never
+ * holds up polling.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
 public class UsageUI {
+
+    /**
+     * The number of components listed per device.
+     */
+    private static final int TOP_COMPONENTS = 10;
+
+    public UsageUI ( ) {
+
+    }
+
+    /**
+     * Shows the usage of every provided controller over the last hour, day, week and month, followed by the
+     * components each controller used the most in the last week.
+     */
+    public void showUsage ( List < LController > controllers ) {
+        long now = System.currentTimeMillis( );
+
+        FormBuilder form = new UiBooster( ).createForm( "Usage" );
+        form.addList( "Devices" , getDevices( controllers , now ) );
+
+        for ( LController controller : controllers ) {
+            form.addList( controller.getUsageName( ) , getTopComponents( controller , now ) );
+        }
+
+        form.show( );
+    }
+
+    private ListElement[] getDevices ( List < LController > controllers , long now ) {
+        ListElement[] elements = new ListElement[ controllers.size( ) ];
+
+        for ( int i = 0; i < controllers.size( ); i++ ) {
+            LController controller = controllers.get( i );
+            UsageHistory.Snapshot history = controller.getUsageHistory( ).snapshot( );
+
+            elements[ i ] = new ListElement( controller.getUsageName( ) , describe( history.total( Duration.ofHours( 1 ) , now ) ,
+                    history.total( Duration.ofDays( 1 ) , now ) , history.total( Duration.ofDays( 7 ) , now ) , history.total( Duration.ofDays( 30 ) , now ) ) );
+        }
+
+        return elements;
+    }
+
+    private ListElement[] getTopComponents ( LController controller , long now ) {
+        UsageHistory.Snapshot history = controller.getUsageHistory( ).snapshot( );
+        String[] names = controller.getUsageSlotNames( );
+        List < Integer > used = new ArrayList <>( );
+        long[] week = new long[ names.length ];
+
+        for ( int slot = 0; slot < names.length; slot++ ) {
+            week[ slot ] = history.count( slot , Duration.ofDays( 7 ) , now );
+
+            if ( week[ slot ] > 0 )
+                used.add( slot );
+        }
+
+        used.sort( Comparator.comparingLong( ( Integer slot ) -> week[ slot ] ).reversed( ) );
+
+        ListElement[] elements = new ListElement[ Math.min( used.size( ) , TOP_COMPONENTS ) ];
+
+        for ( int i = 0; i < elements.length; i++ ) {
+            int slot = used.get( i );
+
+            elements[ i ] = new ListElement( names[ slot ] , describe( history.count( slot , Duration.ofHours( 1 ) , now ) ,
+                    history.count( slot , Duration.ofDays( 1 ) , now ) , week[ slot ] , history.count( slot , Duration.ofDays( 30 ) , now ) ) );
+        }
+
+        return elements;
+    }
+
+    private String describe ( long hour , long day , long week , long month ) {
+        return "Last hour: " + hour + "   Last day: " + day + "   Last 7 days: " + week + "   Last 30 days: " + month;
+    }
 }
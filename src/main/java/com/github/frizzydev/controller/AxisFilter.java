@@ -0,0 +1,172 @@
+package com.github.frizzydev.controller;
+
+import java.util.Arrays;
+
+/**
+ * Filters the events of a controller's axes before they are counted, so jittering high resolution axes such as
+ * steering wheels, pedals and handbrakes can be tracked without an event storm.
+ * <br>
+ * Every axis value first goes through a deadband around the center, which snaps small values to zero. The value
+ * is then dropped if it moved less than the minimum delta from the last accepted value, or if it arrived sooner than
+ * the rate limit allows, unless it completes a cycle. Accepted values add their distance from the last
+ * accepted value to the travel of the axis.
+ * <br>
+ * A full-travel cycle is counted when an axis reaches its positive extreme. The axis then has to fall back below the
+ * extreme by the hysteresis before another cycle can be counted, so an axis resting at its extreme and jittering is
+ * counted once. An axis is not armed until it has been seen below that level, so a pedal already pressed when
+ * polling starts is not counted.
+ * <br>
+ * The state of every axis is kept in primitive arrays indexed by component index, so filtering never allocates. Only
+ * the poller of the controller calls {@link #accept(int, float, long)}.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class AxisFilter {
+
+    /**
+     * The tuning of an axis filter.
+     *
+     * @param deadband         Values closer to zero than this are treated as zero.
+     * @param hysteresis       How far an axis has to fall back below the extreme before another cycle can be counted.
+     * @param minDelta         The smallest change from the last accepted value that is accepted.
+     * @param minIntervalNanos The shortest time between two accepted values of the same axis, in nanoseconds.
+     * @param extreme          The value an axis has to reach to count a full-travel cycle.
+     */
+    public record Settings( float deadband , float hysteresis , float minDelta , long minIntervalNanos , float extreme ) {
+
+        /**
+         * Settings that suit most wheels, pedals, handbrakes and sticks.
+         */
+        public static final Settings DEFAULT = new Settings( 0.02f , 0.10f , 0.01f , 5_000_000L , 0.98f );
+
+        public Settings {
+            if ( deadband < 0f || hysteresis < 0f || minDelta < 0f || minIntervalNanos < 0L )
+                throw new IllegalArgumentException( "Axis filter settings can not be negative." );
+
+            if ( extreme <= 0f || extreme > 1f )
+                throw new IllegalArgumentException( "The axis extreme must be above 0 and at most 1." );
+        }
+    }
+
+    /**
+     * The tuning, replaced as a whole by setSettings ( ).
+     */
+    private volatile Settings settings;
+
+    /**
+     * The last accepted value of every axis, NaN until one was accepted.
+     */
+    private final float[] accepted;
+
+    /**
+     * The time of the last accepted value of every axis.
+     */
+    private final long[] acceptedNanos;
+
+    /**
+     * True for every axis that can count a cycle on reaching its extreme.
+     */
+    private final boolean[] armed;
+
+    /**
+     * The distance every axis has travelled, in axis units where full travel from -1 to 1 is 2.
+     */
+    private final double[] travel;
+
+    /**
+     * The number of full-travel cycles of every axis.
+     */
+    private final long[] cycles;
+
+    /**
+     * @param components The number of components of the controller.
+     * @param settings   The tuning of the filter.
+     */
+    public AxisFilter( int components , Settings settings ) {
+        this.settings = settings;
+        this.accepted = new float[ components ];
+        this.acceptedNanos = new long[ components ];
+        this.armed = new boolean[ components ];
+        this.travel = new double[ components ];
+        this.cycles = new long[ components ];
+
+        Arrays.fill( accepted , Float.NaN );
+    }
+
+    /**
+     * Returns the tuning of the filter.
+     */
+    public Settings getSettings( ) {
+        return settings;
+    }
+
+    /**
+     * Replaces the tuning of the filter. The state of every axis is kept.
+     */
+    public void setSettings( Settings settings ) {
+        this.settings = settings;
+    }
+
+    /**
+     * Filters a new value of the provided axis.
+     *
+     * @param index The component index of the axis.
+     * @param value The new value of the axis.
+     * @param nanos The time of the value, in nanoseconds.
+     * @return Returns true if the value completed a full-travel cycle and should be counted.
+     */
+    public boolean accept( int index , float value , long nanos ) {
+        final Settings s = settings;
+
+        if ( Math.abs( value ) < s.deadband( ) )
+            value = 0f;
+
+        final float last = accepted[ index ];
+        final boolean counts = value >= s.extreme( ) && armed[ index ];
+
+        /*
+         * Arming is decided on every value, dropped or not, so an axis released faster than the rate limit is still
+         * armed for its next cycle.
+         */
+        if ( value <= s.extreme( ) - s.hysteresis( ) )
+            armed[ index ] = true;
+
+        /*
+         * A value that completes a cycle is never dropped, so a slow press ending just past the extreme still counts.
+         */
+        if ( last == last ) {
+            if ( !counts && ( Math.abs( value - last ) < s.minDelta( ) || nanos - acceptedNanos[ index ] < s.minIntervalNanos( ) ) )
+                return false;
+
+            travel[ index ] += Math.abs( value - last );
+        }
+
+        accepted[ index ] = value;
+        acceptedNanos[ index ] = nanos;
+
+        if ( counts ) {
+            armed[ index ] = false;
+            cycles[ index ]++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the distance the provided axis has travelled since polling started, in axis units where full travel
+     * from -1 to 1 is 2. Read from other threads, the value can lag behind by a poll cycle.
+     */
+    public double getTravel( int index ) {
+        return travel[ index ];
+    }
+
+    /**
+     * Returns the number of full-travel cycles of the provided axis since polling started.
+     */
+    public long getCycles( int index ) {
+        return cycles[ index ];
+    }
+}
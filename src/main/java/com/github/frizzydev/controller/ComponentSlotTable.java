@@ -0,0 +1,131 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Maps every Component of a Controller to a fixed index, built once when the LController is created.
+ * Per-component state can then be kept in primitive arrays indexed by the component index instead of
+ * in maps keyed by objects or strings.
+ * <br>
+ * Usage is tracked by identifier name, so every component is also mapped to a usage slot. Components
+ * that share an identifier name share a usage slot.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+final class ComponentSlotTable {
+
+    /**
+     * The components of the controller, in the order JInput reports them.
+     */
+    private final Component[] components;
+
+    /**
+     * Component to component index. Looked up by identity, the Events JInput hands out reference
+     * the same Component instances the controller reports.
+     */
+    private final Map < Component, Integer > indices;
+
+    /**
+     * The usage slot of each component, indexed by component index.
+     */
+    private final int[] componentSlots;
+
+    /**
+     * The identifier name of each usage slot.
+     */
+    private final String[] slotNames;
+
+    /**
+     * Identifier name to usage slot.
+     */
+    private final Map < String, Integer > slotsByName;
+
+    /**
+     * @param controller The controller whose components will be indexed.
+     */
+    ComponentSlotTable( Controller controller ) {
+        Component[] reported = controller.getComponents( );
+        this.components = reported != null ? reported.clone( ) : new Component[ 0 ];
+        this.indices = new IdentityHashMap <>( components.length );
+        this.componentSlots = new int[ components.length ];
+        this.slotsByName = new HashMap <>( );
+
+        for ( int i = 0; i < components.length; i++ ) {
+            indices.putIfAbsent( components[ i ] , i );
+
+            String name = components[ i ].getIdentifier( ).getName( );
+            Integer slot = slotsByName.get( name );
+
+            if ( slot == null ) {
+                slot = slotsByName.size( );
+                slotsByName.put( name , slot );
+            }
+
+            componentSlots[ i ] = slot;
+        }
+
+        this.slotNames = new String[ slotsByName.size( ) ];
+
+        for ( Map.Entry < String, Integer > entry : slotsByName.entrySet( ) ) {
+            slotNames[ entry.getValue( ) ] = entry.getKey( );
+        }
+    }
+
+    /**
+     * Returns the number of components in the table.
+     */
+    int size( ) {
+        return components.length;
+    }
+
+    /**
+     * Returns the index of the provided component, or -1 if the component does not belong to the controller.
+     */
+    int indexOf( Component component ) {
+        Integer index = indices.get( component );
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the component at the provided index.
+     */
+    Component componentAt( int index ) {
+        return components[ index ];
+    }
+
+    /**
+     * Returns the number of usage slots in the table.
+     */
+    int slotCount( ) {
+        return slotNames.length;
+    }
+
+    /**
+     * Returns the usage slot of the component at the provided component index.
+     */
+    int slotAt( int index ) {
+        return componentSlots[ index ];
+    }
+
+    /**
+     * Returns the usage slot for the provided identifier name, or -1 if no component has that name.
+     */
+    int slotOf( String identifierName ) {
+        Integer slot = slotsByName.get( identifierName );
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Returns the identifier name of the provided usage slot.
+     */
+    String slotName( int slot ) {
+        return slotNames[ slot ];
+    }
+}
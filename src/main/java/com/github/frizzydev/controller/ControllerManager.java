@@ -2,18 +2,31 @@ package com.github.frizzydev.controller;
 
 import com.github.frizzydev.App.ProjectLifecycle;
 import com.github.frizzydev.App.Testing;
+import com.github.frizzydev.JSON.MappedUsageStore;
+import com.github.frizzydev.JSON.ProfileCatalog;
 import com.github.frizzydev.JSON.ProfilesProcessor;
+import com.github.frizzydev.JSON.ProfilesWatcher;
+import com.github.frizzydev.JSON.UsagePersistenceService;
 import com.github.frizzydev.JSON.UsageProcessor;
 import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import com.github.frizzydev.controller.Profiles.ProfileManifest;
+import com.github.frizzydev.controller.Profiles.ProfilesDownloader;
 import net.java.games.input.Controller;
 import net.java.games.input.ControllerEnvironment;
-import net.java.games.input.DirectAndRawInputEnvironmentPlugin;
+import net.java.games.input.Event;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
@@ -43,9 +56,76 @@ public class ControllerManager {
     private File jsonFolder;
 
     /**
-     * A list of LControllers.
+     * The tracked LControllers, keyed by the identity of their device.
      */
-    private final List < LController > lControllers;
+    private final ControllerRegistry registry = new ControllerRegistry( );
+
+    /**
+     * The LControllers still being created for hot-plugged devices, so a device unplugged before its LController is
+     * ready is still removed.
+     */
+    private final Map < Controller, CompletableFuture < LController > > pending = new ConcurrentHashMap <>( );
+
+    /**
+     * Runs the startup stages of loadLControllers ( ) and creates the LControllers of hot-plugged devices, so
+     * loading their profile and usage never blocks the listener thread.
+     */
+    private final ExecutorService creationExecutor = Executors.newThreadPerTaskExecutor( Thread.ofVirtual( ).name( "LController-Create-" , 0 ).factory( ) );
+
+    /**
+     * Reads and writes the usage data json files. Created by loadLControllers ( ).
+     */
+    private UsageProcessor usageProcessor;
+
+    /**
+     * The System.nanoTime ( ) loadLControllers ( ) was called at.
+     */
+    private volatile long startupNanos;
+
+    /**
+     * Nanoseconds from startupNanos until the first device started polling, or -1.
+     */
+    private final AtomicLong firstPolling = new AtomicLong( -1L );
+
+    /**
+     * Nanoseconds from startupNanos until the first event was drained from a tracked device, or -1.
+     */
+    private final AtomicLong firstEvent = new AtomicLong( -1L );
+
+    /**
+     * Writes the usage of the loaded LControllers in the background. Created by loadLControllers ( ).
+     */
+    private UsagePersistenceService usagePersistence;
+
+    /**
+     * Reads the profile files. Created by loadLControllers ( ).
+     */
+    private ProfilesProcessor profilesProcessor;
+
+    /**
+     * The catalog the profiles of the LControllers come from. Created by loadLControllers ( ).
+     */
+    private volatile ProfileCatalog profileCatalog;
+
+    /**
+     * Keeps the profile catalog up to date with the profiles folder. Created by loadLControllers ( ).
+     */
+    private ProfilesWatcher profilesWatcher;
+
+    /**
+     * The rules deciding which devices are not tracked. Replaced as a whole by reloadExclusions ( ).
+     */
+    private volatile ExclusionRules exclusionRules = ExclusionRules.NONE;
+
+    /**
+     * The axis filter settings every LController is created with. Read from the preferences by loadLControllers ( ).
+     */
+    private volatile AxisFilter.Settings axisFilterSettings = AxisFilter.Settings.DEFAULT;
+
+    /**
+     * Enumerates the connected devices once and keeps them for the lifetime of the app.
+     */
+    private final DeviceEnumerator deviceEnumerator;
 
     /**
      *
@@ -62,104 +142,458 @@ public class ControllerManager {
         if ( !jsonPath.equals( "Unavailable" ) )
             jsonFolder = new File( jsonPath );
 
-        lControllers = new LinkedList <>( );
+        deviceEnumerator = new DeviceEnumerator( );
     }
 
     /**
-     * Returns the list of lControllers.
+     * Creates a ControllerManager that tracks the devices of the provided enumerator instead of the connected ones,
+     * with the provided folders instead of the ones from the preferences.
+     *
+     * @param profilesFolder   The folder the profile files are read from.
+     * @param jsonFolder       The folder the usage files are kept in.
+     * @param deviceEnumerator Enumerates the devices to track.
+     */
+    ControllerManager( File profilesFolder , File jsonFolder , DeviceEnumerator deviceEnumerator ) {
+        this.profilesFolder = profilesFolder;
+        this.jsonFolder = jsonFolder;
+        this.deviceEnumerator = deviceEnumerator;
+    }
+
+    /**
+     * Returns an immutable snapshot of the tracked LControllers. Iterating it never blocks and never sees a
+     * controller being added or removed halfway.
      */
     public List < LController > getLControllers( ) {
-        return lControllers;
+        return registry.snapshot( );
+    }
+
+    /**
+     * Returns the registry of the tracked LControllers.
+     */
+    public ControllerRegistry getRegistry( ) {
+        return registry;
+    }
+
+    /**
+     * Returns the service that writes the usage of the loaded LControllers, or null if loadLControllers ( )
+     * has not been called.
+     */
+    public UsagePersistenceService getUsagePersistence( ) {
+        return usagePersistence;
+    }
+
+    /**
+     * Returns the catalog the profiles of the LControllers come from, or null if loadLControllers ( ) has not been called.
+     */
+    public ProfileCatalog getProfileCatalog( ) {
+        return profileCatalog;
+    }
+
+    /**
+     * Brings the profiles folder up to date with the online profile manifest, downloading only the profiles that
+     * changed, and updates the profile catalog in place. See {@link ProfilesDownloader#updateProfiles(String)}.
+     *
+     * @return Returns the profile files that were added, changed and removed, or null if the update failed.
+     */
+    public ProfileManifest.Delta updateProfiles( ) {
+        if ( profilesFolder == null || profileCatalog == null )
+            return null;
+
+        ProfileManifest.Delta delta = new ProfilesDownloader( ).updateProfiles( profilesFolder.getAbsolutePath( ) );
+
+        if ( delta == null || delta.isEmpty( ) )
+            return delta;
+
+        List < File > changed = new ArrayList <>( );
+        List < File > removed = new ArrayList <>( );
+
+        for ( String name : delta.added( ) )
+            changed.add( new File( profilesFolder , name ) );
+
+        for ( String name : delta.changed( ) )
+            changed.add( new File( profilesFolder , name ) );
+
+        for ( String name : delta.removed( ) )
+            removed.add( new File( profilesFolder , name ) );
+
+        Set < String > devices = profilesProcessor.updateCatalog( profileCatalog , changed , removed );
+        log.info( "Profiles updated: " + delta.added( ).size( ) + " added, " + delta.changed( ).size( ) + " changed, " + delta.removed( ).size( ) + " removed. Devices: " + devices );
+        applyProfiles( devices );
+
+        return delta;
+    }
+
+    /**
+     * Gives every loaded LController of the provided devices its current profile from the catalog. The LControllers
+     * keep polling while their profile is replaced.
+     */
+    public void applyProfiles( Set < String > deviceNames ) {
+        for ( LController lController : registry.snapshot( ) ) {
+            if ( deviceNames.contains( lController.getControllerName( ) ) )
+                lController.setProfile( profileCatalog.get( lController.getControllerName( ) ) );
+        }
+    }
+
+    /**
+     * Watches the profiles folder so new and edited profiles reach the loaded LControllers without a restart,
+     * unless the "profiles-watch" preference is turned off.
+     */
+    private void watchProfiles( ) {
+        if ( !preferences.getBoolean( "profiles-watch" , true ) || profilesFolder == null || !profilesFolder.isDirectory( ) )
+            return;
+
+        try {
+            profilesWatcher = new ProfilesWatcher( profilesProcessor , profileCatalog , profilesFolder , ProfilesWatcher.DEFAULT_DEBOUNCE );
+            profilesWatcher.addListener( this::applyProfiles );
+            profilesWatcher.start( );
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE , "Could not watch the profiles folder." , e );
+        }
     }
 
     /**
      * Retrieves all controllers currently connected to the system and loads the profiles ( if available ) for the controllers
      * and the usage data. If usage data is not available during this process, an empty map will be created so that data
      * can be tracked in the future and usage data json file can be created.
+     * <br>
+     * Startup runs in stages on virtual threads. The profile catalog loads while the devices are enumerated and the
+     * exclusions are read, and the usage of every device loads as soon as the device is known. Each LController
+     * starts polling as soon as its own usage is loaded, without waiting for the catalog or the other devices, and
+     * gets its profile once the catalog is ready. This returns after every device has been started and given its
+     * profile.
      */
     public void loadLControllers( ) {
+        startupNanos = System.nanoTime( );
+        watchFirstEvent( );
+
         ProfilesProcessor pp = new ProfilesProcessor( profilesFolder );
-        UsageProcessor uP = new UsageProcessor( jsonFolder );
+        profilesProcessor = pp;
+        UsageProcessor uP = new UsageProcessor( jsonFolder , preferences.getBoolean( "usage-compact-json" , false ) );
+        usageProcessor = uP;
+        usagePersistence = new UsagePersistenceService( uP , preferences.getLong( "usage-flush-interval" , UsagePersistenceService.DEFAULT_FLUSH_INTERVAL ) );
+        usagePersistence.start( );
+        axisFilterSettings = readAxisFilterSettings( );
+
+        CompletableFuture < ProfileCatalog > catalogStage = CompletableFuture.supplyAsync( pp::getCatalog , creationExecutor )
+                .exceptionally( e -> {
+                    log.log( Level.SEVERE , "Failed to load the profile catalog, devices start without profiles." , e );
+
+                    /*
+                     * An empty catalog instead of none, so the watcher and profile updates can still fill it later.
+                     */
+                    return new ProfileCatalog( Map.of( ) , ProfileCatalog.DEFAULT_CACHE_SIZE );
+                } )
+                .thenApply( catalog -> {
+                    profileCatalog = catalog;
+                    log.info( "Profile catalog ready after " + elapsedMillis( ) + " ms" );
+                    return catalog;
+                } );
 
-        Map < String, ControllerProfile > profiles = pp.getProfiles( );
         /*
-         * Retrieves all the connected controllers/devices but removes
-         * any duplicated devices.
+         * Retrieves all the connected controllers/devices, keyed so that a device
+         * reported twice is kept once while identical twin devices are both kept.
          */
-        List < Controller > controllers = getSortedControllers( );
+        CompletableFuture < Map < DeviceKey, Controller > > devicesStage = CompletableFuture.supplyAsync( deviceEnumerator::getDevices , creationExecutor );
 
         /*
-         * Load a list of device exclusions that we do not want to track.
+         * Load the device exclusions that we do not want to track.
          * Usually this is devices such as HID-compliant mouse or devices that don't have
          * buttons to track like Corsair Commander Core or Aura lighting. The exclusion list
          * should in theory grow larger over time.
          */
-        List < String > exclusions = getExclusions( );
+        CompletableFuture < ExclusionRules > exclusionsStage = CompletableFuture.supplyAsync( this::reloadExclusions , creationExecutor );
+
+        Map < DeviceKey, Controller > controllers = devicesStage.join( );
+        ExclusionRules exclusions = exclusionsStage.join( );
+        List < CompletableFuture < LController > > started = new ArrayList <>( );
+
+        for ( Map.Entry < DeviceKey, Controller > device : controllers.entrySet( ) ) {
+            DeviceKey key = device.getKey( );
+            Controller c = device.getValue( );
 
-        for ( Controller c : controllers ) {
-            if ( !exclusions.contains( c.getName( ) ) || c.getType() != Controller.Type.KEYBOARD || c.getType() != Controller.Type.MOUSE ) {
-                ControllerProfile profile = profiles.get( c.getName( ) );
+            if ( exclusions.isExcluded( c ) )
+                continue;
 
-                Map < String, Integer > usageMap = uP.deserializeUsageFor( c.getName( ) );
-                LController lController = new LController( c , profile );
-                lController.setUsageMap( usageMap );
+            CompletableFuture < LController > usageStage = CompletableFuture.supplyAsync( ( ) -> {
+                LController lController = new LController( c , null , PollingEngine.getDefault( ) , key.usageName( ) );
+                lController.getAxisFilter( ).setSettings( axisFilterSettings );
+                loadUsage( uP , lController );
+                return lController;
+            } , creationExecutor );
 
-                this.lControllers.add( lController );
+            CompletableFuture < LController > pollingStage = usageStage.thenApply( lController -> {
+                if ( !registry.add( key , lController ) )
+                    return null;
+
+                usagePersistence.track( lController );
+                lController.startEventPolling( );
+                firstPolling.compareAndSet( -1L , System.nanoTime( ) - startupNanos );
+
+                return lController;
+            } );
+
+            /*
+             * The profile only decides how the device is polled, so it is applied to the running LController once
+             * the catalog is ready. Until then the device drains its event queue, which every device supports.
+             */
+            started.add( pollingStage.thenCombine( catalogStage , ( lController , catalog ) -> {
+                if ( lController != null )
+                    lController.setProfile( catalog.get( c.getName( ) ) );
+
+                return lController;
+            } ).exceptionally( e -> {
+                log.log( Level.SEVERE , "Failed to load " + key.usageName( ) + "." , e );
+                return null;
+            } ) );
+        }
+
+        CompletableFuture.allOf( started.toArray( new CompletableFuture[ 0 ] ) ).join( );
+        catalogStage.join( );
+
+        log.info( "Started " + registry.size( ) + " devices after " + elapsedMillis( ) + " ms, the first after "
+                + TimeUnit.NANOSECONDS.toMillis( Math.max( firstPolling.get( ) , 0L ) ) + " ms" );
+
+        watchProfiles( );
+    }
+
+    /**
+     * Records the time of the first event drained from any tracked device after startup began.
+     */
+    private void watchFirstEvent( ) {
+        PollingEngine engine = PollingEngine.getDefault( );
+
+        engine.addEventConsumer( new PollingEngine.EventConsumer( ) {
+            @Override
+            public void accept( LController controller , Event event ) {
+                if ( firstEvent.compareAndSet( -1L , System.nanoTime( ) - startupNanos ) ) {
+                    log.info( "First tracked event after " + TimeUnit.NANOSECONDS.toMillis( firstEvent.get( ) ) + " ms" );
+                    engine.removeEventConsumer( this );
+                }
             }
+        } );
+    }
+
+    /**
+     * Returns the milliseconds since loadLControllers ( ) was called.
+     */
+    private long elapsedMillis( ) {
+        return TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - startupNanos );
+    }
+
+    /**
+     * Returns the time from the start of loadLControllers ( ) until the first device started polling, or -1 if no
+     * device has started polling yet.
+     */
+    public long getTimeToFirstPolling( TimeUnit unit ) {
+        long nanos = firstPolling.get( );
+        return nanos < 0L ? -1L : unit.convert( nanos , TimeUnit.NANOSECONDS );
+    }
+
+    /**
+     * Returns the time from the start of loadLControllers ( ) until the first event was drained from a tracked
+     * device, or -1 if there has not been one yet.
+     */
+    public long getTimeToFirstEvent( TimeUnit unit ) {
+        long nanos = firstEvent.get( );
+        return nanos < 0L ? -1L : unit.convert( nanos , TimeUnit.NANOSECONDS );
+    }
+
+    /**
+     * Reads the axis filter settings from the "axis-deadband", "axis-hysteresis", "axis-min-delta",
+     * "axis-min-interval" ( milliseconds ) and "axis-extreme" preferences. Settings that are not set use
+     * {@link AxisFilter.Settings#DEFAULT}, and invalid settings are reported and replaced by the defaults.
+     */
+    private AxisFilter.Settings readAxisFilterSettings( ) {
+        AxisFilter.Settings defaults = AxisFilter.Settings.DEFAULT;
+
+        try {
+            return new AxisFilter.Settings(
+                    preferences.getFloat( "axis-deadband" , defaults.deadband( ) ) ,
+                    preferences.getFloat( "axis-hysteresis" , defaults.hysteresis( ) ) ,
+                    preferences.getFloat( "axis-min-delta" , defaults.minDelta( ) ) ,
+                    TimeUnit.MILLISECONDS.toNanos( preferences.getLong( "axis-min-interval" , TimeUnit.NANOSECONDS.toMillis( defaults.minIntervalNanos( ) ) ) ) ,
+                    preferences.getFloat( "axis-extreme" , defaults.extreme( ) ) );
+        } catch ( IllegalArgumentException e ) {
+            log.log( Level.WARNING , "Invalid axis filter settings, using the defaults." , e );
+            return defaults;
         }
     }
 
-    public LController createLController ( Controller controller ) {
-        //TODO
-        return null;
+    /**
+     * Loads the usage of the provided LController. By default usage is read from its json file and journal.
+     * If the "usage-storage" preference is set to "mapped", the LController counts usage directly in a
+     * memory-mapped counter file instead, which is created from the json file the first time. The saved usage
+     * history is loaded either way.
+     */
+    private void loadUsage( UsageProcessor uP , LController lController ) {
+        uP.readHistoryFor( lController.getUsageName( ) , lController.getUsageHistory( ) , lController.getUsageSlotNames( ) );
+
+        if ( preferences.get( "usage-storage" , "journal" ).equals( "mapped" ) ) {
+            MappedUsageStore store = uP.openUsageStoreFor( lController.getUsageName( ) , lController.getUsageSlotNames( ) );
+
+            if ( store != null ) {
+                lController.attachUsageCounters( store.counters( ) , store.extraCounts( ) );
+                return;
+            }
+        }
+
+        lController.setUsageMap( uP.deserializeUsageFor( lController.getUsageName( ) ) );
     }
 
     /**
-     * Returns a list of devices/controllers that should not be enumerated in loadControllers ( ).
-     * Eventually the exclusions.txt file will be moved to an online repo that can be pulled from as needed.
+     * Creates, registers and starts polling the LController of a device that was connected after loadLControllers ( ).
+     * The profile and usage are loaded on a virtual thread, so this returns at once and can be called from the
+     * JInput listener thread.
+     *
+     * @return Returns a future completed with the new LController, or with null if the device is excluded or
+     * already tracked.
      */
-    private List < String > getExclusions( ) {
-        try ( BufferedReader inStream = new BufferedReader( new InputStreamReader( Objects.requireNonNull( Testing.class.getResourceAsStream( "/main/resources/Exclusions.txt" ) ) ) ) ) {
-            return inStream.lines( ).toList( );
-        } catch ( IOException | NullPointerException e ) {
-            log.log( Level.SEVERE , "Failed to load device exclusions." , e );
-            return Collections.emptyList( );
+    public CompletableFuture < LController > createLController( Controller controller ) {
+        if ( usagePersistence == null )
+            return CompletableFuture.completedFuture( null );
+
+        CompletableFuture < LController > created = new CompletableFuture <>( );
+        CompletableFuture < LController > creating = pending.putIfAbsent( controller , created );
+
+        if ( creating != null )
+            return creating;
+
+        creationExecutor.execute( ( ) -> {
+            try {
+                LController lController = register( controller );
+                pending.remove( controller , created );
+                created.complete( lController );
+            } catch ( RuntimeException e ) {
+                pending.remove( controller , created );
+                log.log( Level.SEVERE , "Failed to create the LController of " + controller.getName( ) + "." , e );
+                created.completeExceptionally( e );
+            }
+        } );
+
+        return created;
+    }
+
+    /**
+     * Loads the profile and usage of the provided device and registers its LController. Runs on the creation executor.
+     */
+    private LController register( Controller controller ) {
+        if ( exclusionRules.isExcluded( controller ) )
+            return null;
+
+        DeviceKey key = deviceEnumerator.keyOf( controller );
+
+        if ( key == null )
+            key = DeviceKey.of( controller , registry.freeInstance( controller.getName( ) ) );
+
+        if ( registry.contains( key ) )
+            return null;
+
+        ControllerProfile profile = profileCatalog != null ? profileCatalog.get( controller.getName( ) ) : null;
+
+        LController lController = new LController( controller , profile , PollingEngine.getDefault( ) , key.usageName( ) );
+        lController.getAxisFilter( ).setSettings( axisFilterSettings );
+        loadUsage( usageProcessor , lController );
+
+        if ( !registry.add( key , lController ) )
+            return null;
+
+        usagePersistence.track( lController );
+        lController.startEventPolling( );
+        log.info( "Tracking " + key.usageName( ) );
+
+        return lController;
+    }
+
+    /**
+     * Stops polling and tracking the LController of a device that was disconnected. If the LController is still
+     * being created, it is removed as soon as it is ready.
+     *
+     * @return Returns the removed LController, or null if the device was not tracked.
+     */
+    public LController removeLController( Controller controller ) {
+        CompletableFuture < LController > creating = pending.get( controller );
+
+        if ( creating != null )
+            creating.thenRun( ( ) -> removeLController( controller ) );
+
+        LController removed = registry.remove( controller );
+
+        if ( removed != null ) {
+            removed.stopEventPolling( );
+            usagePersistence.untrack( removed );
+            log.info( "Stopped tracking " + removed.getUsageName( ) );
         }
+
+        return removed;
     }
 
     /**
-     * Retrieves all connected controllers/devices and removes duplicates.
-     * This can potentially slow down in the future if someone has a lot of different
-     * connected devices, but for now it'll suffice.
+     * Creates the LControllers of the added devices and removes those of the removed devices from a rescan.
+     * See {@link #rescanDevices()}.
      */
-    private List < Controller > getSortedControllers( ) {
-        DirectAndRawInputEnvironmentPlugin plugin = new DirectAndRawInputEnvironmentPlugin();
+    public void applyDeviceDelta( DeviceEnumerator.Delta delta ) {
+        for ( Controller removed : delta.removed( ).values( ) ) {
+            removeLController( removed );
+        }
+
+        for ( Controller added : delta.added( ).values( ) ) {
+            createLController( added );
+        }
+    }
 
-        Controller[] controllers = plugin.getControllers();
-        List < Controller > sorted = new ArrayList <>( );
+    /**
+     * Returns the rules deciding which devices/controllers are not enumerated in loadLControllers ( ).
+     */
+    public ExclusionRules getExclusionRules( ) {
+        return exclusionRules;
+    }
 
-        for ( Controller c1 : controllers ) {
-            boolean doNotAdd = false;
+    /**
+     * Compiles the device/controller exclusion rules again and replaces the current rules. The rules are the bundled
+     * Exclusions.txt followed by the user's own Exclusions.txt in the install folder, if there is one.
+     * Eventually the exclusions.txt file will be moved to an online repo that can be pulled from as needed.
+     * See {@link ExclusionRules} for the rule format.
+     *
+     * @return Returns the new rules.
+     */
+    public ExclusionRules reloadExclusions( ) {
+        List < String > lines = new ArrayList <>( );
 
-            if ( !c1.getName( ).toLowerCase( ).contains( "keyboard" ) ||
-                    c1.getType( ) != Controller.Type.KEYBOARD ||
-                    !c1.getName( ).toLowerCase( ).contains( "mouse" ) ||
-                    c1.getType( ) != Controller.Type.MOUSE ) {
+        try ( BufferedReader inStream = new BufferedReader( new InputStreamReader( Objects.requireNonNull( Testing.class.getResourceAsStream( "/main/resources/Exclusions.txt" ) ) ) ) ) {
+            inStream.lines( ).forEach( lines::add );
+        } catch ( IOException | NullPointerException e ) {
+            log.log( Level.SEVERE , "Failed to load device exclusions." , e );
+        }
 
-                for ( Controller c2 : sorted ) {
-                    if ( c2.getName( ).equals( c1.getName( ) ) ) {
-                        doNotAdd = true;
-                    }
-                }
+        if ( profilesFolder != null ) {
+            File userExclusions = new File( profilesFolder.getAbsoluteFile( ).getParentFile( ) , "Exclusions.txt" );
 
-                if ( !doNotAdd ) {
-                    sorted.add( c1 );
+            if ( userExclusions.isFile( ) ) {
+                try {
+                    lines.addAll( Files.readAllLines( userExclusions.toPath( ) ) );
+                } catch ( IOException e ) {
+                    log.log( Level.SEVERE , "Failed to load user device exclusions." , e );
                 }
             }
+        }
 
+        exclusionRules = ExclusionRules.compile( lines );
+        return exclusionRules;
+    }
 
-        }
+    /**
+     * Returns the enumerator that keeps the connected devices.
+     */
+    public DeviceEnumerator getDeviceEnumerator( ) {
+        return deviceEnumerator;
+    }
 
-        return sorted;
+    /**
+     * Enumerates the connected devices again off the calling thread.
+     *
+     * @return Returns the devices added and removed since the last scan.
+     */
+    public CompletableFuture < DeviceEnumerator.Delta > rescanDevices( ) {
+        return deviceEnumerator.rescan( );
     }
 }
@@ -0,0 +1,161 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Controller;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The tracked LControllers, keyed by the {@link DeviceKey} of their device. Adding, removing and looking up an
+ * LController by its key or by its JInput Controller take constant time and never block, so hot-plug callbacks,
+ * the tray and the UI can all use the registry at once.
+ * <br>
+ * Iteration goes through {@link #snapshot()}, an immutable list rebuilt only after the registry changed, so
+ * iterating never blocks a writer and never fails because of one.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public class ControllerRegistry {
+
+    private final Map < DeviceKey, LController > byKey = new ConcurrentHashMap <>( );
+
+    /**
+     * The key of every registered JInput Controller.
+     */
+    private final Map < Controller, DeviceKey > keys = new ConcurrentHashMap <>( );
+
+    /**
+     * Counts every change, so a snapshot knows whether it is current.
+     */
+    private final AtomicLong version = new AtomicLong( );
+
+    /**
+     * The last snapshot taken.
+     */
+    private volatile Snapshot snapshot = new Snapshot( 0L , List.of( ) );
+
+    /**
+     * Registers the provided LController under the provided key, unless another LController already is.
+     *
+     * @return Returns true if the LController was registered.
+     */
+    public boolean add( DeviceKey key , LController lController ) {
+        if ( byKey.putIfAbsent( key , lController ) != null )
+            return false;
+
+        keys.put( lController.getController( ) , key );
+        version.incrementAndGet( );
+        return true;
+    }
+
+    /**
+     * Removes the LController registered under the provided key.
+     *
+     * @return Returns the removed LController, or null if none was registered.
+     */
+    public LController remove( DeviceKey key ) {
+        LController removed = byKey.remove( key );
+
+        if ( removed != null ) {
+            keys.remove( removed.getController( ) , key );
+            version.incrementAndGet( );
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes the LController of the provided JInput Controller.
+     *
+     * @return Returns the removed LController, or null if none was registered.
+     */
+    public LController remove( Controller controller ) {
+        DeviceKey key = keys.get( controller );
+        return key != null ? remove( key ) : null;
+    }
+
+    /**
+     * Returns the LController registered under the provided key, or null if there is none.
+     */
+    public LController get( DeviceKey key ) {
+        return byKey.get( key );
+    }
+
+    /**
+     * Returns the LController of the provided JInput Controller, or null if there is none.
+     */
+    public LController get( Controller controller ) {
+        DeviceKey key = keys.get( controller );
+        return key != null ? byKey.get( key ) : null;
+    }
+
+    /**
+     * Returns the key the provided JInput Controller is registered under, or null if it is not registered.
+     */
+    public DeviceKey keyOf( Controller controller ) {
+        return keys.get( controller );
+    }
+
+    /**
+     * Returns true if an LController is registered under the provided key.
+     */
+    public boolean contains( DeviceKey key ) {
+        return byKey.containsKey( key );
+    }
+
+    /**
+     * Returns the lowest instance not used by a registered device with the provided name, for a device that was not
+     * enumerated. See {@link DeviceKey#instance()}.
+     */
+    public int freeInstance( String name ) {
+        Set < Integer > used = new HashSet <>( );
+
+        for ( DeviceKey key : byKey.keySet( ) ) {
+            if ( key.name( ).equals( name ) )
+                used.add( key.instance( ) );
+        }
+
+        int instance = 0;
+
+        while ( used.contains( instance ) ) {
+            instance++;
+        }
+
+        return instance;
+    }
+
+    /**
+     * Returns the number of registered LControllers.
+     */
+    public int size( ) {
+        return byKey.size( );
+    }
+
+    /**
+     * Returns an immutable list of the registered LControllers. The list is rebuilt at most once per change.
+     */
+    public List < LController > snapshot( ) {
+        long current = version.get( );
+        Snapshot last = snapshot;
+
+        if ( last.version( ) == current )
+            return last.controllers( );
+
+        /*
+         * The version is read before the values, so a change racing with this rebuild leaves a snapshot that is
+         * already out of date and is rebuilt again by the next call.
+         */
+        List < LController > controllers = List.copyOf( byKey.values( ) );
+        snapshot = new Snapshot( current , controllers );
+        return controllers;
+    }
+
+    private record Snapshot( long version , List < LController > controllers ) {
+    }
+}
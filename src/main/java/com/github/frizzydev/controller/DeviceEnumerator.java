@@ -0,0 +1,261 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Controller;
+import net.java.games.input.DirectAndRawInputEnvironmentPlugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Enumerates the connected devices once and keeps the result for the lifetime of the app. Every device is keyed by
+ * its {@link DeviceKey}, so the same device reported twice is kept once while identical twin devices are both kept.
+ * <br>
+ * JInput only enumerates devices when a plugin is created, so a rescan creates a new plugin. Rescans run on a
+ * virtual thread and hand back only the devices that were added or removed since the last scan. A device that is
+ * still connected keeps its key and the Controller it was first enumerated with, so its polling is not disturbed.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public class DeviceEnumerator {
+
+    final static Logger log = Logger.getLogger( DeviceEnumerator.class.getName( ) );
+
+    /**
+     * Creates the plugin every scan enumerates through.
+     */
+    private final Supplier < Controller[] > scanner;
+
+    /**
+     * Every known device, in enumeration order. Never modified, only replaced as a whole.
+     */
+    private volatile Map < DeviceKey, Controller > devices;
+
+    /**
+     * The key of every known Controller. Replaced together with devices.
+     */
+    private volatile Map < Controller, DeviceKey > keys = Map.of( );
+
+    /**
+     *
+     */
+    public DeviceEnumerator( ) {
+        this( ( ) -> new DirectAndRawInputEnvironmentPlugin( ).getControllers( ) );
+    }
+
+    /**
+     * @param scanner Returns the currently connected controllers each time it is called.
+     */
+    public DeviceEnumerator( Supplier < Controller[] > scanner ) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * Returns every connected device, in enumeration order. The devices are enumerated the first time this is called
+     * and cached after that.
+     */
+    public Map < DeviceKey, Controller > getDevices( ) {
+        Map < DeviceKey, Controller > current = devices;
+
+        if ( current == null ) {
+            synchronized ( this ) {
+                if ( devices == null )
+                    apply( scan( ) );
+
+                current = devices;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Returns the key of the provided controller, or null if it was not enumerated.
+     */
+    public DeviceKey keyOf( Controller controller ) {
+        getDevices( );
+        return keys.get( controller );
+    }
+
+    /**
+     * Enumerates the connected devices again on a virtual thread.
+     * <br>
+     * Scanned devices are matched to the known ones by Controller first, then by name, port type and port number.
+     * Only devices that still match more than one known device fall back to enumeration order. A device that
+     * matches no known device gets the lowest instance not used by a connected device with the same name, so a
+     * device that is still connected never changes its key because an identical one was unplugged.
+     *
+     * @return Returns the devices added and removed since the last scan.
+     */
+    public CompletableFuture < Delta > rescan( ) {
+        CompletableFuture < Delta > result = new CompletableFuture <>( );
+
+        Thread.ofVirtual( ).name( "Device-Rescan" ).start( ( ) -> {
+            try {
+                List < Controller > scanned = enumerate( );
+
+                synchronized ( this ) {
+                    Map < DeviceKey, Controller > previous = devices != null ? devices : Map.of( );
+                    Map < Controller, DeviceKey > previousKeys = keys;
+                    Set < DeviceKey > unmatched = new LinkedHashSet <>( previous.keySet( ) );
+                    Map < DeviceKey, Controller > next = new LinkedHashMap <>( );
+                    List < Controller > unknown = new ArrayList <>( );
+
+                    for ( Controller controller : scanned ) {
+                        DeviceKey key = previousKeys.get( controller );
+
+                        if ( key != null && unmatched.remove( key ) ) {
+                            next.put( key , controller );
+                        } else {
+                            unknown.add( controller );
+                        }
+                    }
+
+                    List < Controller > fresh = new ArrayList <>( );
+
+                    for ( Controller controller : unknown ) {
+                        DeviceKey key = matchPort( unmatched , controller );
+
+                        if ( key != null ) {
+                            unmatched.remove( key );
+                            next.put( key , previous.get( key ) );
+                        } else {
+                            fresh.add( controller );
+                        }
+                    }
+
+                    Map < DeviceKey, Controller > added = new LinkedHashMap <>( );
+
+                    for ( Controller controller : fresh ) {
+                        DeviceKey key = DeviceKey.of( controller , freeInstance( next.keySet( ) , controller.getName( ) ) );
+                        next.put( key , controller );
+                        added.put( key , controller );
+                    }
+
+                    Map < DeviceKey, Controller > removed = new LinkedHashMap <>( );
+
+                    for ( DeviceKey key : unmatched ) {
+                        removed.put( key , previous.get( key ) );
+                    }
+
+                    apply( next );
+                    result.complete( new Delta( Collections.unmodifiableMap( added ) , Collections.unmodifiableMap( removed ) ) );
+                }
+            } catch ( RuntimeException e ) {
+                log.log( Level.SEVERE , "Device rescan failed." , e );
+                result.completeExceptionally( e );
+            }
+        } );
+
+        return result;
+    }
+
+    /**
+     * Enumerates the connected devices, keyed by their position among the devices with the same name.
+     */
+    private Map < DeviceKey, Controller > scan( ) {
+        Map < DeviceKey, Controller > scanned = new LinkedHashMap <>( );
+        Map < String, Integer > instances = new HashMap <>( );
+
+        for ( Controller controller : enumerate( ) ) {
+            int instance = instances.merge( controller.getName( ) , 1 , Integer::sum ) - 1;
+            scanned.put( DeviceKey.of( controller , instance ) , controller );
+        }
+
+        return scanned;
+    }
+
+    /**
+     * Enumerates the connected devices, dropping any Controller reported more than once.
+     */
+    private List < Controller > enumerate( ) {
+        List < Controller > enumerated = new ArrayList <>( );
+        Set < Controller > seen = Collections.newSetFromMap( new IdentityHashMap <>( ) );
+
+        for ( Controller controller : scanner.get( ) ) {
+            if ( seen.add( controller ) )
+                enumerated.add( controller );
+        }
+
+        return enumerated;
+    }
+
+    /**
+     * Returns the first of the provided keys with the name, port type and port number of the provided controller,
+     * or null if there is none.
+     */
+    private static DeviceKey matchPort( Set < DeviceKey > keys , Controller controller ) {
+        String name = controller.getName( );
+        String portType = String.valueOf( controller.getPortType( ) );
+        int portNumber = controller.getPortNumber( );
+
+        for ( DeviceKey key : keys ) {
+            if ( key.name( ).equals( name ) && key.portType( ).equals( portType ) && key.portNumber( ) == portNumber )
+                return key;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the lowest instance not used by any of the provided keys with the provided name.
+     */
+    private static int freeInstance( Set < DeviceKey > keys , String name ) {
+        Set < Integer > used = new HashSet <>( );
+
+        for ( DeviceKey key : keys ) {
+            if ( key.name( ).equals( name ) )
+                used.add( key.instance( ) );
+        }
+
+        int instance = 0;
+
+        while ( used.contains( instance ) )
+            instance++;
+
+        return instance;
+    }
+
+    /**
+     * Replaces the known devices. Only called while holding the lock.
+     */
+    private void apply( Map < DeviceKey, Controller > next ) {
+        Map < Controller, DeviceKey > nextKeys = new IdentityHashMap <>( );
+
+        for ( Map.Entry < DeviceKey, Controller > entry : next.entrySet( ) ) {
+            nextKeys.put( entry.getValue( ) , entry.getKey( ) );
+        }
+
+        keys = nextKeys;
+        devices = Collections.unmodifiableMap( next );
+    }
+
+    /**
+     * The devices added and removed by a rescan.
+     *
+     * @param added   The devices connected since the last scan.
+     * @param removed The devices disconnected since the last scan.
+     */
+    public record Delta( Map < DeviceKey, Controller > added , Map < DeviceKey, Controller > removed ) {
+
+        /**
+         * Returns true if no device was added or removed.
+         */
+        public boolean isEmpty( ) {
+            return added.isEmpty( ) && removed.isEmpty( );
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Controller;
+
+/**
+ * The stable identity of a connected device. Devices are told apart by name, port type and port number, and
+ * devices that share a name by an instance number, so identical twin devices are tracked separately instead of being
+ * merged. The instance is the enumeration order at startup, and a device connected later gets the lowest instance
+ * not in use, see {@link DeviceEnumerator#rescan()}.
+ *
+ * @param name       The name of the device.
+ * @param portType   The port type of the device.
+ * @param portNumber The port number of the device.
+ * @param instance   Tells apart the connected devices with the same name.
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public record DeviceKey( String name , String portType , int portNumber , int instance ) {
+
+    /**
+     * Returns the key of the provided controller.
+     *
+     * @param instance The position of the controller among the controllers with the same name.
+     */
+    public static DeviceKey of( Controller controller , int instance ) {
+        return new DeviceKey( controller.getName( ) , String.valueOf( controller.getPortType( ) ) , controller.getPortNumber( ) , instance );
+    }
+
+    /**
+     * Returns the name the usage of the device is stored under. The first device with a name uses the name itself,
+     * so existing usage files keep working, and every further device with the same name gets its own usage file.
+     */
+    public String usageName( ) {
+        return instance == 0 ? name : name + " (" + ( instance + 1 ) + ")";
+    }
+}
@@ -0,0 +1,375 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Controller;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The compiled rules deciding which devices are not tracked, read from the Exclusions.txt format.
+ * <br>
+ * Every line is one rule. A plain line excludes the device with exactly that name, as the exclusion list always
+ * has. A line can instead start with a rule kind:
+ * <ul>
+ *     <li>exact: excludes the device with exactly the provided name.</li>
+ *     <li>prefix: excludes every device whose name starts with the provided text.</li>
+ *     <li>glob: excludes every device whose whole name matches the provided glob, where * matches any text and ? matches one character.</li>
+ *     <li>regex: excludes every device whose whole name matches the provided regular expression.</li>
+ *     <li>type: excludes every device of the provided Controller.Type, such as type:Keyboard.</li>
+ * </ul>
+ * Blank lines and lines starting with # are ignored.
+ * <br>
+ * Rules are compiled once. Exact names and types are kept in hash sets, prefixes in a trie, and every glob is
+ * combined into a single automaton whose states are built as names are checked, so these cost one pass over the
+ * name no matter how many rules there are. Regular expressions can backtrack, so they are combined into one
+ * java.util.regex pattern that is only tried when nothing else excluded the device, and its cost depends on the
+ * expressions written.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class ExclusionRules {
+
+    final static Logger log = Logger.getLogger( ExclusionRules.class.getName( ) );
+
+    /**
+     * Rules that exclude nothing.
+     */
+    public static final ExclusionRules NONE = compile( List.of( ) );
+
+    private final Set < String > exact;
+
+    private final PrefixNode prefixes;
+
+    /**
+     * Every glob as one automaton, or null if there are none.
+     */
+    private final GlobAutomaton globs;
+
+    /**
+     * Every regular expression as one pattern, or null if there are none.
+     */
+    private final Pattern patterns;
+
+    /**
+     * The lower case name of every excluded Controller.Type.
+     */
+    private final Set < String > types;
+
+    private final int size;
+
+    private ExclusionRules( Set < String > exact , PrefixNode prefixes , GlobAutomaton globs , Pattern patterns , Set < String > types , int size ) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+        this.globs = globs;
+        this.patterns = patterns;
+        this.types = types;
+        this.size = size;
+    }
+
+    /**
+     * Compiles the provided rule lines. A rule that can not be compiled is reported and skipped.
+     */
+    public static ExclusionRules compile( List < String > lines ) {
+        Set < String > exact = new HashSet <>( );
+        PrefixNode prefixes = new PrefixNode( );
+        List < String > globs = new ArrayList <>( );
+        List < String > patterns = new ArrayList <>( );
+        Set < String > types = new HashSet <>( );
+        int size = 0;
+
+        for ( String line : lines ) {
+            String rule = line.strip( );
+
+            if ( rule.isEmpty( ) || rule.startsWith( "#" ) )
+                continue;
+
+            int colon = rule.indexOf( ':' );
+            String kind = colon > 0 ? rule.substring( 0 , colon ).toLowerCase( Locale.ROOT ) : "";
+            String value = colon > 0 ? rule.substring( colon + 1 ).strip( ) : rule;
+
+            if ( value.isEmpty( ) ) {
+                log.log( Level.WARNING , "Skipping empty exclusion rule: " + line );
+                continue;
+            }
+
+            switch ( kind ) {
+                case "exact" -> exact.add( value );
+                case "prefix" -> prefixes.add( value );
+                case "glob" -> globs.add( value );
+                case "regex" -> {
+                    try {
+                        Pattern.compile( value );
+                        patterns.add( value );
+                    } catch ( PatternSyntaxException e ) {
+                        log.log( Level.WARNING , "Skipping invalid exclusion rule: " + line , e );
+                        continue;
+                    }
+                }
+                case "type" -> types.add( value.toLowerCase( Locale.ROOT ) );
+                /*
+                 * Device names can contain colons, so a line with an unknown kind is an exact name.
+                 */
+                default -> exact.add( rule );
+            }
+
+            size++;
+        }
+
+        Pattern combined = null;
+
+        if ( !patterns.isEmpty( ) ) {
+            StringBuilder regex = new StringBuilder( );
+
+            for ( String pattern : patterns ) {
+                if ( !regex.isEmpty( ) )
+                    regex.append( '|' );
+
+                regex.append( "(?:" ).append( pattern ).append( ')' );
+            }
+
+            combined = Pattern.compile( regex.toString( ) );
+        }
+
+        return new ExclusionRules( exact , prefixes , globs.isEmpty( ) ? null : new GlobAutomaton( globs ) , combined , types , size );
+    }
+
+    /**
+     * Returns true if the provided controller should not be tracked.
+     */
+    public boolean isExcluded( Controller controller ) {
+        return isExcluded( controller.getName( ) , controller.getType( ) );
+    }
+
+    /**
+     * Returns true if a device with the provided name and type should not be tracked.
+     *
+     * @param type The type of the device. Can be null if it is not known.
+     */
+    public boolean isExcluded( String name , Controller.Type type ) {
+        if ( type != null && !types.isEmpty( ) && types.contains( type.toString( ).toLowerCase( Locale.ROOT ) ) )
+            return true;
+
+        if ( exact.contains( name ) || prefixes.matches( name ) )
+            return true;
+
+        if ( globs != null && globs.matches( name ) )
+            return true;
+
+        return patterns != null && patterns.matcher( name ).matches( );
+    }
+
+    /**
+     * Returns the number of rules.
+     */
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * A node of the prefix trie.
+     */
+    private static final class PrefixNode {
+
+        private final Map < Character, PrefixNode > children = new HashMap <>( );
+
+        /**
+         * True if a prefix ends at this node.
+         */
+        private boolean terminal;
+
+        private void add( String prefix ) {
+            PrefixNode node = this;
+
+            for ( int i = 0; i < prefix.length( ); i++ ) {
+                node = node.children.computeIfAbsent( prefix.charAt( i ) , c -> new PrefixNode( ) );
+            }
+
+            node.terminal = true;
+        }
+
+        /**
+         * Returns true if a prefix in the trie starts the provided name.
+         */
+        private boolean matches( String name ) {
+            PrefixNode node = this;
+
+            for ( int i = 0; i < name.length( ); i++ ) {
+                if ( node.terminal )
+                    return true;
+
+                node = node.children.get( name.charAt( i ) );
+
+                if ( node == null )
+                    return false;
+            }
+
+            return node.terminal;
+        }
+    }
+
+    /**
+     * Every glob rule as one automaton. A glob is a row of positions, each matching one literal character, any one
+     * character for ?, or any text for *, followed by an accepting position. A state of the automaton is the set of
+     * positions a name can have reached in all globs at once, so a name is checked by following one transition per
+     * character.
+     * <br>
+     * States and transitions are only built for the characters names actually contain, and are kept for the next
+     * check. Past MAX_STATES the automaton stops keeping new states and computes them for each check instead, so a
+     * pathological set of globs can not grow it without bound.
+     */
+    private static final class GlobAutomaton {
+
+        private static final int MAX_STATES = 4096;
+
+        private static final char ANY = '?';
+
+        private static final char STAR = '*';
+
+        /**
+         * The character every position matches, ANY or STAR for wildcards.
+         */
+        private final char[] chars;
+
+        /**
+         * True for positions that match ? or * instead of their character.
+         */
+        private final boolean[] wildcard;
+
+        /**
+         * True for the position following the last of each glob.
+         */
+        private final boolean[] accepting;
+
+        private final Map < BitSet, State > states = new ConcurrentHashMap <>( );
+
+        private final State start;
+
+        private GlobAutomaton( List < String > globs ) {
+            int length = 0;
+
+            for ( String glob : globs ) {
+                length += glob.length( ) + 1;
+            }
+
+            chars = new char[ length ];
+            wildcard = new boolean[ length ];
+            accepting = new boolean[ length ];
+
+            BitSet first = new BitSet( length );
+            int position = 0;
+
+            for ( String glob : globs ) {
+                first.set( position );
+
+                for ( int i = 0; i < glob.length( ); i++ , position++ ) {
+                    char c = glob.charAt( i );
+                    chars[ position ] = c;
+                    wildcard[ position ] = c == ANY || c == STAR;
+                }
+
+                accepting[ position++ ] = true;
+            }
+
+            start = state( closure( first ) );
+        }
+
+        private boolean matches( String name ) {
+            State state = start;
+
+            for ( int i = 0; i < name.length( ) && !state.positions.isEmpty( ); i++ ) {
+                state = state.next( name.charAt( i ) );
+            }
+
+            return state.accepts;
+        }
+
+        /**
+         * Adds the positions following every * in the provided set, as * also matches no text.
+         */
+        private BitSet closure( BitSet positions ) {
+            for ( int p = positions.nextSetBit( 0 ); p >= 0; p = positions.nextSetBit( p + 1 ) ) {
+                if ( wildcard[ p ] && chars[ p ] == STAR )
+                    positions.set( p + 1 );
+            }
+
+            return positions;
+        }
+
+        private State state( BitSet positions ) {
+            State state = states.get( positions );
+
+            if ( state != null )
+                return state;
+
+            boolean accepts = false;
+
+            for ( int p = positions.nextSetBit( 0 ); p >= 0 && !accepts; p = positions.nextSetBit( p + 1 ) ) {
+                accepts = accepting[ p ];
+            }
+
+            state = new State( positions , accepts );
+
+            if ( states.size( ) >= MAX_STATES )
+                return state;
+
+            State raced = states.putIfAbsent( positions , state );
+            return raced != null ? raced : state;
+        }
+
+        /**
+         * A set of glob positions and the states it moves to, by character.
+         */
+        private final class State {
+
+            private final BitSet positions;
+
+            private final boolean accepts;
+
+            private final Map < Character, State > next = new ConcurrentHashMap <>( );
+
+            private State( BitSet positions , boolean accepts ) {
+                this.positions = positions;
+                this.accepts = accepts;
+            }
+
+            private State next( char c ) {
+                State state = next.get( c );
+
+                if ( state != null )
+                    return state;
+
+                BitSet moved = new BitSet( chars.length );
+
+                for ( int p = positions.nextSetBit( 0 ); p >= 0; p = positions.nextSetBit( p + 1 ) ) {
+                    if ( accepting[ p ] )
+                        continue;
+
+                    if ( wildcard[ p ] && chars[ p ] == STAR )
+                        moved.set( p );
+                    else if ( wildcard[ p ] || chars[ p ] == c )
+                        moved.set( p + 1 );
+                }
+
+                state = state( closure( moved ) );
+
+                if ( next.size( ) < MAX_STATES )
+                    next.put( c , state );
+
+                return state;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.frizzydev.controller;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Usage counters kept on the heap. These are used until a storage engine supplies its own counters.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+final class HeapUsageCounters implements UsageCounters {
+
+    private final AtomicLongArray counters;
+
+    /**
+     * @param length The number of counters.
+     */
+    HeapUsageCounters( int length ) {
+        this.counters = new AtomicLongArray( length );
+    }
+
+    @Override
+    public int length( ) {
+        return counters.length( );
+    }
+
+    @Override
+    public long get( int slot ) {
+        return counters.get( slot );
+    }
+
+    @Override
+    public void set( int slot , long value ) {
+        counters.set( slot , value );
+    }
+
+    @Override
+    public long incrementAndGet( int slot ) {
+        return counters.incrementAndGet( slot );
+    }
+}
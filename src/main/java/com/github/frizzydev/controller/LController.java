@@ -6,9 +6,13 @@ import net.java.games.input.Controller;
 import net.java.games.input.Event;
 import net.java.games.input.EventQueue;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Wraps a JInput Controller instance with a ControllerProfile to provide accurate information
@@ -22,6 +26,8 @@ import java.util.concurrent.TimeUnit;
  */
 public class LController {
 
+    final static Logger log = Logger.getLogger( LController.class.getName( ) );
+
     /**
      * The JInput controller instance.
      */
@@ -33,8 +39,16 @@ public class LController {
      * <br>
      * ControllerProfile information is manually created as JInput does not
      * always provide the correct information.
+     * <br>
+     * The profile can be replaced while the LController is polling, when its profile file changes.
+     */
+    private volatile ControllerProfile profile;
+
+    /**
+     * The name the usage of the controller is stored under. The controller name, unless another connected
+     * device has the same name.
      */
-    private final ControllerProfile profile;
+    private final String usageName;
 
     /**
      *
@@ -42,31 +56,106 @@ public class LController {
     private final LControllerPoller cPoller;
 
     /**
-     * The usage map contains the usage information of device buttons, keys, or axes.
-     * The String key is the name/title/letter of the button and the integer value is
-     * the number of uses of that specific action.
+     * The engine that polls this controller.
+     */
+    private final PollingEngine engine;
+
+    /**
+     * Maps each component of the controller to a fixed index, built once at construction.
+     */
+    private final ComponentSlotTable slots;
+
+    /**
+     * The usage counters of device buttons, keys, or axes, indexed by usage slot. See
+     * {@link ComponentSlotTable} for how identifier names are mapped to slots. These live on the heap
+     * unless a storage engine attaches its own, see {@link #attachUsageCounters(UsageCounters, Map)}.
+     */
+    private volatile UsageCounters usage;
+
+    /**
+     * The usage of every slot over time, in minute, hour and day buckets. Its memory is fixed when the
+     * controller is created.
+     */
+    private final UsageHistory history;
+
+    /**
+     * Filters the axis events before they are counted, see {@link AxisFilter}.
+     */
+    private final AxisFilter axisFilter;
+
+    /**
+     * True if the controller is polled by sampling its components instead of draining its event queue. Follows
+     * the poll mode of the profile unless set with setSampled ( ).
+     */
+    private volatile boolean sampled;
+
+    /**
+     * Usage loaded for identifier names this controller does not report. Kept so that it is written
+     * back out instead of being lost.
+     */
+    private volatile Map < String, Long > carriedUsage = Collections.emptyMap( );
+
+    /**
+     * Sequence counter guarding the usage counters. It is odd while a write is in progress and is advanced
+     * by two for every completed write, so readers can take a consistent copy without ever blocking the poller.
+     */
+    private final AtomicLong usageSequence = new AtomicLong( );
+
+    /**
+     * Serializes usage writers. The poller is normally the only writer, so this lock is uncontended.
+     */
+    private final Object usageWriteLock = new Object( );
+
+    /**
+     * The last snapshot taken, returned again as long as usage has not changed since.
      */
-    private Map < String, Integer > usageMap;
+    private volatile UsageSnapshot lastSnapshot;
 
     /**
      * @param c       The JInput Controller instance.
      * @param profile The profile loaded for the Controller.
      */
     public LController( Controller c , ControllerProfile profile ) {
+        this( c , profile , PollingEngine.getDefault( ) );
+    }
+
+    /**
+     * @param c       The JInput Controller instance.
+     * @param profile The profile loaded for the Controller.
+     * @param engine  The engine that will poll the Controller.
+     */
+    public LController( Controller c , ControllerProfile profile , PollingEngine engine ) {
+        this( c , profile , engine , c.getName( ) );
+    }
+
+    /**
+     * @param c         The JInput Controller instance.
+     * @param profile   The profile loaded for the Controller.
+     * @param engine    The engine that will poll the Controller.
+     * @param usageName The name the usage of the Controller is stored under. See {@link DeviceKey#usageName()}.
+     */
+    public LController( Controller c , ControllerProfile profile , PollingEngine engine , String usageName ) {
         this.controller = c;
         this.profile = profile;
+        this.usageName = usageName;
+        this.engine = engine;
+        this.slots = new ComponentSlotTable( c );
+        this.usage = new HeapUsageCounters( slots.slotCount( ) );
+        this.history = new UsageHistory( slots.slotCount( ) );
+        this.axisFilter = new AxisFilter( slots.size( ) , AxisFilter.Settings.DEFAULT );
+        this.sampled = profile != null && profile.isSampled( );
         this.cPoller = new LControllerPoller( c );
     }
 
     /**
-     *
+     * Registers this controller with its polling engine. Calling this while already polling does nothing.
      */
     public synchronized void startEventPolling ( ) {
         cPoller.startPolling();
     }
 
     /**
-     *
+     * Removes this controller from its polling engine.
      */
     public synchronized void stopEventPolling ( ) {
         cPoller.stopPolling();
@@ -77,10 +166,152 @@ public class LController {
     }
 
     /**
-     * Sets the usage map for this ControllerProfile.
+     * Returns false once a poll reported the device as no longer valid, usually because it was unplugged. Polling is
+     * stopped when that happens, and starting it again clears the flag.
+     */
+    public boolean isConnected( ) {
+        return cPoller.connected;
+    }
+
+    /**
+     * Returns the scheduler that controls how often this controller is polled. The rates can be changed
+     * while polling is running.
+     */
+    public final PollScheduler getPollScheduler( ) {
+        return cPoller.scheduler;
+    }
+
+    /**
+     * Sets the number of poll cycles per second while the controller is active and once it has backed off.
+     */
+    public void setPollRates( int targetRate , int idleRate ) {
+        cPoller.scheduler.setRates( targetRate , idleRate );
+    }
+
+    /**
+     * Returns the engine that polls this controller.
+     */
+    public final PollingEngine getPollingEngine( ) {
+        return engine;
+    }
+
+    /**
+     * Runs a single poll cycle. Only called by the polling engine, which guarantees a controller
+     * is never polled by two threads at once.
+     *
+     * @return Returns true if the controller reported at least one event.
+     */
+    boolean pollCycle( PollingEngine engine ) {
+        return cPoller.pollCycle( engine );
+    }
+
+    /**
+     * Sets the usage counters of this controller from the provided map. The String key is the
+     * name/title/letter of the button and the value is the number of uses of that specific action.
+     * Counters not present in the map are reset to zero.
+     */
+    public void setUsageMap( Map < String, Long > map ) {
+        Map < String, Long > carried = new LinkedHashMap <>( );
+
+        synchronized ( usageWriteLock ) {
+            usageSequence.incrementAndGet( );
+
+            try {
+                for ( int slot = 0; slot < usage.length( ); slot++ ) {
+                    usage.set( slot , 0L );
+                }
+
+                if ( map != null ) {
+                    for ( Map.Entry < String, Long > entry : map.entrySet( ) ) {
+                        long count = entry.getValue( ) != null ? entry.getValue( ) : 0L;
+                        int slot = slots.slotOf( entry.getKey( ) );
+
+                        if ( slot >= 0 ) {
+                            usage.set( slot , count );
+                        } else {
+                            carried.put( entry.getKey( ) , count );
+                        }
+                    }
+                }
+
+                this.carriedUsage = Collections.unmodifiableMap( carried );
+            } finally {
+                usageSequence.incrementAndGet( );
+            }
+        }
+    }
+
+    /**
+     * Replaces the usage counters of this controller with counters supplied by a storage engine. The attached
+     * counters become the source of truth, their current values are this controller's usage from now on.
+     *
+     * @param counters The counters, laid out in the order of {@link #getUsageSlotNames()}.
+     * @param carried  Usage for identifier names this controller does not report, kept so it is not lost.
+     */
+    public void attachUsageCounters( UsageCounters counters , Map < String, Long > carried ) {
+        if ( counters.length( ) != slots.slotCount( ) )
+            throw new IllegalArgumentException( "Expected " + slots.slotCount( ) + " counters, got " + counters.length( ) );
+
+        synchronized ( usageWriteLock ) {
+            usageSequence.incrementAndGet( );
+
+            try {
+                this.usage = counters;
+                this.carriedUsage = carried != null ? Collections.unmodifiableMap( new LinkedHashMap <>( carried ) ) : Collections.emptyMap( );
+            } finally {
+                usageSequence.incrementAndGet( );
+            }
+        }
+    }
+
+    /**
+     * Returns the usage counters of this controller.
+     */
+    public final UsageCounters getUsageCounters( ) {
+        return usage;
+    }
+
+    /**
+     * Returns the usage history of this controller, laid out in the order of {@link #getUsageSlotNames()}.
+     */
+    public final UsageHistory getUsageHistory( ) {
+        return history;
+    }
+
+    /**
+     * Returns the filter the axis events of this controller go through. Its settings can be changed while polling.
+     */
+    public final AxisFilter getAxisFilter( ) {
+        return axisFilter;
+    }
+
+    /**
+     * Returns the distance the axes with the provided identifier name have travelled since polling started, in axis
+     * units where full travel from -1 to 1 is 2.
+     */
+    public final double getAxisTravel( String identifierName ) {
+        int slot = slots.slotOf( identifierName );
+        double travel = 0d;
+
+        for ( int index = 0; slot >= 0 && index < slots.size( ); index++ ) {
+            if ( slots.slotAt( index ) == slot )
+                travel += axisFilter.getTravel( index );
+        }
+
+        return travel;
+    }
+
+    /**
+     * Returns the identifier name of every usage slot, in slot order.
      */
-    public void setUsageMap( Map < String, Integer > map ) {
-        this.usageMap = map;
+    public final String[] getUsageSlotNames( ) {
+        String[] names = new String[ slots.slotCount( ) ];
+
+        for ( int slot = 0; slot < names.length; slot++ ) {
+            names[ slot ] = slots.slotName( slot );
+        }
+
+        return names;
     }
 
     /**
@@ -97,6 +328,32 @@ public class LController {
         return profile;
     }
 
+    /**
+     * Replaces the ControllerProfile for the LController and switches to the poll mode of the new profile. Polling
+     * and usage are not otherwise affected.
+     *
+     * @param profile The new profile. Can be null if the profile was removed.
+     */
+    public final void setProfile( ControllerProfile profile ) {
+        this.profile = profile;
+        setSampled( profile != null && profile.isSampled( ) );
+    }
+
+    /**
+     * Returns true if the controller is polled by sampling its components instead of draining its event queue.
+     */
+    public final boolean isSampled( ) {
+        return sampled;
+    }
+
+    /**
+     * Sets whether the controller is polled by sampling its components instead of draining its event queue. Takes
+     * effect on the next poll cycle.
+     */
+    public final void setSampled( boolean sampled ) {
+        this.sampled = sampled;
+    }
+
     /**
      * Returns the name of the controller. This should always be specified.
      */
@@ -104,12 +361,21 @@ public class LController {
         return controller.getName( );
     }
 
+    /**
+     * Returns the name the usage of the controller is stored under. This is the controller name, unless another
+     * connected device has the same name.
+     */
+    public final String getUsageName( ) {
+        return usageName;
+    }
+
     /**
      * Returns the description of the device. This is only supplied by ControllerProfiles and
      * not JInput. If the profile is null, "Unavailable" will be returned.
      *
      */
     public final String getControllerDescription( ) {
+        ControllerProfile profile = this.profile;
         return profile != null ? profile.getDescription( ) : "Unavailable";
     }
 
@@ -118,6 +384,7 @@ public class LController {
      * not JInput. If the profile is null, "Unavailable" will be returned.
      */
     public final String getControllerManufacturer ( ) {
+        ControllerProfile profile = this.profile;
         return profile != null ? profile.getManufacturer() : "Unavailable";
     }
 
@@ -131,6 +398,7 @@ public class LController {
         String type = controller.getType( ).toString( );
 
         if ( controller.getType( ).toString( ).equals( "Unknown" ) ) {
+            ControllerProfile profile = this.profile;
             return profile != null ? profile.getName( ) : "Unknown";
         } else {
             return type;
@@ -144,6 +412,7 @@ public class LController {
         String type = controller.getPortType( ).toString( );
 
         if ( controller.getPortType().toString().equals( "Unknown" ) ) {
+            ControllerProfile profile = this.profile;
             return profile != null ? profile.getPortType() : "Unknown";
         } else {
             return type;
@@ -152,15 +421,84 @@ public class LController {
     }
 
     /**
-     * Returns the usage map of the device/controller.
+     * Returns the usage map of the device/controller. The map is a copy of the current {@link #snapshotUsage()},
+     * so it will not reflect later usage. Components that have never been used are left out.
+     */
+    public final Map < String, Long > getUsageMap( ) {
+        return new LinkedHashMap <>( snapshotUsage( ).getCounts( ) );
+    }
+
+    /**
+     * Returns the current usage version. It increases every time usage changes and can be compared with
+     * {@link UsageSnapshot#getVersion()} to check whether a snapshot is still current.
+     */
+    public final long getUsageVersion( ) {
+        return usageSequence.get( ) >>> 1;
+    }
+
+    /**
+     * Returns an immutable, consistent snapshot of the usage counters. Taking a snapshot never blocks
+     * the poller. If usage changes while the counters are being copied, the copy is simply retried.
+     * Snapshots are cached, so taking one while usage has not changed costs a single volatile read.
+     */
+    public final UsageSnapshot snapshotUsage( ) {
+        UsageSnapshot cached = lastSnapshot;
+
+        if ( cached != null && cached.getVersion( ) << 1 == usageSequence.get( ) )
+            return cached;
+
+        final long[] counts = new long[ usage.length( ) ];
+
+        while ( true ) {
+            final long before = usageSequence.get( );
+
+            if ( ( before & 1L ) != 0L ) {
+                Thread.onSpinWait( );
+                continue;
+            }
+
+            final UsageCounters counters = usage;
+
+            for ( int slot = 0; slot < counts.length; slot++ ) {
+                counts[ slot ] = counters.get( slot );
+            }
+
+            final Map < String, Long > carried = carriedUsage;
+
+            if ( usageSequence.get( ) == before ) {
+                Map < String, Long > map = new LinkedHashMap <>( carried );
+
+                for ( int slot = 0; slot < counts.length; slot++ ) {
+                    if ( counts[ slot ] != 0L ) {
+                        map.put( slots.slotName( slot ) , counts[ slot ] );
+                    }
+                }
+
+                UsageSnapshot snapshot = new UsageSnapshot( before >>> 1 , System.currentTimeMillis( ) , map );
+                lastSnapshot = snapshot;
+
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Returns the usage count of the provided identifier name.
      */
-    public final Map < String, Integer > getUsageMap( ) {
-        return usageMap;
+    public final long getUsage( String identifierName ) {
+        int slot = slots.slotOf( identifierName );
+
+        if ( slot < 0 ) {
+            Long carried = carriedUsage.get( identifierName );
+            return carried != null ? carried : 0L;
+        }
+
+        return usage.get( slot );
     }
 
 
     /**
-     * A class that launches a virtual thread to poll events on this LController.
+     * Holds the polling state of this LController. The polling itself is driven by the {@link PollingEngine}.
      *
      * @author FrizzyDev
      * @version 0.1
@@ -175,21 +513,76 @@ public class LController {
         private final Controller controller;
 
         /**
-         * Boolean flag determining if the virtual thread should
-         * continue polling the controller.
+         * Boolean flag determining if the controller is registered with the polling engine.
          */
         private volatile boolean polling = false;
 
+        /**
+         * False once a poll returned false. Set back on every start.
+         */
+        private volatile boolean connected = true;
+
+        /**
+         * Decides how long to wait between poll cycles.
+         */
+        private final PollScheduler scheduler;
+
+        /**
+         * The Event every queued event is drained into. Reused across cycles so draining does not allocate.
+         */
+        private final Event event = new Event( );
+
+        /**
+         * The value of the last event seen for each component, indexed by component index.
+         */
+        private final float[] lastValues;
+
+        /**
+         * The value of every component read by the current sampling cycle, indexed by component index.
+         */
+        private final float[] samples;
+
+        /**
+         * One bit per component, set for every component whose sampled value changed this cycle.
+         */
+        private final long[] changed;
+
+        /**
+         * True for every analog axis, whose sampled value only counts as changed once it moved by the axis filter's
+         * minimum delta.
+         */
+        private final boolean[] thresholded;
+
+        /**
+         * True once a sampling cycle has recorded the current value of every component. Cleared when the poll mode
+         * changes, so the values left by the other mode are never taken as changes.
+         */
+        private boolean primed = false;
+
         /**
          * Creates the LControllerPoller.
          */
         public LControllerPoller( final Controller controller ) {
             this.controller = controller;
+            this.scheduler = new PollScheduler( );
+            this.lastValues = new float[ slots.size( ) ];
+            this.samples = new float[ slots.size( ) ];
+            this.changed = new long[ ( slots.size( ) + 63 ) >>> 6 ];
+            this.thresholded = new boolean[ slots.size( ) ];
+
+            for ( int index = 0; index < thresholded.length; index++ ) {
+                Component component = slots.componentAt( index );
+                thresholded[ index ] = component.isAnalog( ) && component.getIdentifier( ) instanceof Component.Identifier.Axis;
+            }
+
+            /*
+             * NaN never compares equal, so the first event of every component is always processed.
+             */
+            Arrays.fill( lastValues , Float.NaN );
         }
 
         /**
-         *
-         * @return
+         * Returns true if the controller is registered with the polling engine.
          */
         public synchronized boolean isPolling ( ) {
             return polling;
@@ -198,44 +591,125 @@ public class LController {
         /**
          * Starts the polling process.
          */
-        public void startPolling( ) {
+        public synchronized void startPolling( ) {
+            if ( polling )
+                return;
+
             polling = true;
+            connected = true;
 
             System.out.println( "Starting polling for: " + controller.getName() );
 
-            Thread thread = Thread.ofVirtual( ).name( controller.getName() ).start( ( ) -> {
-                while ( polling ) {
-                    controller.poll( );
+            engine.register( LController.this );
+        }
 
-                    Event event = new Event( );
-                    Event previousEvent = new Event( );
-                    EventQueue queue = controller.getEventQueue( );
+        /**
+         * Polls the controller once and processes every change, either by draining its event queue or by sampling
+         * its components, see {@link #setSampled(boolean)}.
+         *
+         * @return Returns true if the controller reported at least one change. Returns false without processing
+         * anything if the poll failed, see {@link #isConnected()}.
+         */
+        private boolean pollCycle( PollingEngine engine ) {
+            if ( !controller.poll( ) ) {
+                connected = false;
+                return false;
+            }
+
+            return sampled ? sampleCycle( engine ) : drainCycle( engine );
+        }
 
-                    while ( queue.getNextEvent( event ) ) {
+        /**
+         * Processes every queued event.
+         *
+         * @return Returns true if the controller reported at least one event.
+         */
+        private boolean drainCycle( PollingEngine engine ) {
+            if ( primed )
+                primed = false;
 
-                        if ( event.getComponent( ).equals( previousEvent.getComponent( ) ) ) {
+            boolean hadEvents = false;
+            EventQueue queue = controller.getEventQueue( );
 
-                            final long eventMS = TimeUnit.NANOSECONDS.toMillis( event.getNanos( ) );
+            while ( queue.getNextEvent( event ) ) {
+                hadEvents = true;
+                engine.dispatch( LController.this , event );
 
-                            if ( eventMS != TimeUnit.NANOSECONDS.toMillis( previousEvent.getNanos( ) ) ) {
+                final int index = slots.indexOf( event.getComponent( ) );
 
-                                float pollData = event.getComponent( ).getPollData( );
+                if ( index < 0 ) {
+                    processPoll( controller , event , -1 , slots.slotOf( event.getComponent( ).getIdentifier( ).getName( ) ) );
+                    continue;
+                }
 
-                                if ( pollData != previousEvent.getComponent( ).getPollData( ) ) {
-                                    processPoll( controller , event );
-                                }
-                            }
-                        } else {
-                            processPoll( controller , event );
-                        }
+                /*
+                 * Devices can report the same state for a component more than once. Only a change in
+                 * value from the last event of the same component is processed.
+                 */
+                final float value = event.getValue( );
 
-                        Event prev = new Event( );
-                        prev.set( event.getComponent( ) , event.getValue( ) , event.getNanos( ) );
+                if ( value != lastValues[ index ] ) {
+                    lastValues[ index ] = value;
 
-                        previousEvent = prev;
-                    }
+                    processPoll( controller , event , index , slots.slotAt( index ) );
                 }
-            } );
+            }
+
+            return hadEvents;
+        }
+
+        /**
+         * Reads the current value of every component and processes the components whose value changed since the
+         * last cycle. Changes are collected into a bitset first and then processed in component order, so a cycle
+         * costs one read per component no matter how many events the device queued. A component pressed and
+         * released between two cycles is not seen.
+         *
+         * @return Returns true if at least one component changed.
+         */
+        private boolean sampleCycle( PollingEngine engine ) {
+            final int size = samples.length;
+            final long nanos = System.nanoTime( );
+
+            for ( int index = 0; index < size; index++ ) {
+                samples[ index ] = slots.componentAt( index ).getPollData( );
+            }
+
+            if ( !primed ) {
+                System.arraycopy( samples , 0 , lastValues , 0 , size );
+                primed = true;
+                return false;
+            }
+
+            final float minDelta = axisFilter.getSettings( ).minDelta( );
+            boolean hadChanges = false;
+
+            for ( int index = 0; index < size; index++ ) {
+                final float value = samples[ index ];
+                final float last = lastValues[ index ];
+
+                if ( thresholded[ index ] ? Math.abs( value - last ) >= minDelta : value != last ) {
+                    changed[ index >>> 6 ] |= 1L << index;
+                    hadChanges = true;
+                }
+            }
+
+            for ( int word = 0; word < changed.length; word++ ) {
+                long bits = changed[ word ];
+                changed[ word ] = 0L;
+
+                while ( bits != 0L ) {
+                    final int index = ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+                    bits &= bits - 1L;
+
+                    lastValues[ index ] = samples[ index ];
+
+                    event.set( slots.componentAt( index ) , samples[ index ] , nanos );
+                    engine.dispatch( LController.this , event );
+                    processPoll( controller , event , index , slots.slotAt( index ) );
+                }
+            }
+
+            return hadChanges;
         }
 
         /**
@@ -243,67 +717,64 @@ public class LController {
          */
         public synchronized void stopPolling( ) {
             polling = false;
+            engine.unregister( LController.this );
         }
 
         /**
          * Processes the poll event.
+         *
+         * @param index The component index of the event's component, or -1 if it is not in the slot table.
+         * @param slot  The usage slot of the event's component, or -1 if it does not have one.
          */
-        private void processPoll( Controller controller , Event event ) {
+        private void processPoll( Controller controller , Event event , int index , int slot ) {
+            if ( slot < 0 )
+                return;
+
             Component comp = event.getComponent( );
             Component.Identifier identifier = comp.getIdentifier( );
 
-            float pollData = comp.getPollData( );
+            float pollData = event.getValue( );
+
+            final boolean counted;
 
             if ( identifier instanceof Component.Identifier.Axis ) {
 
                 /*
-                 * For now, we are not handling axis events for steering wheels.
-                 * My theory is due to the high encoding resolutions of steering axes, it constantly
-                 * fluctuates a very small amount which sets off events constantly. In my testing, it
-                 * appears the poll data fluctuates between 3 and 4 consistent numbers.
-                 *
-                 * I also do not see the need to track wheel usage at the moment, as a full rotation to -1.0f
-                 * to 1.0f will likely seldom occur compared to other axis such as flight sticks, pedals, or handbrakes.
+                 * High resolution axes such as steering wheels and pedals fluctuate a small amount
+                 * constantly, so axis events go through the axis filter, which drops the jitter and
+                 * only reports a use once the axis completes a full-travel cycle to its positive
+                 * extreme. Components outside the slot table have no filter state and count only
+                 * when they report exactly 1.0f.
                  */
-                if ( controller.getType( ) != Controller.Type.WHEEL ) {
-                    if ( pollData == 1.0f ) {
-                        System.out.println( "Incrementing usage of: " + comp.getName( ) );
-                        System.out.println( "Component Identifier: " + comp.getIdentifier( ).toString( ) );
-                        System.out.println( "Poll Data: " + comp.getPollData( ) );
+                counted = index >= 0 ? axisFilter.accept( index , pollData , event.getNanos( ) ) : pollData == 1.0f;
+            } else if ( identifier instanceof Component.Identifier.Button || identifier instanceof Component.Identifier.Key ) {
+                counted = pollData == 0.0f;
+            } else {
+                counted = false;
+            }
 
-                        increment( identifier.getName() );
-                    }
-                }
-            } else if ( identifier instanceof Component.Identifier.Button ) {
-                if ( pollData == 0.0f ) {
-                    System.out.println( "Incrementing usage of: " + comp.getName( ) );
-                    System.out.println( "Component Identifier: " + comp.getIdentifier( ).toString( ) );
-                    System.out.println( "Poll Data: " + comp.getPollData( ) );
+            if ( counted ) {
 
-                    increment( identifier.getName() );
-                }
-            } else if ( identifier instanceof Component.Identifier.Key ) {
-                if ( pollData == 0.0f ) {
-                    System.out.println( "Incrementing usage of: " + comp.getName( ) );
-                    System.out.println( "Component Identifier: " + comp.getIdentifier( ).toString( ) );
-                    System.out.println( "Poll Data: " + comp.getPollData( ) );
+                /*
+                 * The message is only built when FINE is enabled, so counting a use never allocates.
+                 */
+                if ( log.isLoggable( Level.FINE ) )
+                    log.fine( "Incrementing usage of: " + comp.getName( ) + " (" + identifier + "), poll data: " + pollData );
 
-                    increment( identifier.getName() );
-                }
+                increment( slot );
             }
         }
     }
 
     /**
-     * Increments the usage count of the provided component identifier.
+     * Increments the usage count of the provided usage slot and counts the use in the usage history.
      */
-    private void increment ( String identifierName ) {
-        if ( usageMap == null ) {
-            usageMap = new HashMap <>();
+    private void increment ( int slot ) {
+        synchronized ( usageWriteLock ) {
+            usageSequence.incrementAndGet( );
+            usage.incrementAndGet( slot );
+            history.record( slot , System.currentTimeMillis( ) );
+            usageSequence.incrementAndGet( );
         }
-
-        int currentValue = usageMap.getOrDefault( identifierName , 0 );
-
-        usageMap.put( identifierName , ++currentValue );
     }
 }
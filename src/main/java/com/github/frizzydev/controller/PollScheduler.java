@@ -0,0 +1,151 @@
+package com.github.frizzydev.controller;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how long a device poller should wait between poll cycles. A device is polled at its target rate
+ * while it is producing events. Once a configurable number of empty cycles happen in a row, the interval is
+ * doubled on every further empty cycle until the idle rate is reached. The first cycle that produces an event
+ * ramps the interval straight back to the target rate.
+ * <br>
+ * JInput buffers events in the controller's EventQueue between polls, so backing off only adds latency
+ * to the first event after an idle period, it does not lose usage. Sampled devices only see the state at each
+ * poll, so a press and release between two polls would be lost. They are never backed off and always
+ * polled at the target rate, see {@link LController#isSampled()}.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public class PollScheduler {
+
+    /**
+     * The default number of poll cycles per second while a device is active.
+     */
+    public static final int DEFAULT_TARGET_RATE = 125;
+
+    /**
+     * The default number of poll cycles per second once a device has fully backed off.
+     */
+    public static final int DEFAULT_IDLE_RATE = 10;
+
+    /**
+     * The default number of empty cycles in a row before the poller starts backing off.
+     */
+    public static final int DEFAULT_IDLE_CYCLES = 64;
+
+    /**
+     * The interval between cycles while the device is active.
+     */
+    private volatile long targetIntervalNanos;
+
+    /**
+     * The longest interval the poller will back off to.
+     */
+    private volatile long idleIntervalNanos;
+
+    /**
+     * The number of empty cycles in a row before backing off.
+     */
+    private volatile int idleCyclesBeforeBackoff;
+
+    /**
+     * The interval currently in use. Only touched by the polling thread.
+     */
+    private long currentIntervalNanos;
+
+    /**
+     * The number of empty cycles in a row. Only touched by the polling thread.
+     */
+    private int emptyCycles;
+
+    /**
+     * Creates a PollScheduler with the default rates.
+     */
+    public PollScheduler( ) {
+        this( DEFAULT_TARGET_RATE , DEFAULT_IDLE_RATE , DEFAULT_IDLE_CYCLES );
+    }
+
+    /**
+     * @param targetRate             The number of poll cycles per second while the device is active.
+     * @param idleRate               The number of poll cycles per second once the device has fully backed off.
+     * @param idleCyclesBeforeBackoff The number of empty cycles in a row before backing off.
+     */
+    public PollScheduler( int targetRate , int idleRate , int idleCyclesBeforeBackoff ) {
+        setRates( targetRate , idleRate );
+        setIdleCyclesBeforeBackoff( idleCyclesBeforeBackoff );
+        this.currentIntervalNanos = targetIntervalNanos;
+    }
+
+    /**
+     * Sets the active and idle poll rates, in cycles per second. The idle rate is clamped so it is never
+     * faster than the target rate.
+     */
+    public void setRates( int targetRate , int idleRate ) {
+        if ( targetRate <= 0 || idleRate <= 0 )
+            throw new IllegalArgumentException( "Poll rates must be positive." );
+
+        this.targetIntervalNanos = TimeUnit.SECONDS.toNanos( 1 ) / targetRate;
+        this.idleIntervalNanos = Math.max( targetIntervalNanos , TimeUnit.SECONDS.toNanos( 1 ) / idleRate );
+    }
+
+    /**
+     * Sets the number of empty cycles in a row before the poller starts backing off.
+     */
+    public void setIdleCyclesBeforeBackoff( int idleCyclesBeforeBackoff ) {
+        if ( idleCyclesBeforeBackoff < 0 )
+            throw new IllegalArgumentException( "Idle cycles must not be negative." );
+
+        this.idleCyclesBeforeBackoff = idleCyclesBeforeBackoff;
+    }
+
+    /**
+     * Returns the target poll rate in cycles per second.
+     */
+    public int getTargetRate( ) {
+        return ( int ) ( TimeUnit.SECONDS.toNanos( 1 ) / targetIntervalNanos );
+    }
+
+    /**
+     * Returns the idle poll rate in cycles per second.
+     */
+    public int getIdleRate( ) {
+        return ( int ) ( TimeUnit.SECONDS.toNanos( 1 ) / idleIntervalNanos );
+    }
+
+    /**
+     * Returns the interval currently in use, in nanoseconds.
+     */
+    public long getCurrentIntervalNanos( ) {
+        return currentIntervalNanos;
+    }
+
+    /**
+     * Records the outcome of a poll cycle and returns how long to wait before the next one, in nanoseconds.
+     *
+     * @param hadEvents True if the cycle that just finished produced at least one event.
+     */
+    public long nextInterval( boolean hadEvents ) {
+        final long target = targetIntervalNanos;
+
+        if ( hadEvents ) {
+            emptyCycles = 0;
+            currentIntervalNanos = target;
+        } else if ( emptyCycles < idleCyclesBeforeBackoff ) {
+            emptyCycles++;
+            currentIntervalNanos = Math.max( currentIntervalNanos , target );
+        } else {
+            currentIntervalNanos = Math.min( Math.max( currentIntervalNanos , target ) * 2 , idleIntervalNanos );
+        }
+
+        return currentIntervalNanos;
+    }
+
+    /**
+     * Drops back to the target rate, as if an event had just been seen.
+     */
+    public void reset( ) {
+        emptyCycles = 0;
+        currentIntervalNanos = targetIntervalNanos;
+    }
+}
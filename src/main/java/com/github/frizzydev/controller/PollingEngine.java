@@ -0,0 +1,395 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Event;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A single polling engine shared by every LController. Registered controllers are polled on a small, fixed pool
+ * of carrier threads. Each controller keeps its own deadline, driven by its {@link PollScheduler}, and the
+ * carriers always poll whichever controller is due next. This keeps CPU use predictable no matter how many
+ * devices are attached, and there are no per-device threads left behind when polling stops.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public class PollingEngine {
+
+    final static Logger log = Logger.getLogger( PollingEngine.class.getName( ) );
+
+    /**
+     * The default number of carrier threads.
+     */
+    public static final int DEFAULT_CARRIERS = Math.max( 1 , Math.min( 2 , Runtime.getRuntime( ).availableProcessors( ) / 2 ) );
+
+    /**
+     * The engine used by LControllers that were not given one explicitly.
+     */
+    private static PollingEngine defaultEngine;
+
+    /**
+     * The carrier pool. Its delay queue doubles as the per-device deadline queue.
+     */
+    private final ScheduledThreadPoolExecutor carriers;
+
+    /**
+     * The registration for every controller being polled, and for every unregistered controller whose last poll
+     * cycle has not exited yet.
+     */
+    private final Map < LController, Registration > registrations;
+
+    /**
+     * Consumers that are handed every event drained from a registered controller. Replaced as a whole
+     * when consumers are added or removed so the poll cycle can iterate it without locking.
+     */
+    private volatile EventConsumer[] consumers = new EventConsumer[ 0 ];
+
+    /**
+     * Creates a PollingEngine with {@link #DEFAULT_CARRIERS} carrier threads.
+     */
+    public PollingEngine( ) {
+        this( DEFAULT_CARRIERS );
+    }
+
+    /**
+     * @param carrierCount The number of carrier threads that poll the registered controllers.
+     */
+    public PollingEngine( int carrierCount ) {
+        if ( carrierCount <= 0 )
+            throw new IllegalArgumentException( "The carrier count must be positive." );
+
+        this.carriers = new ScheduledThreadPoolExecutor( carrierCount , new CarrierFactory( ) );
+        this.carriers.setRemoveOnCancelPolicy( true );
+        this.registrations = new ConcurrentHashMap <>( );
+    }
+
+    /**
+     * Returns the engine shared by every LController that was not given one explicitly.
+     */
+    public static synchronized PollingEngine getDefault( ) {
+        if ( defaultEngine == null ) {
+            defaultEngine = new PollingEngine( );
+        }
+
+        return defaultEngine;
+    }
+
+    /**
+     * Starts polling the provided controller. Registering a controller that is already registered does nothing.
+     * <br>
+     * If the controller was unregistered but its last poll cycle is still running or scheduled, that registration
+     * is resumed instead of a new one being started, so a controller is never polled by two carriers at once.
+     *
+     * @return Returns true if the controller was registered by this call.
+     */
+    public boolean register( LController lController ) {
+        while ( true ) {
+            Registration existing = registrations.get( lController );
+
+            if ( existing != null ) {
+                if ( existing.resume( ) )
+                    return true;
+
+                if ( !existing.isFinished( ) )
+                    return false;
+
+                registrations.remove( lController , existing );
+                continue;
+            }
+
+            Registration registration = new Registration( lController );
+
+            if ( registrations.putIfAbsent( lController , registration ) != null )
+                continue;
+
+            try {
+                carriers.execute( registration );
+            } catch ( RejectedExecutionException e ) {
+                registration.finish( );
+                log.log( Level.SEVERE , "Polling engine has been shut down." , e );
+                return false;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Stops polling the provided controller. A poll cycle that is already running is allowed to finish.
+     *
+     * @return Returns true if the controller was registered.
+     */
+    public boolean unregister( LController lController ) {
+        Registration registration = registrations.get( lController );
+        return registration != null && registration.cancel( );
+    }
+
+    /**
+     * Returns true if the provided controller is being polled by this engine.
+     */
+    public boolean isRegistered( LController lController ) {
+        Registration registration = registrations.get( lController );
+        return registration != null && registration.isActive( );
+    }
+
+    /**
+     * Returns the number of controllers being polled by this engine.
+     */
+    public int getRegisteredCount( ) {
+        int count = 0;
+
+        for ( Registration registration : registrations.values( ) ) {
+            if ( registration.isActive( ) )
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Sets the active and idle poll rates of every registered controller.
+     */
+    public void setRates( int targetRate , int idleRate ) {
+        for ( LController lController : registrations.keySet( ) ) {
+            lController.setPollRates( targetRate , idleRate );
+        }
+    }
+
+    /**
+     * Adds a consumer that will be handed every event drained from a registered controller.
+     */
+    public synchronized void addEventConsumer( EventConsumer consumer ) {
+        EventConsumer[] current = consumers;
+        EventConsumer[] updated = Arrays.copyOf( current , current.length + 1 );
+        updated[ current.length ] = consumer;
+        consumers = updated;
+    }
+
+    /**
+     * Removes a consumer previously added with {@link #addEventConsumer(EventConsumer)}.
+     */
+    public synchronized void removeEventConsumer( EventConsumer consumer ) {
+        EventConsumer[] current = consumers;
+
+        for ( int i = 0; i < current.length; i++ ) {
+            if ( current[ i ] == consumer ) {
+                EventConsumer[] updated = new EventConsumer[ current.length - 1 ];
+                System.arraycopy( current , 0 , updated , 0 , i );
+                System.arraycopy( current , i + 1 , updated , i , current.length - i - 1 );
+                consumers = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops polling every controller and shuts the carrier threads down.
+     */
+    public void shutdown( ) {
+        for ( LController lController : registrations.keySet( ) ) {
+            lController.stopEventPolling( );
+        }
+
+        carriers.shutdownNow( );
+    }
+
+    /**
+     * Hands an event to every consumer. Called from the carrier thread that is polling the controller.
+     */
+    void dispatch( LController lController , Event event ) {
+        for ( EventConsumer consumer : consumers ) {
+            try {
+                consumer.accept( lController , event );
+            } catch ( RuntimeException e ) {
+                log.log( Level.WARNING , "Event consumer failed." , e );
+            }
+        }
+    }
+
+    /**
+     * Records the outcome of a poll cycle of the provided controller and returns how long to wait before its next
+     * one, in nanoseconds. Sampled controllers are kept at the target rate, since backing them off would lose short
+     * presses.
+     *
+     * @param hadEvents True if the cycle that just finished produced at least one event.
+     */
+    static long nextInterval( LController lController , boolean hadEvents ) {
+        return lController.getPollScheduler( ).nextInterval( hadEvents || lController.isSampled( ) );
+    }
+
+    /**
+     * Receives events drained from registered controllers. Consumers run on a carrier thread and should return
+     * quickly. The Event instance is reused by the engine, so copy anything that is needed after returning.
+     */
+    @FunctionalInterface
+    public interface EventConsumer {
+
+        void accept( LController controller , Event event );
+    }
+
+    /**
+     * The polling state of a single registered controller. Each run polls the controller once and then schedules
+     * itself again for the controller's next deadline, so a controller is never polled by two carriers at once.
+     * <br>
+     * A registration stays in the registrations map until its task has exited. Cancelling only marks it, and the
+     * task exits on its next run unless the controller was registered again in the meantime, in which case the
+     * same task carries on. The scheduler is reset on the carrier thread by the first run after every start.
+     */
+    private final class Registration implements Runnable {
+
+        private final LController lController;
+
+        /**
+         * True once the controller was unregistered. Guarded by this.
+         */
+        private boolean cancelled = false;
+
+        /**
+         * True once the task has exited and will never run again. Guarded by this.
+         */
+        private boolean finished = false;
+
+        /**
+         * Set on every start, so the next run resets the scheduler and the deadline on the carrier thread.
+         */
+        private volatile boolean resetPending = true;
+
+        /**
+         * Only touched by the carrier running this registration.
+         */
+        private long deadline;
+
+        private Registration( LController lController ) {
+            this.lController = lController;
+        }
+
+        /**
+         * Marks the registration as cancelled.
+         *
+         * @return Returns true if it was active.
+         */
+        private synchronized boolean cancel( ) {
+            if ( cancelled || finished )
+                return false;
+
+            cancelled = true;
+            return true;
+        }
+
+        /**
+         * Clears the cancellation of a registration whose task has not exited yet.
+         *
+         * @return Returns true if the registration was cancelled and is active again.
+         */
+        private synchronized boolean resume( ) {
+            if ( !cancelled || finished )
+                return false;
+
+            cancelled = false;
+            resetPending = true;
+            return true;
+        }
+
+        private synchronized boolean isActive( ) {
+            return !cancelled && !finished;
+        }
+
+        private synchronized boolean isFinished( ) {
+            return finished;
+        }
+
+        /**
+         * Exits the task if the registration is cancelled.
+         *
+         * @return Returns true if the task must not run again.
+         */
+        private synchronized boolean finishIfCancelled( ) {
+            if ( cancelled )
+                finish( );
+
+            return finished;
+        }
+
+        /**
+         * Exits the task and removes the registration.
+         */
+        private synchronized void finish( ) {
+            finished = true;
+            registrations.remove( lController , this );
+        }
+
+        @Override
+        public void run( ) {
+            if ( finishIfCancelled( ) )
+                return;
+
+            if ( resetPending ) {
+                resetPending = false;
+                lController.getPollScheduler( ).reset( );
+                deadline = System.nanoTime( );
+            }
+
+            boolean hadEvents = false;
+
+            try {
+                hadEvents = lController.pollCycle( PollingEngine.this );
+            } catch ( RuntimeException e ) {
+                log.log( Level.SEVERE , "Polling failed for: " + lController.getControllerName( ) , e );
+                lController.stopEventPolling( );
+            }
+
+            /*
+             * A device that fails to poll is gone, polling it again would only fail again.
+             */
+            if ( !lController.isConnected( ) ) {
+                log.log( Level.WARNING , "Device disconnected, stopped polling: " + lController.getControllerName( ) );
+                lController.stopEventPolling( );
+            }
+
+            if ( finishIfCancelled( ) )
+                return;
+
+            /*
+             * Deadlines advance from the previous deadline so the cycle itself does not slow the rate.
+             * If we fell behind, the schedule restarts from now instead of trying to catch up.
+             */
+            final long now = System.nanoTime( );
+            deadline += nextInterval( lController , hadEvents );
+
+            if ( deadline - now < 0 )
+                deadline = now;
+
+            try {
+                carriers.schedule( this , deadline - now , TimeUnit.NANOSECONDS );
+            } catch ( RejectedExecutionException e ) {
+                finish( );
+            }
+        }
+    }
+
+    /**
+     * Creates the named daemon carrier threads.
+     */
+    private static final class CarrierFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger( );
+
+        @Override
+        public Thread newThread( Runnable r ) {
+            return Thread.ofPlatform( )
+                    .name( "LController-Poller-" + count.incrementAndGet( ) )
+                    .daemon( true )
+                    .unstarted( r );
+        }
+    }
+}
@@ -15,6 +15,17 @@ import java.util.Map;
  */
 public class ControllerProfile {
 
+    /**
+     * The poll mode that drains the JInput event queue of the device every poll cycle. This is the default.
+     */
+    public static final String POLL_EVENTS = "Events";
+
+    /**
+     * The poll mode that reads the current value of every component each poll cycle and compares it with the
+     * previous cycle, for devices that report a very large number of events.
+     */
+    public static final String POLL_SAMPLING = "Sampling";
+
     /**
      * The name of the device/controller.
      */
@@ -45,7 +56,12 @@ public class ControllerProfile {
     @SerializedName( "DevicePortType" )
     private final String portType;
 
-
+    /**
+     * How the device/controller is polled, see {@link #POLL_EVENTS} and {@link #POLL_SAMPLING}. Optional, profiles
+     * without it are polled through the event queue.
+     */
+    @SerializedName( "PollMode" )
+    private final String pollMode;
 
     /**
      * @param name The name of the device/controller.
@@ -55,11 +71,24 @@ public class ControllerProfile {
      * @param portType The port type the device/controller is connected through. See {@link net.java.games.input.Controller.PortType} for what is supplied by JInput.
      */
     public ControllerProfile( final String name , final String description , final String manufacturer, final String type , final String portType ) {
+        this( name , description , manufacturer , type , portType , null );
+    }
+
+    /**
+     * @param name The name of the device/controller.
+     * @param description The description of the device/controller. JInput does not supply this, this is supplied via the profile system.
+     * @param manufacturer The manufacturer of the device/controller.
+     * @param type The type of device/controller. See {@link net.java.games.input.Controller.Type} for what is supplied by JInput.
+     * @param portType The port type the device/controller is connected through. See {@link net.java.games.input.Controller.PortType} for what is supplied by JInput.
+     * @param pollMode How the device/controller is polled, {@link #POLL_EVENTS} or {@link #POLL_SAMPLING}. Can be null.
+     */
+    public ControllerProfile( final String name , final String description , final String manufacturer, final String type , final String portType , final String pollMode ) {
         this.name = name;
         this.description = description;
         this.manufacturer = manufacturer;
         this.type = type;
-        this.portType = type;
+        this.portType = portType;
+        this.pollMode = pollMode;
     }
     /**
      * Return the name of the controller.
@@ -95,4 +124,18 @@ public class ControllerProfile {
     public final String getPortType( ) {
         return portType;
     }
+
+    /**
+     * Returns how the device is polled, or null if the profile does not say.
+     */
+    public final String getPollMode( ) {
+        return pollMode;
+    }
+
+    /**
+     * Returns true if the device should be polled by sampling its components instead of draining its event queue.
+     */
+    public final boolean isSampled( ) {
+        return POLL_SAMPLING.equalsIgnoreCase( pollMode );
+    }
 }
@@ -0,0 +1,169 @@
+package com.github.frizzydev.controller.Profiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A list of every profile file in a profile pack with the SHA-256 of its contents, used to update the profiles
+ * folder one profile at a time instead of downloading the whole pack.
+ * <br>
+ * A manifest is plain text with one profile per line, the hash in hex followed by whitespace and the file name,
+ * the same layout sha256sum writes. Blank lines and lines starting with # are ignored. File names can not name a
+ * folder, so a manifest can only ever touch files directly inside the profiles folder.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class ProfileManifest {
+
+    private static final Logger log = Logger.getLogger( ProfileManifest.class.getName( ) );
+
+    /**
+     * File name to the SHA-256 of its contents, in hex.
+     */
+    private final Map < String, String > hashes;
+
+    private ProfileManifest( Map < String, String > hashes ) {
+        this.hashes = Collections.unmodifiableMap( hashes );
+    }
+
+    /**
+     * Returns a manifest without any profiles.
+     */
+    public static ProfileManifest empty( ) {
+        return new ProfileManifest( new LinkedHashMap <>( ) );
+    }
+
+    /**
+     * Parses a manifest. Lines that are malformed or name a file outside the profiles folder are reported and skipped.
+     */
+    public static ProfileManifest parse( String text ) {
+        Map < String, String > hashes = new LinkedHashMap <>( );
+
+        for ( String line : text.split( "\\R" ) ) {
+            line = line.strip( );
+
+            if ( line.isEmpty( ) || line.startsWith( "#" ) )
+                continue;
+
+            String[] parts = line.split( "\\s+\\*?" , 2 );
+
+            if ( parts.length != 2 || parts[ 0 ].length( ) != 64 || !parts[ 0 ].chars( ).allMatch( HexFormat::isHexDigit ) || !isValidName( parts[ 1 ] ) ) {
+                log.log( Level.WARNING , "Skipping malformed manifest line: " + line );
+                continue;
+            }
+
+            hashes.put( parts[ 1 ] , parts[ 0 ].toLowerCase( ) );
+        }
+
+        return new ProfileManifest( hashes );
+    }
+
+    /**
+     * Reads the manifest at the provided path.
+     *
+     * @return Returns the manifest, or an empty manifest if there is no file at the path.
+     */
+    public static ProfileManifest read( Path path ) throws IOException {
+        try {
+            return parse( Files.readString( path , StandardCharsets.UTF_8 ) );
+        } catch ( NoSuchFileException e ) {
+            return empty( );
+        }
+    }
+
+    /**
+     * Writes the manifest to the provided path. The manifest is written next to the target and moved over it, so a
+     * crash leaves either the old manifest or the new one.
+     */
+    public void write( Path path ) throws IOException {
+        StringBuilder text = new StringBuilder( );
+
+        for ( Map.Entry < String, String > entry : hashes.entrySet( ) ) {
+            text.append( entry.getValue( ) ).append( "  " ).append( entry.getKey( ) ).append( '\n' );
+        }
+
+        Path temp = path.resolveSibling( path.getFileName( ) + ".tmp" );
+        Files.writeString( temp , text , StandardCharsets.UTF_8 );
+        Files.move( temp , path , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    /**
+     * Returns the hash of the provided file name, or null if the manifest does not list it.
+     */
+    public String hashOf( String name ) {
+        return hashes.get( name );
+    }
+
+    /**
+     * Returns the name of every file in the manifest.
+     */
+    public Set < String > names( ) {
+        return hashes.keySet( );
+    }
+
+    /**
+     * Returns the SHA-256 of the provided file's contents, in hex.
+     */
+    public static String sha256Of( Path file ) throws IOException {
+        MessageDigest digest = newDigest( );
+
+        try ( InputStream in = Files.newInputStream( file ) ) {
+            byte[] buffer = new byte[ 8192 ];
+            int read;
+
+            while ( ( read = in.read( buffer ) ) != -1 ) {
+                digest.update( buffer , 0 , read );
+            }
+        }
+
+        return HexFormat.of( ).formatHex( digest.digest( ) );
+    }
+
+    /**
+     * Returns a new SHA-256 digest.
+     */
+    static MessageDigest newDigest( ) {
+        try {
+            return MessageDigest.getInstance( "SHA-256" );
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( "SHA-256 is not available." , e );
+        }
+    }
+
+    /**
+     * Returns true if the provided file name names a file directly inside the profiles folder.
+     */
+    private static boolean isValidName( String name ) {
+        return !name.isBlank( ) && !name.equals( "." ) && !name.equals( ".." ) && name.chars( ).noneMatch( c -> c == '/' || c == '\\' || c == ':' || c < 0x20 );
+    }
+
+    /**
+     * The profile files an update added, changed and removed.
+     */
+    public record Delta( List < String > added , List < String > changed , List < String > removed ) {
+
+        /**
+         * Returns true if the update did not touch any profile file.
+         */
+        public boolean isEmpty( ) {
+            return added.isEmpty( ) && changed.isEmpty( ) && removed.isEmpty( );
+        }
+    }
+}
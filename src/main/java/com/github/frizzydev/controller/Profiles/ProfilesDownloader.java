@@ -1,24 +1,445 @@
 package com.github.frizzydev.controller.Profiles;
 
+import com.github.frizzydev.App.ProjectLifecycle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
 /**
+ * Downloads the Profiles.zip file used by Project Lifecycle.
+ * <br>
+ * Downloads are conditional. The ETag and Last-Modified of the last download are kept in a sidecar file next to
+ * the zip file, so an unchanged profile pack costs a single 304 response. The body is streamed into a .part file,
+ * and an interrupted download is resumed with a range request, guarded by If-Range so a pack that changed in the
+ * meantime is downloaded from the start instead. The finished zip file is moved into place in one step, and is
+ * read by the profile catalog as it is, without being extracted.
+ * <br>
+ * Once a pack is installed, it can also be kept up to date one profile at a time through a {@link ProfileManifest},
+ * see {@link #updateProfiles(URI, String)}.
+ *
  * @author FrizzyDev
  * @version 0.1
  * @since 0.1
  */
 public class ProfilesDownloader {
 
+    private static final Logger log = Logger.getLogger( ProfilesDownloader.class.getName( ) );
+
+    /**
+     * Where the profile pack is downloaded from unless the profiles-url preference says otherwise.
+     */
+    public static final String DEFAULT_URL = "https://github.com/FrizzyDev/ProjectLifecycle/releases/latest/download/Profiles.zip";
+
+    /**
+     * The file name of the downloaded zip file.
+     */
+    public static final String FILE_NAME = "Profiles.zip";
+
+    /**
+     * Where the profile manifest is downloaded from unless the profiles-manifest-url preference says otherwise.
+     * Profile files are downloaded from next to the manifest.
+     */
+    public static final String DEFAULT_MANIFEST_URL = "https://github.com/FrizzyDev/ProjectLifecycle/releases/latest/download/Profiles.manifest";
+
+    /**
+     * The file name of the last applied manifest, kept next to the profiles folder.
+     */
+    public static final String MANIFEST_NAME = "Profiles.manifest";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String VALIDATORS_SUFFIX = ".validators";
+
+    /**
+     * Where the profile pack is downloaded from.
+     */
+    private final URI uri;
+
+    /**
+     * The client the profile pack is downloaded with.
+     */
+    private final HttpClient client;
+
+    /**
+     * The status of the last response.
+     */
+    private volatile int lastStatus;
+
     public ProfilesDownloader( ) {
+        this( URI.create( Preferences.userNodeForPackage( ProjectLifecycle.class ).get( "profiles-url" , DEFAULT_URL ) ) );
+    }
+
+    /**
+     * @param uri Where the profile pack is downloaded from.
+     */
+    public ProfilesDownloader( URI uri ) {
+        this( uri , HttpClient.newBuilder( )
+                .followRedirects( HttpClient.Redirect.NORMAL )
+                .connectTimeout( Duration.ofSeconds( 10 ) )
+                .build( ) );
+    }
 
+    /**
+     * @param uri    Where the profile pack is downloaded from.
+     * @param client The client the profile pack is downloaded with.
+     */
+    public ProfilesDownloader( URI uri , HttpClient client ) {
+        this.uri = uri;
+        this.client = client;
     }
 
     /**
-     * Downloads the Profiles.zip file used by Project Lifecycle.
+     * Downloads the Profiles.zip file used by Project Lifecycle. If the zip file in the save path is already up to
+     * date, nothing is downloaded.
      *
      * @param savePath Where the zip file should be saved to.
      * @return Returns the path of the downloaded zip file, or "Failed" if this process failed.
      */
     public String download ( String savePath ) {
+        Path target = Path.of( savePath , FILE_NAME );
+        Path part = Path.of( savePath , FILE_NAME + PART_SUFFIX );
+        Path validatorsFile = Path.of( savePath , FILE_NAME + VALIDATORS_SUFFIX );
+
+        try {
+            Properties validators = readValidators( validatorsFile );
+
+            /*
+             * A range the server cannot satisfy means the part file is unusable, so the download starts over once.
+             */
+            for ( int attempt = 0; attempt < 2; attempt++ ) {
+                HttpResponse< Path > response = client.send( buildRequest( target , part , validators ) ,
+                        info -> subscriberFor( info , part , validators , validatorsFile ) );
+                lastStatus = response.statusCode( );
+
+                switch ( response.statusCode( ) ) {
+                    case 304 -> {
+                        return target.toString( );
+                    }
+                    case 200 , 206 -> {
+                        if ( response.body( ) == null ) {
+                            Files.deleteIfExists( part );
+                            validators.remove( "part-etag" );
+                            validators.remove( "part-last-modified" );
+                            continue;
+                        }
+
+                        Files.move( part , target , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+                        validators.setProperty( "etag" , validators.getProperty( "part-etag" , "" ) );
+                        validators.setProperty( "last-modified" , validators.getProperty( "part-last-modified" , "" ) );
+                        validators.remove( "part-etag" );
+                        validators.remove( "part-last-modified" );
+                        writeValidators( validators , validatorsFile );
+                        return target.toString( );
+                    }
+                    case 416 -> {
+                        Files.deleteIfExists( part );
+                        validators.remove( "part-etag" );
+                        validators.remove( "part-last-modified" );
+                    }
+                    default -> {
+                        log.log( Level.SEVERE , "Profile download failed with status " + response.statusCode( ) + ": " + uri );
+                        return "Failed";
+                    }
+                }
+            }
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE , "Profile download failed, it will resume on the next attempt: " + uri , e );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread( ).interrupt( );
+        }
 
         return "Failed";
     }
+
+    /**
+     * Updates the profiles folder to the manifest at the manifest url from the profiles-manifest-url preference.
+     * See {@link #updateProfiles(URI, String)}.
+     */
+    public ProfileManifest.Delta updateProfiles( String profilesPath ) {
+        return updateProfiles( URI.create( Preferences.userNodeForPackage( ProjectLifecycle.class ).get( "profiles-manifest-url" , DEFAULT_MANIFEST_URL ) ) , profilesPath );
+    }
+
+    /**
+     * Updates the profiles folder to the manifest at the provided url, downloading only the profile files that were
+     * added or changed since the last applied manifest and deleting the ones it no longer lists. Profile files are
+     * downloaded from next to the manifest and checked against their hash. Nothing in the profiles folder changes
+     * unless every changed profile downloaded, so a failed update is simply retried in full the next time.
+     * <br>
+     * The manifest is requested conditionally, so an unchanged manifest costs a single 304 response.
+     *
+     * @param manifestUri  Where the manifest is downloaded from.
+     * @param profilesPath The profiles folder.
+     * @return Returns the files that were added, changed and removed, or null if the update failed.
+     */
+    public ProfileManifest.Delta updateProfiles( URI manifestUri , String profilesPath ) {
+        Path folder = Path.of( profilesPath ).toAbsolutePath( );
+        Path manifestFile = folder.resolveSibling( MANIFEST_NAME );
+        Path validatorsFile = folder.resolveSibling( MANIFEST_NAME + VALIDATORS_SUFFIX );
+        Path staging = folder.resolveSibling( folder.getFileName( ) + ".update" );
+        ProfileManifest.Delta unchanged = new ProfileManifest.Delta( List.of( ) , List.of( ) , List.of( ) );
+
+        try {
+            Properties validators = readValidators( validatorsFile );
+            HttpRequest.Builder request = HttpRequest.newBuilder( manifestUri ).GET( );
+
+            if ( Files.exists( manifestFile ) && !validators.getProperty( "etag" , "" ).isEmpty( ) )
+                request.header( "If-None-Match" , validators.getProperty( "etag" ) );
+
+            HttpResponse< String > response = client.send( request.build( ) , HttpResponse.BodyHandlers.ofString( StandardCharsets.UTF_8 ) );
+            lastStatus = response.statusCode( );
+
+            if ( response.statusCode( ) == 304 )
+                return unchanged;
+
+            if ( response.statusCode( ) != 200 ) {
+                log.log( Level.SEVERE , "Profile manifest download failed with status " + response.statusCode( ) + ": " + manifestUri );
+                return null;
+            }
+
+            ProfileManifest manifest = ProfileManifest.parse( response.body( ) );
+            ProfileManifest previous = ProfileManifest.read( manifestFile );
+            List< String > added = new ArrayList<>( );
+            List< String > changed = new ArrayList<>( );
+            List< String > removed = new ArrayList<>( );
+
+            for ( String name : manifest.names( ) ) {
+                Path file = folder.resolve( name );
+                String hash = manifest.hashOf( name );
+
+                if ( !Files.exists( file ) )
+                    added.add( name );
+                else if ( !hash.equals( previous.hashOf( name ) ) && !hash.equals( ProfileManifest.sha256Of( file ) ) )
+                    changed.add( name );
+            }
+
+            for ( String name : previous.names( ) ) {
+                if ( manifest.hashOf( name ) == null && Files.exists( folder.resolve( name ) ) )
+                    removed.add( name );
+            }
+
+            List< String > downloads = new ArrayList<>( added );
+            downloads.addAll( changed );
+            downloadProfiles( manifestUri , manifest , downloads , staging );
+
+            Files.createDirectories( folder );
+
+            for ( String name : downloads ) {
+                Files.move( staging.resolve( name ) , folder.resolve( name ) , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+            }
+
+            for ( String name : removed ) {
+                Files.deleteIfExists( folder.resolve( name ) );
+            }
+
+            manifest.write( manifestFile );
+            validators.setProperty( "etag" , response.headers( ).firstValue( "ETag" ).orElse( "" ) );
+            writeValidators( validators , validatorsFile );
+
+            return new ProfileManifest.Delta( List.copyOf( added ) , List.copyOf( changed ) , List.copyOf( removed ) );
+        } catch ( IOException e ) {
+            log.log( Level.SEVERE , "Profile update failed: " + manifestUri , e );
+            return null;
+        } catch ( InterruptedException e ) {
+            Thread.currentThread( ).interrupt( );
+            return null;
+        } finally {
+            deleteStaging( staging );
+        }
+    }
+
+    /**
+     * Downloads the provided profile files from next to the manifest into the staging folder, in parallel, and checks
+     * every file against its hash in the manifest.
+     */
+    private void downloadProfiles( URI manifestUri , ProfileManifest manifest , List< String > names , Path staging ) throws IOException , InterruptedException {
+        if ( names.isEmpty( ) )
+            return;
+
+        Files.createDirectories( staging );
+        List< CompletableFuture< HttpResponse< byte[] > > > responses = new ArrayList<>( names.size( ) );
+
+        for ( String name : names ) {
+            URI profileUri;
+
+            try {
+                profileUri = manifestUri.resolve( new URI( null , null , name , null ) );
+            } catch ( URISyntaxException e ) {
+                throw new IOException( "Invalid profile name: " + name , e );
+            }
+
+            responses.add( client.sendAsync( HttpRequest.newBuilder( profileUri ).GET( ).build( ) , HttpResponse.BodyHandlers.ofByteArray( ) ) );
+        }
+
+        for ( int i = 0; i < names.size( ); i++ ) {
+            HttpResponse< byte[] > response;
+
+            try {
+                response = responses.get( i ).get( );
+            } catch ( ExecutionException e ) {
+                throw new IOException( "Could not download profile: " + names.get( i ) , e.getCause( ) );
+            }
+
+            if ( response.statusCode( ) != 200 )
+                throw new IOException( "Profile download failed with status " + response.statusCode( ) + ": " + names.get( i ) );
+
+            String hash = HexFormat.of( ).formatHex( ProfileManifest.newDigest( ).digest( response.body( ) ) );
+
+            if ( !hash.equals( manifest.hashOf( names.get( i ) ) ) )
+                throw new IOException( "Profile does not match the manifest: " + names.get( i ) );
+
+            Files.write( staging.resolve( names.get( i ) ) , response.body( ) );
+        }
+    }
+
+    private static void deleteStaging( Path staging ) {
+        try ( DirectoryStream< Path > files = Files.newDirectoryStream( staging ) ) {
+            for ( Path file : files ) {
+                Files.deleteIfExists( file );
+            }
+
+            Files.deleteIfExists( staging );
+        } catch ( NoSuchFileException e ) {
+            // Nothing was staged.
+        } catch ( IOException e ) {
+            log.log( Level.WARNING , "Could not clean up the profile update folder: " + staging , e );
+        }
+    }
+
+    /**
+     * Returns the status of the last response, 304 if the last download found the profile pack unchanged.
+     */
+    public int getLastStatus( ) {
+        return lastStatus;
+    }
+
+    /**
+     * Builds the request. A partial download is resumed if the server still has the same pack, otherwise the pack
+     * is only downloaded if it changed since the last download.
+     */
+    private HttpRequest buildRequest( Path target , Path part , Properties validators ) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder( uri ).GET( );
+        long partSize = Files.exists( part ) ? Files.size( part ) : 0L;
+        String partValidator = validatorOf( validators , "part-etag" , "part-last-modified" );
+
+        if ( partSize > 0L && partValidator != null ) {
+            builder.header( "Range" , "bytes=" + partSize + "-" );
+            builder.header( "If-Range" , partValidator );
+        } else if ( Files.exists( target ) ) {
+            String etag = validators.getProperty( "etag" , "" );
+            String lastModified = validators.getProperty( "last-modified" , "" );
+
+            if ( !etag.isEmpty( ) )
+                builder.header( "If-None-Match" , etag );
+
+            if ( !lastModified.isEmpty( ) )
+                builder.header( "If-Modified-Since" , lastModified );
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Returns where the body of the response goes. A full body replaces the part file and a partial body is appended
+     * to it, both streamed straight into the file. The validators of a full body are stored before it is read, so it
+     * can be resumed if it is interrupted. Any other body, or a partial body that does not continue the part file, is
+     * discarded and the response body is null.
+     */
+    private HttpResponse.BodySubscriber< Path > subscriberFor( HttpResponse.ResponseInfo info , Path part , Properties validators , Path validatorsFile ) {
+        try {
+            switch ( info.statusCode( ) ) {
+                case 200 -> {
+                    validators.setProperty( "part-etag" , info.headers( ).firstValue( "ETag" ).orElse( "" ) );
+                    validators.setProperty( "part-last-modified" , info.headers( ).firstValue( "Last-Modified" ).orElse( "" ) );
+                    writeValidators( validators , validatorsFile );
+                    return HttpResponse.BodySubscribers.ofFile( part , StandardOpenOption.CREATE , StandardOpenOption.WRITE , StandardOpenOption.TRUNCATE_EXISTING );
+                }
+                case 206 -> {
+                    long start = rangeStart( info.headers( ).firstValue( "Content-Range" ).orElse( "" ) );
+
+                    if ( start != Files.size( part ) ) {
+                        log.log( Level.WARNING , "Unexpected range from the server, restarting the download: " + start );
+                        return HttpResponse.BodySubscribers.replacing( null );
+                    }
+
+                    return HttpResponse.BodySubscribers.ofFile( part , StandardOpenOption.WRITE , StandardOpenOption.APPEND );
+                }
+                default -> {
+                    return HttpResponse.BodySubscribers.replacing( null );
+                }
+            }
+        } catch ( IOException e ) {
+            log.log( Level.WARNING , "Could not prepare the profile download." , e );
+            return HttpResponse.BodySubscribers.replacing( null );
+        }
+    }
+
+    /**
+     * Returns the first byte of a Content-Range header, or -1 if it could not be parsed.
+     */
+    private static long rangeStart( String contentRange ) {
+        try {
+            String range = contentRange.substring( contentRange.indexOf( ' ' ) + 1 );
+            return Long.parseLong( range.substring( 0 , range.indexOf( '-' ) ).trim( ) );
+        } catch ( RuntimeException e ) {
+            return -1L;
+        }
+    }
+
+    private static String validatorOf( Properties validators , String etagKey , String lastModifiedKey ) {
+        String etag = validators.getProperty( etagKey , "" );
+
+        /*
+         * A weak ETag cannot be used with If-Range, the Last-Modified date is used instead.
+         */
+        if ( !etag.isEmpty( ) && !etag.startsWith( "W/" ) )
+            return etag;
+
+        String lastModified = validators.getProperty( lastModifiedKey , "" );
+        return lastModified.isEmpty( ) ? null : lastModified;
+    }
+
+    private static Properties readValidators( Path validatorsFile ) throws IOException {
+        Properties validators = new Properties( );
+
+        try ( InputStream in = Files.newInputStream( validatorsFile ) ) {
+            validators.load( in );
+        } catch ( NoSuchFileException e ) {
+            return validators;
+        }
+
+        return validators;
+    }
+
+    private static void writeValidators( Properties validators , Path validatorsFile ) throws IOException {
+        Path temp = validatorsFile.resolveSibling( validatorsFile.getFileName( ) + ".tmp" );
+
+        try ( OutputStream out = Files.newOutputStream( temp ) ) {
+            validators.store( out , "Profiles.zip download validators" );
+        }
+
+        Files.move( temp , validatorsFile , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+    }
 }
@@ -1,16 +1,35 @@
 package com.github.frizzydev.controller.Profiles;
 
 import java.io.*;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Extracts the profile.json files from the downloaded profiles.zip file.
+ * <br>
+ * Extraction is incremental. An entry whose size and CRC already match the file on disk is left alone, so refreshing
+ * a profile pack costs time proportional to what changed. Changed entries are written in parallel to a staging
+ * folder next to the target, then moved into the target one file at a time. Every file is replaced atomically, so
+ * a reader never sees a half written profile, and the target folder itself is never renamed, so it always exists and
+ * a watch registered on it stays valid. A crash part way through leaves some profiles updated and the rest as they
+ * were, and the next extraction finishes the job. Entries that would land outside the target are rejected.
  *
  * @author FrizzyDev
  * @version 0.1
@@ -20,6 +39,18 @@ public class ProfilesExtractor {
 
     private static final Logger log = Logger.getLogger( ProfilesExtractor.class.getName( ) );
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * How many entries the last extraction wrote.
+     */
+    private final AtomicInteger written = new AtomicInteger( );
+
+    /**
+     * How many entries the last extraction skipped because they were unchanged.
+     */
+    private final AtomicInteger skipped = new AtomicInteger( );
+
     /**
      *
      */
@@ -28,7 +59,8 @@ public class ProfilesExtractor {
     }
 
     /**
-     * Extracts the zip file contents from the provided source path to the provided save path.
+     * Extracts the zip file contents from the provided source path to the provided save path. Files already in
+     * the save path that are not in the zip file are kept.
      *
      * @param sourcePath The path of the zip file.
      * @param savePath   The path the contents will be extracted to.
@@ -39,42 +71,161 @@ public class ProfilesExtractor {
         if ( !Files.exists( Path.of( sourcePath ) ) )
             throw new FileNotFoundException( "File at " + sourcePath + " does not exist." );
 
-        try ( ZipInputStream zipInStream = new ZipInputStream( new FileInputStream( sourcePath ) ) ) {
-            ZipEntry entry = zipInStream.getNextEntry( );
+        Path target = Path.of( savePath ).toAbsolutePath( ).normalize( );
+        Path staging = target.resolveSibling( target.getFileName( ) + ".staging" );
 
-            while ( entry != null ) {
-                String extractPath = savePath + File.separator + entry.getName( );
+        written.set( 0 );
+        skipped.set( 0 );
 
-                /*
-                 * There should not be directories in the profile zip file, but this is here
-                 * just in case.
-                 */
-                if ( entry.isDirectory( ) ) {
-                    File dir = new File( extractPath );
-                    boolean created = dir.mkdir( );
+        try ( ZipFile zipFile = new ZipFile( sourcePath ) ) {
+            deleteRecursively( staging );
+            Files.createDirectories( staging );
+            Files.createDirectories( target );
 
-                    if ( !created ) {
-                        //TODO: For now we do nothing, but will eventually abort this process.
-                    }
-                } else {
-                    File pFile = new File( extractPath );
-
-                    try ( FileOutputStream zipOutStream = new FileOutputStream( pFile ) ) {
-                        byte[] bytesIn = new byte[ 1024 ];
-                        int read;
-                        while ( ( read = zipInStream.read( bytesIn ) ) != -1 ) {
-                            zipOutStream.write( bytesIn , 0 , read );
-                        }
+            List< ? extends ZipEntry > entries = zipFile.stream( ).toList( );
+
+            for ( ZipEntry entry : entries ) {
+                Path staged = staging.resolve( entry.getName( ) ).normalize( );
+
+                if ( !staged.startsWith( staging ) || staged.equals( staging ) ) {
+                    log.log( Level.SEVERE , "Rejecting zip entry outside of the profiles folder: " + entry.getName( ) );
+                    deleteRecursively( staging );
+                    return false;
+                }
+            }
+
+            List< Future< Path > > results = new ArrayList<>( entries.size( ) );
+            Set< Path > extracted = new HashSet<>( );
+
+            try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor( ) ) {
+                for ( ZipEntry entry : entries ) {
+                    Path staged = staging.resolve( entry.getName( ) ).normalize( );
+                    Path relative = staging.relativize( staged );
+
+                    /*
+                     * There should not be directories in the profile zip file, but this is here
+                     * just in case.
+                     */
+                    if ( entry.isDirectory( ) ) {
+                        Files.createDirectories( target.resolve( relative ) );
+                        continue;
                     }
+
+                    if ( !extracted.add( relative ) )
+                        continue;
+
+                    results.add( executor.submit( ( ) -> extractEntry( zipFile , entry , staged , target.resolve( relative ) ) ? relative : null ) );
                 }
+            }
+
+            /*
+             * Nothing is moved in until every entry is staged, so an entry that fails to extract leaves the target
+             * untouched. A failure while moving the staged files in leaves the files moved so far updated.
+             */
+            List< Path > changed = new ArrayList<>( results.size( ) );
+
+            for ( Future< Path > result : results ) {
+                Path relative = result.get( );
+
+                if ( relative != null )
+                    changed.add( relative );
+            }
 
-                entry = zipInStream.getNextEntry();
+            for ( Path relative : changed ) {
+                Path current = target.resolve( relative );
+                Files.createDirectories( current.getParent( ) );
+                Files.move( staging.resolve( relative ) , current , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
             }
-        } catch ( IOException e ) {
+
+            deleteRecursively( staging );
+        } catch ( IOException | ExecutionException e ) {
             log.log( Level.SEVERE , "Zip extraction failed." , e );
+
+            try {
+                deleteRecursively( staging );
+            } catch ( IOException ex ) {
+                log.log( Level.WARNING , "Could not clean up the staging folder: " + staging , ex );
+            }
+
+            return false;
+        } catch ( InterruptedException e ) {
+            Thread.currentThread( ).interrupt( );
             return false;
         }
 
+        log.info( "Profiles extracted: " + written.get( ) + " written, " + skipped.get( ) + " unchanged." );
         return true;
     }
+
+    /**
+     * Returns how many entries the last extraction wrote.
+     */
+    public int getWrittenCount( ) {
+        return written.get( );
+    }
+
+    /**
+     * Returns how many entries the last extraction skipped because they were unchanged.
+     */
+    public int getSkippedCount( ) {
+        return skipped.get( );
+    }
+
+    /**
+     * Stages a single entry, unless the current file already matches it.
+     *
+     * @return Returns true if the entry was staged and has to be moved into place.
+     */
+    private boolean extractEntry( ZipFile zipFile , ZipEntry entry , Path staged , Path current ) throws IOException {
+        if ( matches( entry , current ) ) {
+            skipped.incrementAndGet( );
+            return false;
+        }
+
+        Files.createDirectories( staged.getParent( ) );
+
+        try ( InputStream in = zipFile.getInputStream( entry ) ;
+              OutputStream out = new BufferedOutputStream( Files.newOutputStream( staged ) , BUFFER_SIZE ) ) {
+            in.transferTo( out );
+        }
+
+        written.incrementAndGet( );
+        return true;
+    }
+
+    /**
+     * Returns true if the provided file has the same size and CRC as the provided entry.
+     */
+    private boolean matches( ZipEntry entry , Path file ) throws IOException {
+        if ( !Files.isRegularFile( file ) || entry.getSize( ) < 0 || entry.getCrc( ) < 0 || Files.size( file ) != entry.getSize( ) )
+            return false;
+
+        CRC32 crc = new CRC32( );
+
+        try ( InputStream in = Files.newInputStream( file ) ) {
+            byte[] buffer = new byte[ BUFFER_SIZE ];
+            int read;
+
+            while ( ( read = in.read( buffer ) ) != -1 ) {
+                crc.update( buffer , 0 , read );
+            }
+        }
+
+        return crc.getValue( ) == entry.getCrc( );
+    }
+
+    private static void deleteRecursively( Path path ) throws IOException {
+        if ( !Files.exists( path , LinkOption.NOFOLLOW_LINKS ) )
+            return;
+
+        if ( Files.isDirectory( path , LinkOption.NOFOLLOW_LINKS ) ) {
+            try ( DirectoryStream< Path > children = Files.newDirectoryStream( path ) ) {
+                for ( Path child : children ) {
+                    deleteRecursively( child );
+                }
+            }
+        }
+
+        Files.delete( path );
+    }
 }
@@ -0,0 +1,47 @@
+package com.github.frizzydev.controller;
+
+/**
+ * The 64-bit usage counters of an LController, indexed by usage slot. By default counters live on the heap,
+ * but a storage engine can supply counters that live elsewhere, such as in a memory-mapped file.
+ * <br>
+ * Implementations must make every method safe to call from any thread, and increments must be atomic.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public interface UsageCounters {
+
+    /**
+     * Returns the number of counters.
+     */
+    int length( );
+
+    /**
+     * Returns the counter of the provided slot.
+     */
+    long get( int slot );
+
+    /**
+     * Sets the counter of the provided slot.
+     */
+    void set( int slot , long value );
+
+    /**
+     * Atomically increments the counter of the provided slot and returns the new value.
+     */
+    long incrementAndGet( int slot );
+
+    /**
+     * Returns true if the counters are persisted as they change, so they do not need to be saved separately.
+     */
+    default boolean isPersistent( ) {
+        return false;
+    }
+
+    /**
+     * Forces any change to persisted counters to storage. Does nothing for counters that are not persisted.
+     */
+    default void force( ) {
+    }
+}
@@ -0,0 +1,484 @@
+package com.github.frizzydev.controller;
+
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The usage of every slot of a controller over time, counted in minute, hour and day buckets. Each resolution keeps a
+ * fixed number of buckets in a preallocated int ring per slot, so the memory a device uses never grows with uptime.
+ * <br>
+ * Every use is added to its minute, hour and day bucket at once, so the coarser buckets are always complete and
+ * never need to be rebuilt from the finer ones. When time moves past the newest bucket of a resolution, the ring
+ * advances and the buckets that fell out of its window are cleared. Range queries sum at most one ring, picking the
+ * finest resolution that still covers the range, so "uses in the last 7 days" reads 7 day buckets instead of raw
+ * events.
+ * <br>
+ * Buckets are aligned to UTC. All methods are safe to call from any thread, and readers never block the writer. The
+ * rings are guarded by a sequence number that is odd while a change is being written: a reader reads the buckets it
+ * needs and tries again if the sequence moved in the meantime, so recording a use from the poll thread never waits
+ * on the UI or on a history file being written. Changes are serialized by a private lock that only writers take.
+ * See {@link #snapshot()} for a consistent copy of the whole history.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class UsageHistory {
+
+    /**
+     * The bucket sizes kept by the history.
+     */
+    public enum Resolution {
+        MINUTE( 60_000L , 60 ),
+        HOUR( 3_600_000L , 48 ),
+        DAY( 86_400_000L , 366 );
+
+        /**
+         * The length of a bucket, in milliseconds.
+         */
+        public final long millis;
+
+        /**
+         * The number of buckets kept.
+         */
+        public final int capacity;
+
+        Resolution( long millis , int capacity ) {
+            this.millis = millis;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the number of the bucket the provided time falls into.
+         */
+        public long bucketOf( long timeMillis ) {
+            return Math.floorDiv( timeMillis , millis );
+        }
+
+        /**
+         * Returns the length of time the buckets of this resolution cover together.
+         */
+        public Duration window( ) {
+            return Duration.ofMillis( millis * capacity );
+        }
+    }
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values( );
+
+    private final int slotCount;
+
+    /**
+     * The rings of every resolution, indexed by resolution ordinal. Slot s owns the capacity ints starting at
+     * s * capacity, and bucket b lives at index b % capacity of its slot's ring. Only written inside write brackets.
+     */
+    private final int[][] rings = new int[ RESOLUTIONS.length ][ ];
+
+    /**
+     * The newest bucket of every resolution, or Long.MIN_VALUE while the resolution is empty. Only written inside
+     * write brackets.
+     */
+    private final long[] heads = new long[ RESOLUTIONS.length ];
+
+    /**
+     * Odd while a change is being written, and increased by two by every change, so half of it is the version.
+     */
+    private final AtomicLong sequence = new AtomicLong( );
+
+    /**
+     * Serializes writers. The poller is normally the only writer, so this lock is uncontended and readers never
+     * take it.
+     */
+    private final Object writeLock = new Object( );
+
+    /**
+     * @param slotCount The number of usage slots of the controller.
+     */
+    public UsageHistory( int slotCount ) {
+        this.slotCount = slotCount;
+
+        for ( Resolution resolution : RESOLUTIONS ) {
+            rings[ resolution.ordinal( ) ] = new int[ slotCount * resolution.capacity ];
+            heads[ resolution.ordinal( ) ] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Returns the number of usage slots.
+     */
+    public int slotCount( ) {
+        return slotCount;
+    }
+
+    /**
+     * Counts one use of the provided slot at the provided time.
+     */
+    public void record( int slot , long timeMillis ) {
+        synchronized ( writeLock ) {
+            beginWrite( );
+
+            for ( Resolution resolution : RESOLUTIONS ) {
+                add( rings , heads , slotCount , resolution , slot , resolution.bucketOf( timeMillis ) , 1 );
+            }
+
+            endWrite( );
+        }
+    }
+
+    /**
+     * Adds saved uses to the provided bucket. Used to load a saved history, buckets outside the window are ignored.
+     */
+    public void restore( Resolution resolution , int slot , long bucket , int count ) {
+        synchronized ( writeLock ) {
+            beginWrite( );
+            add( rings , heads , slotCount , resolution , slot , bucket , count );
+            endWrite( );
+        }
+    }
+
+    /**
+     * Returns the number of uses of the provided slot in the provided period up to the provided time. The period is
+     * rounded up to whole buckets of the finest resolution that covers it, and is capped at the day window.
+     */
+    public long count( int slot , Duration period , long nowMillis ) {
+        Resolution resolution = resolutionFor( period );
+        int buckets = bucketsIn( resolution , period );
+
+        while ( true ) {
+            long seq = beginRead( );
+            long count = sum( rings , heads , resolution , slot , buckets , nowMillis );
+
+            if ( validate( seq ) )
+                return count;
+        }
+    }
+
+    /**
+     * Returns the number of uses of every slot together in the provided period up to the provided time.
+     * See {@link #count(int, Duration, long)}.
+     */
+    public long total( Duration period , long nowMillis ) {
+        Resolution resolution = resolutionFor( period );
+        int buckets = bucketsIn( resolution , period );
+
+        while ( true ) {
+            long seq = beginRead( );
+            long total = total( rings , heads , slotCount , resolution , buckets , nowMillis );
+
+            if ( validate( seq ) )
+                return total;
+        }
+    }
+
+    /**
+     * Returns the uses of the provided slot in each of the last buckets of a resolution, oldest first and ending
+     * with the bucket of the provided time.
+     *
+     * @param buckets The number of buckets, at most the capacity of the resolution.
+     */
+    public int[] series( Resolution resolution , int slot , int buckets , long nowMillis ) {
+        int[] series = new int[ Math.min( buckets , resolution.capacity ) ];
+
+        while ( true ) {
+            long seq = beginRead( );
+            series( rings , heads , resolution , slot , nowMillis , series );
+
+            if ( validate( seq ) )
+                return series;
+        }
+    }
+
+    /**
+     * Returns the uses of the provided slot in the provided bucket, or 0 if the bucket is outside the window.
+     */
+    public int get( Resolution resolution , int slot , long bucket ) {
+        while ( true ) {
+            long seq = beginRead( );
+            int count = get( rings , heads , resolution , slot , bucket );
+
+            if ( validate( seq ) )
+                return count;
+        }
+    }
+
+    /**
+     * Returns the newest bucket of the provided resolution, or Long.MIN_VALUE if nothing was recorded yet.
+     */
+    public long head( Resolution resolution ) {
+        while ( true ) {
+            long seq = beginRead( );
+            long head = heads[ resolution.ordinal( ) ];
+
+            if ( validate( seq ) )
+                return head;
+        }
+    }
+
+    /**
+     * Returns the current version. It increases every time the history changes.
+     */
+    public long getVersion( ) {
+        return sequence.get( ) >>> 1;
+    }
+
+    /**
+     * Returns a consistent copy of the whole history. The buckets are copied without blocking the writer, and the
+     * copy is taken again if the history changed while it was being copied.
+     */
+    public Snapshot snapshot( ) {
+        int[][] ringsCopy = new int[ RESOLUTIONS.length ][ ];
+        long[] headsCopy = new long[ RESOLUTIONS.length ];
+
+        for ( Resolution resolution : RESOLUTIONS ) {
+            ringsCopy[ resolution.ordinal( ) ] = new int[ rings[ resolution.ordinal( ) ].length ];
+        }
+
+        while ( true ) {
+            long seq = beginRead( );
+
+            for ( int r = 0; r < RESOLUTIONS.length; r++ ) {
+                System.arraycopy( rings[ r ] , 0 , ringsCopy[ r ] , 0 , rings[ r ].length );
+            }
+
+            System.arraycopy( heads , 0 , headsCopy , 0 , heads.length );
+
+            if ( validate( seq ) )
+                return new Snapshot( slotCount , ringsCopy , headsCopy , seq >>> 1 );
+        }
+    }
+
+    /**
+     * Marks the start of a change. Only called while holding the write lock.
+     */
+    private void beginWrite( ) {
+        sequence.set( sequence.get( ) + 1L );
+
+        /*
+         * Keeps the bucket writes below from becoming visible before the sequence turns odd.
+         */
+        VarHandle.storeStoreFence( );
+    }
+
+    /**
+     * Marks the end of a change. Only called while holding the write lock.
+     */
+    private void endWrite( ) {
+        sequence.setRelease( sequence.get( ) + 1L );
+    }
+
+    /**
+     * Waits until no change is being written and returns the sequence the read started at.
+     */
+    private long beginRead( ) {
+        long seq;
+
+        while ( ( ( seq = sequence.getAcquire( ) ) & 1L ) != 0L ) {
+            Thread.onSpinWait( );
+        }
+
+        return seq;
+    }
+
+    /**
+     * Returns true if nothing changed since the read started at the provided sequence.
+     */
+    private boolean validate( long seq ) {
+
+        /*
+         * Keeps the bucket reads above from being moved after the sequence is read again.
+         */
+        VarHandle.acquireFence( );
+        return sequence.get( ) == seq;
+    }
+
+    /**
+     * A consistent copy of a usage history, taken by {@link UsageHistory#snapshot()}. Never changes.
+     */
+    public static final class Snapshot {
+
+        private final int slotCount;
+
+        private final int[][] rings;
+
+        private final long[] heads;
+
+        private final long version;
+
+        private Snapshot( int slotCount , int[][] rings , long[] heads , long version ) {
+            this.slotCount = slotCount;
+            this.rings = rings;
+            this.heads = heads;
+            this.version = version;
+        }
+
+        /**
+         * Returns the number of usage slots.
+         */
+        public int slotCount( ) {
+            return slotCount;
+        }
+
+        /**
+         * Returns the version of the history the snapshot was taken at.
+         */
+        public long getVersion( ) {
+            return version;
+        }
+
+        /**
+         * See {@link UsageHistory#count(int, Duration, long)}.
+         */
+        public long count( int slot , Duration period , long nowMillis ) {
+            Resolution resolution = resolutionFor( period );
+            return sum( rings , heads , resolution , slot , bucketsIn( resolution , period ) , nowMillis );
+        }
+
+        /**
+         * See {@link UsageHistory#total(Duration, long)}.
+         */
+        public long total( Duration period , long nowMillis ) {
+            Resolution resolution = resolutionFor( period );
+            return UsageHistory.total( rings , heads , slotCount , resolution , bucketsIn( resolution , period ) , nowMillis );
+        }
+
+        /**
+         * See {@link UsageHistory#series(Resolution, int, int, long)}.
+         */
+        public int[] series( Resolution resolution , int slot , int buckets , long nowMillis ) {
+            int[] series = new int[ Math.min( buckets , resolution.capacity ) ];
+            UsageHistory.series( rings , heads , resolution , slot , nowMillis , series );
+            return series;
+        }
+
+        /**
+         * See {@link UsageHistory#get(Resolution, int, long)}.
+         */
+        public int get( Resolution resolution , int slot , long bucket ) {
+            return UsageHistory.get( rings , heads , resolution , slot , bucket );
+        }
+
+        /**
+         * See {@link UsageHistory#head(Resolution)}.
+         */
+        public long head( Resolution resolution ) {
+            return heads[ resolution.ordinal( ) ];
+        }
+    }
+
+    /**
+     * Adds uses to a bucket, advancing the ring first if the bucket is newer than its head.
+     */
+    private static void add( int[][] rings , long[] heads , int slotCount , Resolution resolution , int slot , long bucket , int count ) {
+        int r = resolution.ordinal( );
+        long head = heads[ r ];
+
+        if ( bucket > head ) {
+            advance( rings , heads , slotCount , resolution , bucket );
+        } else if ( bucket <= head - resolution.capacity ) {
+            return;
+        }
+
+        int index = indexOf( resolution , slot , bucket );
+        rings[ r ][ index ] = ( int ) Math.min( ( long ) rings[ r ][ index ] + count , Integer.MAX_VALUE );
+    }
+
+    /**
+     * Moves the head of a resolution to the provided bucket, clearing every bucket that is reused.
+     */
+    private static void advance( int[][] rings , long[] heads , int slotCount , Resolution resolution , long bucket ) {
+        int r = resolution.ordinal( );
+        int[] ring = rings[ r ];
+        long head = heads[ r ];
+        int capacity = resolution.capacity;
+
+        if ( head == Long.MIN_VALUE || bucket - head >= capacity ) {
+            Arrays.fill( ring , 0 );
+        } else {
+            for ( long b = head + 1; b <= bucket; b++ ) {
+                int offset = ( int ) Math.floorMod( b , ( long ) capacity );
+
+                for ( int slot = 0; slot < slotCount; slot++ ) {
+                    ring[ slot * capacity + offset ] = 0;
+                }
+            }
+        }
+
+        heads[ r ] = bucket;
+    }
+
+    /**
+     * Returns the uses of a slot in a bucket, or 0 if the bucket is outside the window.
+     */
+    private static int get( int[][] rings , long[] heads , Resolution resolution , int slot , long bucket ) {
+        long head = heads[ resolution.ordinal( ) ];
+
+        if ( bucket > head || bucket <= head - resolution.capacity )
+            return 0;
+
+        return rings[ resolution.ordinal( ) ][ indexOf( resolution , slot , bucket ) ];
+    }
+
+    /**
+     * Sums the last buckets of a slot, ending with the bucket of the provided time.
+     */
+    private static long sum( int[][] rings , long[] heads , Resolution resolution , int slot , int buckets , long nowMillis ) {
+        long last = resolution.bucketOf( nowMillis );
+        long sum = 0L;
+
+        for ( long b = last - buckets + 1; b <= last; b++ ) {
+            sum += get( rings , heads , resolution , slot , b );
+        }
+
+        return sum;
+    }
+
+    /**
+     * Sums the last buckets of every slot, ending with the bucket of the provided time.
+     */
+    private static long total( int[][] rings , long[] heads , int slotCount , Resolution resolution , int buckets , long nowMillis ) {
+        long total = 0L;
+
+        for ( int slot = 0; slot < slotCount; slot++ ) {
+            total += sum( rings , heads , resolution , slot , buckets , nowMillis );
+        }
+
+        return total;
+    }
+
+    /**
+     * Fills the provided array with the last buckets of a slot, oldest first and ending with the bucket of the
+     * provided time.
+     */
+    private static void series( int[][] rings , long[] heads , Resolution resolution , int slot , long nowMillis , int[] series ) {
+        long last = resolution.bucketOf( nowMillis );
+
+        for ( int i = 0; i < series.length; i++ ) {
+            series[ i ] = get( rings , heads , resolution , slot , last - series.length + 1 + i );
+        }
+    }
+
+    private static int indexOf( Resolution resolution , int slot , long bucket ) {
+        return slot * resolution.capacity + ( int ) Math.floorMod( bucket , ( long ) resolution.capacity );
+    }
+
+    /**
+     * Returns the finest resolution whose window covers the provided period.
+     */
+    private static Resolution resolutionFor( Duration period ) {
+        for ( Resolution resolution : RESOLUTIONS ) {
+            if ( period.compareTo( resolution.window( ) ) <= 0 )
+                return resolution;
+        }
+
+        return Resolution.DAY;
+    }
+
+    /**
+     * Returns the number of buckets of a resolution the provided period covers, rounded up.
+     */
+    private static int bucketsIn( Resolution resolution , Duration period ) {
+        long buckets = ( period.toMillis( ) + resolution.millis - 1 ) / resolution.millis;
+        return ( int ) Math.max( 1L , Math.min( buckets , resolution.capacity ) );
+    }
+}
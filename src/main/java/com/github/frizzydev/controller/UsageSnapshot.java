@@ -0,0 +1,71 @@
+package com.github.frizzydev.controller;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable, consistent view of the usage counters of an LController at a single point in time.
+ * The version increases every time the controller's usage changes, so two snapshots with the same
+ * version always hold the same counts.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class UsageSnapshot {
+
+    /**
+     * The usage version the snapshot was taken at.
+     */
+    private final long version;
+
+    /**
+     * When the snapshot was taken, in milliseconds since the epoch.
+     */
+    private final long timestamp;
+
+    /**
+     * The usage counts, keyed by identifier name.
+     */
+    private final Map < String, Long > counts;
+
+    /**
+     * @param version   The usage version the snapshot was taken at.
+     * @param timestamp When the snapshot was taken, in milliseconds since the epoch.
+     * @param counts    The usage counts, keyed by identifier name. The map must not be modified afterwards.
+     */
+    UsageSnapshot( long version , long timestamp , Map < String, Long > counts ) {
+        this.version = version;
+        this.timestamp = timestamp;
+        this.counts = Collections.unmodifiableMap( counts );
+    }
+
+    /**
+     * Returns the usage version the snapshot was taken at.
+     */
+    public long getVersion( ) {
+        return version;
+    }
+
+    /**
+     * Returns when the snapshot was taken, in milliseconds since the epoch.
+     */
+    public long getTimestamp( ) {
+        return timestamp;
+    }
+
+    /**
+     * Returns the usage counts keyed by identifier name. Components that have never been used are left out.
+     */
+    public Map < String, Long > getCounts( ) {
+        return counts;
+    }
+
+    /**
+     * Returns the usage count of the provided identifier name, or zero if it has not been used.
+     */
+    public long get( String identifierName ) {
+        Long count = counts.get( identifierName );
+        return count != null ? count : 0L;
+    }
+}
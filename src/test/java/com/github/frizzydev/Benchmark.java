@@ -0,0 +1,59 @@
+package com.github.frizzydev;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A small timing harness for the benchmarks, which are JUnit tests tagged "benchmark" and only run with
+ * {@code mvn test -Pbenchmark}. Every operation is warmed up before it is timed, and its result is kept so the JIT
+ * can not remove the work.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class Benchmark {
+
+    /**
+     * Keeps results alive, see {@link #consume(Object)}.
+     */
+    private static volatile Object sink;
+
+    private Benchmark( ) {
+    }
+
+    /**
+     * Runs the provided operation the provided number of times after as many warmup runs, prints the average time of
+     * a run and returns it.
+     *
+     * @return Returns the average time of a run, in nanoseconds.
+     */
+    public static double time( String name , int runs , Callable < ? > operation ) throws Exception {
+        for ( int i = 0; i < runs; i++ ) {
+            consume( operation.call( ) );
+        }
+
+        long start = System.nanoTime( );
+
+        for ( int i = 0; i < runs; i++ ) {
+            consume( operation.call( ) );
+        }
+
+        double nanos = ( double ) ( System.nanoTime( ) - start ) / runs;
+        System.out.printf( "%-50s %,14.0f ns/op %,12.1f ops/s%n" , name , nanos , 1e9 / nanos );
+        return nanos;
+    }
+
+    /**
+     * Prints how many times faster the second time is than the first.
+     */
+    public static void compare( String name , double baselineNanos , double nanos ) {
+        System.out.printf( "%-50s %,14.2fx%n" , name , baselineNanos / nanos );
+    }
+
+    /**
+     * Keeps the provided result alive.
+     */
+    public static void consume( Object result ) {
+        sink = result;
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.Benchmark;
+import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Times loading a profiles folder of a few thousand synthetic profile files, in parallel through ProfilesProcessor
+ * and one file after another on the calling thread as it was done before. The parallel gain depends on the number of
+ * processors, which is printed with the results. Run with {@code mvn test -Pbenchmark}.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+@Tag( "benchmark" )
+class ProfilesProcessorBenchmark {
+
+    private static final int PROFILES = 3_000;
+
+    private static final int RUNS = 10;
+
+    private static final Gson GSON = new GsonBuilder( ).registerTypeAdapter( ControllerProfile.class , new ControllerProfileAdapter( ) ).create( );
+
+    @TempDir
+    Path base;
+
+    @Test
+    void loadProfilesFolder( ) throws Exception {
+        Path folder = base.resolve( "Profiles" );
+
+        for ( int i = 0; i < PROFILES; i++ ) {
+            ProfilesProcessorTest.writeProfile( folder , String.format( "profile-%05d.json" , i ) , "Device " + i , "Synthetic profile " + i );
+        }
+
+        ProfilesProcessor processor = new ProfilesProcessor( folder.toFile( ) );
+
+        assertEquals( sequential( folder.toFile( ) ).keySet( ) , processor.getProfiles( ).keySet( ) );
+
+        double sequential = Benchmark.time( PROFILES + " profiles, sequential" , RUNS , ( ) -> sequential( folder.toFile( ) ) );
+        double parallel = Benchmark.time( PROFILES + " profiles, getProfiles" , RUNS , processor::getProfiles );
+        double catalog = Benchmark.time( PROFILES + " profiles, getCatalog without snapshot" , RUNS , ( ) -> {
+            processor.getSnapshotPath( ).toFile( ).delete( );
+            return processor.getCatalog( );
+        } );
+
+
+        processor.getSnapshotPath( ).toFile( ).delete( );
+        processor.getCatalog( );
+
+        for ( int wait = 0; wait < 100 && !processor.getSnapshotPath( ).toFile( ).isFile( ); wait++ ) {
+            Thread.sleep( 50 );
+        }
+
+        double snapshot = Benchmark.time( PROFILES + " profiles, getCatalog from snapshot" , RUNS , processor::getCatalog );
+
+        System.out.println( "Available processors: " + Runtime.getRuntime( ).availableProcessors( ) );
+        Benchmark.compare( "getProfiles speedup" , sequential , parallel );
+        Benchmark.compare( "getCatalog speedup" , sequential , catalog );
+        Benchmark.compare( "getCatalog from snapshot speedup" , sequential , snapshot );
+    }
+
+    /**
+     * Parses every profile file one after another on the calling thread.
+     */
+    private static Map < String, ControllerProfile > sequential( File folder ) throws Exception {
+        Map < String, ControllerProfile > profiles = new LinkedHashMap <>( );
+        File[] files = folder.listFiles( File::isFile );
+        Arrays.sort( files , Comparator.comparing( File::getName ) );
+
+        for ( File file : files ) {
+            try ( Reader reader = new FileReader( file ) ) {
+                ControllerProfile profile = GSON.fromJson( reader , ControllerProfile.class );
+                profiles.put( profile.getName( ) , profile );
+            }
+        }
+
+        return profiles;
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks how ProfilesProcessor merges the profiles folder.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class ProfilesProcessorTest {
+
+    @TempDir
+    Path base;
+
+    /**
+     * Writes a profile file for the provided device into the profiles folder.
+     */
+    static void writeProfile( Path folder , String fileName , String deviceName , String description ) throws IOException {
+        Files.createDirectories( folder );
+        Files.writeString( folder.resolve( fileName ) , "{\"DeviceName\":\"" + deviceName + "\",\"DeviceDescription\":\"" + description
+                + "\",\"DeviceManufacturer\":\"Maker\",\"DeviceType\":\"Gamepad\",\"DevicePortType\":\"USB\"}" );
+    }
+
+    /**
+     * Writes a profiles archive holding one profile for every provided device, named after the device.
+     */
+    static void writeArchive( Path archive , String description , String... deviceNames ) throws IOException {
+        try ( ZipOutputStream out = new ZipOutputStream( Files.newOutputStream( archive ) ) ) {
+            for ( String deviceName : deviceNames ) {
+                out.putNextEntry( new ZipEntry( deviceName + ".json" ) );
+                out.write( ( "{\"DeviceName\":\"" + deviceName + "\",\"DeviceDescription\":\"" + description
+                        + "\",\"DeviceManufacturer\":\"Maker\",\"DeviceType\":\"Gamepad\",\"DevicePortType\":\"USB\"}" ).getBytes( StandardCharsets.UTF_8 ) );
+                out.closeEntry( );
+            }
+        }
+    }
+
+    /**
+     * Returns true if this process still has the provided file open. Only Linux lists open files, elsewhere the file
+     * is treated as closed if it can be deleted.
+     */
+    static boolean isOpen( Path file ) throws IOException {
+        Path fds = Path.of( "/proc/self/fd" );
+
+        if ( !Files.isDirectory( fds ) )
+            return !Files.deleteIfExists( file );
+
+        Path real = file.toRealPath( );
+
+        try ( Stream < Path > links = Files.list( fds ) ) {
+            return links.anyMatch( link -> {
+                try {
+                    return Files.readSymbolicLink( link ).equals( real );
+                } catch ( IOException e ) {
+                    return false;
+                }
+            } );
+        }
+    }
+
+    @Test
+    void malformedProfilesAreSkipped( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+        writeProfile( folder , "a.json" , "Pad" , "Good" );
+        Files.writeString( folder.resolve( "b.json" ) , "{\"DeviceName\": \"Broken\", " );
+        Files.writeString( folder.resolve( "c.json" ) , "[1, 2, 3]" );
+        Files.writeString( folder.resolve( "d.json" ) , "{\"DeviceDescription\":\"No name\"}" );
+        writeProfile( folder , "e.json" , "Wheel" , "Good" );
+
+        Map < String, ControllerProfile > profiles = new ProfilesProcessor( folder.toFile( ) ).getProfiles( );
+
+        assertEquals( "[Pad, Wheel]" , profiles.keySet( ).toString( ) );
+    }
+
+    @Test
+    void laterFilesWinInNameOrder( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+
+        for ( int i = 0; i < 50; i++ ) {
+            writeProfile( folder , String.format( "%02d.json" , i ) , "Pad" , "File " + i );
+        }
+
+        for ( int run = 0; run < 5; run++ ) {
+            ControllerProfile profile = new ProfilesProcessor( folder.toFile( ) ).getProfiles( ).get( "Pad" );
+
+            assertNotNull( profile );
+            assertEquals( "File 49" , profile.getDescription( ) );
+        }
+    }
+
+    @Test
+    void catalogMatchesProfiles( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+        writeProfile( folder , "a.json" , "Pad" , "First" );
+        writeProfile( folder , "b.json" , "Wheel" , "Second" );
+        Files.writeString( folder.resolve( "c.json" ) , "not json" );
+
+        ProfileCatalog catalog = new ProfilesProcessor( folder.toFile( ) ).getCatalog( );
+
+        assertEquals( "First" , catalog.get( "Pad" ).getDescription( ) );
+        assertEquals( "Second" , catalog.get( "Wheel" ).getDescription( ) );
+        assertEquals( null , catalog.get( "c" ) );
+    }
+
+    @Test
+    void getProfilesClosesTheArchive( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+        Path archive = base.resolve( ProfilesProcessor.ARCHIVE_NAME );
+        Files.createDirectories( folder );
+        writeArchive( archive , "Archived" , "Pad" , "Wheel" );
+
+        for ( int run = 0; run < 3; run++ ) {
+            assertEquals( "[Pad, Wheel]" , new ProfilesProcessor( folder.toFile( ) ).getProfiles( ).keySet( ).toString( ) );
+        }
+
+        assertFalse( isOpen( archive ) , "The profiles archive is still open." );
+    }
+
+    @Test
+    void removingAnOverrideFallsBackToTheArchive( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+        writeArchive( base.resolve( ProfilesProcessor.ARCHIVE_NAME ) , "Archived" , "Pad" , "Wheel" );
+        writeProfile( folder , "pad.json" , "Pad" , "Override" );
+        writeProfile( folder , "stick.json" , "Stick" , "Loose" );
+
+        ProfilesProcessor processor = new ProfilesProcessor( folder.toFile( ) );
+        ProfileCatalog catalog = processor.getCatalog( );
+
+        assertEquals( "Override" , catalog.get( "Pad" ).getDescription( ) );
+
+        File override = folder.resolve( "pad.json" ).toFile( );
+        File stick = folder.resolve( "stick.json" ).toFile( );
+        Files.delete( override.toPath( ) );
+        Files.delete( stick.toPath( ) );
+
+        Set < String > affected = processor.updateCatalog( catalog , List.of( ) , List.of( override , stick ) );
+
+        assertEquals( Set.of( "Pad" , "Stick" ) , affected );
+        assertEquals( "Archived" , catalog.get( "Pad" ).getDescription( ) , "The archive entry should be used again." );
+        assertEquals( "Archived" , catalog.get( "Wheel" ).getDescription( ) );
+        assertNull( catalog.get( "Stick" ) );
+    }
+
+    @Test
+    void removalFallsBackWithoutReadingTheSourcesAgain( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+        Path archive = base.resolve( ProfilesProcessor.ARCHIVE_NAME );
+        writeArchive( archive , "Archived" , "Pad" , "Wheel" );
+        writeProfile( folder , "pad.json" , "Pad" , "Override" );
+
+        ProfilesProcessor processor = new ProfilesProcessor( folder.toFile( ) );
+        ProfileCatalog catalog = processor.getCatalog( );
+        File override = folder.resolve( "pad.json" ).toFile( );
+
+        /*
+         * The archive is only reachable through the handle the catalog already has, so the fallback can not come
+         * from listing and opening the sources again.
+         */
+        Files.delete( archive );
+
+        for ( int run = 0; run < 3; run++ ) {
+            Files.delete( override.toPath( ) );
+            processor.updateCatalog( catalog , List.of( ) , List.of( override ) );
+
+            assertEquals( "Archived" , catalog.get( "Pad" ).getDescription( ) );
+
+            writeProfile( folder , "pad.json" , "Pad" , "Override " + run );
+            processor.updateCatalog( catalog , List.of( override ) , List.of( ) );
+
+            assertEquals( "Override " + run , catalog.get( "Pad" ).getDescription( ) );
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.Benchmark;
+import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the streaming adapters with Gson's reflection, set up the way the processors used it before: a fresh
+ * TypeToken for every call and pretty printed usage. Run with {@code mvn test -Pbenchmark}.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+@Tag( "benchmark" )
+class TypeAdaptersBenchmark {
+
+    private static final int USAGE_ENTRIES = 20_000;
+
+    private static final int PROFILES = 500;
+
+    private static final int RUNS = 500;
+
+    private static final Type USAGE_TYPE = new TypeToken < Map < String, Long > >( ) { }.getType( );
+
+    private static final Type CATALOG_TYPE = new TypeToken < List < ControllerProfile > >( ) { }.getType( );
+
+    private final Gson reflection = new GsonBuilder( ).setPrettyPrinting( ).create( );
+
+    private final Gson adapters = new GsonBuilder( ).registerTypeAdapter( ControllerProfile.class , new ControllerProfileAdapter( ) )
+            .registerTypeAdapter( USAGE_TYPE , new UsageMapAdapter( ) ).create( );
+
+    @Test
+    void usageMaps( ) throws Exception {
+        Map < String, Long > usage = new LinkedHashMap <>( );
+
+        for ( int i = 0; i < USAGE_ENTRIES; i++ ) {
+            usage.put( "Component " + i , ( long ) i * 31L );
+        }
+
+        String json = reflection.toJson( usage );
+        assertEquals( usage , adapters.fromJson( json , USAGE_TYPE ) );
+
+        double reflectWrite = Benchmark.time( "usage write, reflection pretty" , RUNS ,
+                ( ) -> reflection.toJson( usage , new TypeToken < Map < String, Long > >( ) { }.getType( ) ) );
+        double adapterWrite = Benchmark.time( "usage write, adapter compact" , RUNS , ( ) -> adapters.toJson( usage , USAGE_TYPE ) );
+        double reflectRead = Benchmark.time( "usage read, reflection" , RUNS ,
+                ( ) -> reflection.fromJson( json , new TypeToken < Map < String, Long > >( ) { }.getType( ) ) );
+        double adapterRead = Benchmark.time( "usage read, adapter" , RUNS , ( ) -> adapters.fromJson( json , USAGE_TYPE ) );
+
+        Benchmark.compare( "usage write speedup" , reflectWrite , adapterWrite );
+        Benchmark.compare( "usage read speedup" , reflectRead , adapterRead );
+    }
+
+    @Test
+    void profileCatalogs( ) throws Exception {
+        List < ControllerProfile > catalog = new ArrayList <>( );
+
+        for ( int i = 0; i < PROFILES; i++ ) {
+            catalog.add( new ControllerProfile( "Device " + i , "Description of device " + i , "Maker " + ( i % 17 ) , "Gamepad" , "USB" ,
+                    i % 10 == 0 ? ControllerProfile.POLL_SAMPLING : null ) );
+        }
+
+        String json = reflection.toJson( catalog );
+        assertEquals( PROFILES , adapters.< List < ControllerProfile > >fromJson( json , CATALOG_TYPE ).size( ) );
+
+        double reflectWrite = Benchmark.time( "catalog write, reflection" , RUNS , ( ) -> reflection.toJson( catalog ) );
+        double adapterWrite = Benchmark.time( "catalog write, adapter" , RUNS , ( ) -> adapters.toJson( catalog , CATALOG_TYPE ) );
+        double reflectRead = Benchmark.time( "catalog read, reflection" , RUNS , ( ) -> reflection.fromJson( json , CATALOG_TYPE ) );
+        double adapterRead = Benchmark.time( "catalog read, adapter" , RUNS , ( ) -> adapters.fromJson( json , CATALOG_TYPE ) );
+
+        Benchmark.compare( "catalog write speedup" , reflectWrite , adapterWrite );
+        Benchmark.compare( "catalog read speedup" , reflectRead , adapterRead );
+    }
+}
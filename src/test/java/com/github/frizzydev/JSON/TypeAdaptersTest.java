@@ -0,0 +1,83 @@
+package com.github.frizzydev.JSON;
+
+import com.github.frizzydev.controller.Profiles.ControllerProfile;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the streaming adapters read and write the same json as Gson's reflection did.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class TypeAdaptersTest {
+
+    private static final Type USAGE_TYPE = new TypeToken < Map < String, Long > >( ) { }.getType( );
+
+    private final Gson adapters = new GsonBuilder( ).registerTypeAdapter( ControllerProfile.class , new ControllerProfileAdapter( ) )
+            .registerTypeAdapter( USAGE_TYPE , new UsageMapAdapter( ) ).create( );
+
+    private final Gson reflection = new Gson( );
+
+    @Test
+    void profileMatchesReflection( ) {
+        String json = "{\"DeviceName\":\"Wheel\",\"DeviceDescription\":\"A wheel\",\"DeviceManufacturer\":\"Maker\","
+                + "\"DeviceType\":\"Wheel\",\"DevicePortType\":\"USB\",\"PollMode\":\"Sampling\",\"Unknown\":[1,2]}";
+
+        ControllerProfile streamed = adapters.fromJson( json , ControllerProfile.class );
+        ControllerProfile reflected = reflection.fromJson( json , ControllerProfile.class );
+
+        assertEquals( reflected.getName( ) , streamed.getName( ) );
+        assertEquals( reflected.getDescription( ) , streamed.getDescription( ) );
+        assertEquals( reflected.getManufacturer( ) , streamed.getManufacturer( ) );
+        assertEquals( reflected.getType( ) , streamed.getType( ) );
+        assertEquals( reflected.getPortType( ) , streamed.getPortType( ) );
+        assertTrue( streamed.isSampled( ) );
+        assertEquals( reflection.toJson( reflected ) , adapters.toJson( streamed ) );
+    }
+
+    @Test
+    void profileWithMissingFields( ) {
+        ControllerProfile profile = adapters.fromJson( "{\"DeviceName\":\"Pad\",\"DeviceType\":null}" , ControllerProfile.class );
+
+        assertEquals( "Pad" , profile.getName( ) );
+        assertNull( profile.getType( ) );
+        assertFalse( profile.isSampled( ) );
+    }
+
+    @Test
+    void usageRoundTripsInOrder( ) {
+        Map < String, Long > usage = new LinkedHashMap <>( );
+        usage.put( "z" , 3L );
+        usage.put( "a" , Long.MAX_VALUE );
+        usage.put( "Button 1" , 0L );
+
+        String json = adapters.toJson( usage , USAGE_TYPE );
+        Map < String, Long > read = adapters.fromJson( json , USAGE_TYPE );
+
+        assertEquals( usage , read );
+        assertEquals( "[z, a, Button 1]" , read.keySet( ).toString( ) );
+        assertEquals( reflection.fromJson( json , USAGE_TYPE ) , read );
+    }
+
+    @Test
+    void compactUsageHasNoLineBreaks( ) {
+        Map < String, Long > usage = Map.of( "x" , 1L , "y" , 2L );
+
+        assertFalse( adapters.toJson( usage , USAGE_TYPE ).contains( "\n" ) );
+        assertTrue( new GsonBuilder( ).registerTypeAdapter( USAGE_TYPE , new UsageMapAdapter( ) ).setPrettyPrinting( ).create( )
+                .toJson( usage , USAGE_TYPE ).contains( "\n" ) );
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.frizzydev.JSON;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that usage journal records survive a replay, including after an append that failed.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class UsageJournalTest {
+
+    private static final long CHECKSUM = 42L;
+
+    @TempDir
+    Path base;
+
+    @Test
+    void failedAppendCanBeRetried( ) throws IOException {
+        Path path = base.resolve( "Pad" + UsageJournal.SUFFIX );
+
+        try ( UsageJournal journal = UsageJournal.open( path , CHECKSUM ) ) {
+            journal.append( Map.of( "0" , 3L ) );
+
+            /*
+             * The new slot "1" is encoded before the name that is too long fails the append.
+             */
+            Map < String, Long > failing = new LinkedHashMap <>( );
+            failing.put( "1" , 5L );
+            failing.put( "x".repeat( 0x10000 ) , 1L );
+
+            assertThrows( IOException.class , ( ) -> journal.append( failing ) );
+
+            journal.append( Map.of( "1" , 5L ) );
+            journal.append( Map.of( "0" , 1L ) );
+        }
+
+        assertEquals( Map.of( "0" , 4L , "1" , 5L ) , UsageJournal.replay( path , CHECKSUM ) );
+    }
+
+    @Test
+    void reopenedJournalKeepsItsSlots( ) throws IOException {
+        Path path = base.resolve( "Pad" + UsageJournal.SUFFIX );
+
+        try ( UsageJournal journal = UsageJournal.open( path , CHECKSUM ) ) {
+            journal.append( Map.of( "0" , 2L ) );
+        }
+
+        try ( UsageJournal journal = UsageJournal.open( path , CHECKSUM ) ) {
+            journal.append( Map.of( "0" , 1L , "1" , 7L ) );
+        }
+
+        assertEquals( Map.of( "0" , 3L , "1" , 7L ) , UsageJournal.replay( path , CHECKSUM ) );
+    }
+}
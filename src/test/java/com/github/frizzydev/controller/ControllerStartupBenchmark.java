@@ -0,0 +1,104 @@
+package com.github.frizzydev.controller;
+
+import com.github.frizzydev.JSON.UsagePersistenceService;
+import net.java.games.input.Controller;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Times the staged startup of loadLControllers ( ) on synthetic devices and a large profiles folder, and reports the
+ * time until the first device polls and the first tracked event, next to the time until every device started.
+ * Run with {@code mvn test -Pbenchmark}.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+@Tag( "benchmark" )
+class ControllerStartupBenchmark {
+
+    private static final int DEVICES = 64;
+
+    private static final int BUTTONS = 32;
+
+    private static final int PROFILES = 2_000;
+
+    private static final int RUNS = 5;
+
+    @TempDir
+    Path base;
+
+    @Test
+    void startup( ) throws Exception {
+        Path profiles = Files.createDirectories( base.resolve( "Profiles" ) );
+        Path json = Files.createDirectories( base.resolve( "Json" ) );
+        FakeController[] devices = new FakeController[ DEVICES ];
+
+        for ( int i = 0; i < DEVICES; i++ ) {
+            devices[ i ] = FakeController.withButtons( "Device " + i , BUTTONS );
+        }
+
+        for ( int i = 0; i < PROFILES; i++ ) {
+            writeProfile( profiles , "Device " + i );
+        }
+
+        for ( int run = 0; run < RUNS; run++ ) {
+            ControllerManager manager = new ControllerManager( profiles.toFile( ) , json.toFile( ) , new DeviceEnumerator( ( ) -> devices.clone( ) ) );
+            AtomicBoolean pressing = new AtomicBoolean( true );
+
+            /*
+             * Devices are sampled, so the first event is the first change after a device started polling.
+             */
+            Thread presser = Thread.ofPlatform( ).daemon( ).start( ( ) -> {
+                for ( int cycle = 0; pressing.get( ); cycle++ ) {
+                    devices[ DEVICES - 1 ].component( 0 ).set( cycle & 1 );
+                    Thread.onSpinWait( );
+                }
+            } );
+
+            long start = System.nanoTime( );
+            manager.loadLControllers( );
+            long started = System.nanoTime( ) - start;
+
+            for ( int wait = 0; wait < 500 && manager.getTimeToFirstEvent( TimeUnit.NANOSECONDS ) < 0L; wait++ ) {
+                Thread.sleep( 10 );
+            }
+
+            pressing.set( false );
+            presser.join( );
+
+            long firstPolling = manager.getTimeToFirstPolling( TimeUnit.NANOSECONDS );
+            long firstEvent = manager.getTimeToFirstEvent( TimeUnit.NANOSECONDS );
+
+            System.out.printf( "run %d: all %d devices started %,8.2f ms, first polling %,8.2f ms, first event %,8.2f ms%n" , run , DEVICES ,
+                    started / 1e6 , firstPolling / 1e6 , firstEvent / 1e6 );
+
+            assertEquals( DEVICES , manager.getLControllers( ).size( ) );
+            assertTrue( manager.getLControllers( ).stream( ).allMatch( LController::isSampled ) , "Every device should have its profile." );
+            assertTrue( firstPolling >= 0L && firstPolling <= started , "The first device should poll before startup returns." );
+            assertTrue( firstEvent >= 0L , "An event should have been tracked." );
+
+            for ( LController lController : manager.getLControllers( ) ) {
+                lController.stopEventPolling( );
+            }
+
+            UsagePersistenceService persistence = manager.getUsagePersistence( );
+            persistence.shutdown( );
+        }
+    }
+
+    private static void writeProfile( Path folder , String device ) throws IOException {
+        Files.writeString( folder.resolve( device + ".json" ) , "{\"DeviceName\":\"" + device + "\",\"DeviceDescription\":\"Synthetic\","
+                + "\"DeviceType\":\"Gamepad\",\"PollMode\":\"" + com.github.frizzydev.controller.Profiles.ControllerProfile.POLL_SAMPLING + "\"}" );
+    }
+}
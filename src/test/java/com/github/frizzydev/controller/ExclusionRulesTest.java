@@ -0,0 +1,97 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Controller;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that every rule kind excludes the devices it should, and that the glob automaton agrees with matching each
+ * glob on its own.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class ExclusionRulesTest {
+
+    @Test
+    void everyRuleKindExcludes( ) {
+        ExclusionRules rules = ExclusionRules.compile( List.of(
+                "# comment" ,
+                "" ,
+                "Plain Pad" ,
+                "exact: Exact Pad" ,
+                "prefix: Virtual" ,
+                "glob: *Mouse?" ,
+                "glob: Wheel**Pro" ,
+                "regex: Stick [0-9]+" ,
+                "regex: (" ,
+                "type: Keyboard" ,
+                "vendor: Pad" ) );
+
+        assertEquals( 8 , rules.size( ) , "The invalid regex is skipped." );
+        assertTrue( rules.isExcluded( "Plain Pad" , null ) );
+        assertTrue( rules.isExcluded( "Exact Pad" , null ) );
+        assertTrue( rules.isExcluded( "Virtual Joystick" , null ) );
+        assertTrue( rules.isExcluded( "Gaming Mouse2" , null ) );
+        assertTrue( rules.isExcluded( "Mouse2" , null ) );
+        assertTrue( rules.isExcluded( "WheelPro" , null ) );
+        assertTrue( rules.isExcluded( "Wheel X Pro" , null ) );
+        assertTrue( rules.isExcluded( "Stick 12" , null ) );
+        assertTrue( rules.isExcluded( "Anything" , Controller.Type.KEYBOARD ) );
+        assertTrue( rules.isExcluded( "vendor: Pad" , null ) );
+
+        assertFalse( rules.isExcluded( "Gaming Mouse" , null ) );
+        assertFalse( rules.isExcluded( "Wheel Pro 2" , null ) );
+        assertFalse( rules.isExcluded( "Stick" , null ) );
+        assertFalse( rules.isExcluded( "Pad" , Controller.Type.GAMEPAD ) );
+        assertFalse( ExclusionRules.NONE.isExcluded( "Pad" , Controller.Type.KEYBOARD ) );
+    }
+
+    @Test
+    void globsMatchLikeEachGlobOnItsOwn( ) {
+        Random random = new Random( 7 );
+        String alphabet = "ab*?";
+        List < String > globs = new ArrayList <>( );
+        List < Pattern > expected = new ArrayList <>( );
+
+        for ( int i = 0; i < 40; i++ ) {
+            StringBuilder glob = new StringBuilder( );
+
+            for ( int length = random.nextInt( 6 ); length >= 0; length-- ) {
+                glob.append( alphabet.charAt( random.nextInt( alphabet.length( ) ) ) );
+            }
+
+            globs.add( "glob:" + glob );
+            expected.add( Pattern.compile( glob.toString( ).replace( "?" , "." ).replace( "*" , ".*" ) ) );
+        }
+
+        ExclusionRules rules = ExclusionRules.compile( globs );
+
+        /*
+         * Every name is checked twice, once building the states it needs and once reusing them.
+         */
+        for ( int pass = 0; pass < 2; pass++ ) {
+            Random names = new Random( 11 );
+
+            for ( int i = 0; i < 2000; i++ ) {
+                StringBuilder name = new StringBuilder( );
+
+                for ( int length = names.nextInt( 10 ); length > 0; length-- ) {
+                    name.append( names.nextBoolean( ) ? 'a' : 'b' );
+                }
+
+                boolean matched = expected.stream( ).anyMatch( pattern -> pattern.matcher( name ).matches( ) );
+                assertEquals( matched , rules.isExcluded( name.toString( ) , null ) , name.toString( ) );
+            }
+        }
+    }
+}
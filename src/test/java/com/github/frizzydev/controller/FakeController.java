@@ -0,0 +1,201 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+import net.java.games.input.EventQueue;
+import net.java.games.input.Rumbler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A controller whose component values are set by the test. Its event queue stays empty unless the test fills it,
+ * see {@link #setOnPoll(Runnable)}.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+final class FakeController implements Controller {
+
+    private final String name;
+
+    private final int portNumber;
+
+    private final FakeComponent[] components;
+
+    private EventQueue queue = new EventQueue( 1 );
+
+    private Runnable onPoll;
+
+    private final AtomicInteger polls = new AtomicInteger( );
+
+    private volatile boolean connected = true;
+
+    FakeController( String name , int portNumber , FakeComponent... components ) {
+        this.name = name;
+        this.portNumber = portNumber;
+        this.components = components;
+    }
+
+    /**
+     * Returns a controller with the provided number of buttons, named "Button 0" and up.
+     */
+    static FakeController withButtons( String name , int buttons ) {
+        FakeComponent[] components = new FakeComponent[ buttons ];
+
+        for ( int i = 0; i < buttons; i++ ) {
+            components[ i ] = new FakeComponent( "Button " + i , new Component.Identifier.Button( String.valueOf( i ) ) , false );
+        }
+
+        return new FakeController( name , 0 , components );
+    }
+
+    FakeComponent component( int index ) {
+        return components[ index ];
+    }
+
+    /**
+     * Runs the provided task on every poll, before the poll returns, the way JInput fills the event queue.
+     */
+    void setOnPoll( Runnable onPoll ) {
+        this.onPoll = onPoll;
+    }
+
+    /**
+     * Sets what every further poll returns. A disconnected device returns false.
+     */
+    void setConnected( boolean connected ) {
+        this.connected = connected;
+    }
+
+    /**
+     * Returns the number of times the controller was polled.
+     */
+    int polls( ) {
+        return polls.get( );
+    }
+
+    @Override
+    public Controller[] getControllers( ) {
+        return new Controller[ 0 ];
+    }
+
+    @Override
+    public Type getType( ) {
+        return Type.GAMEPAD;
+    }
+
+    @Override
+    public Component[] getComponents( ) {
+        return components;
+    }
+
+    @Override
+    public Component getComponent( Component.Identifier id ) {
+        for ( FakeComponent component : components ) {
+            if ( component.getIdentifier( ) == id )
+                return component;
+        }
+
+        return null;
+    }
+
+    @Override
+    public Rumbler[] getRumblers( ) {
+        return new Rumbler[ 0 ];
+    }
+
+    @Override
+    public boolean poll( ) {
+        polls.incrementAndGet( );
+
+        if ( onPoll != null )
+            onPoll.run( );
+
+        return connected;
+    }
+
+    @Override
+    public void setEventQueueSize( int size ) {
+        queue = new EventQueue( size );
+    }
+
+    @Override
+    public EventQueue getEventQueue( ) {
+        return queue;
+    }
+
+    @Override
+    public PortType getPortType( ) {
+        return PortType.USB;
+    }
+
+    @Override
+    public int getPortNumber( ) {
+        return portNumber;
+    }
+
+    @Override
+    public String getName( ) {
+        return name;
+    }
+
+    @Override
+    public String toString( ) {
+        return name;
+    }
+
+    /**
+     * A component whose value is set by the test.
+     */
+    static final class FakeComponent implements Component {
+
+        private final String name;
+
+        private final Identifier identifier;
+
+        private final boolean analog;
+
+        private float value;
+
+        FakeComponent( String name , Identifier identifier , boolean analog ) {
+            this.name = name;
+            this.identifier = identifier;
+            this.analog = analog;
+        }
+
+        void set( float value ) {
+            this.value = value;
+        }
+
+        @Override
+        public Identifier getIdentifier( ) {
+            return identifier;
+        }
+
+        @Override
+        public boolean isRelative( ) {
+            return false;
+        }
+
+        @Override
+        public boolean isAnalog( ) {
+            return analog;
+        }
+
+        @Override
+        public float getDeadZone( ) {
+            return 0f;
+        }
+
+        @Override
+        public float getPollData( ) {
+            return value;
+        }
+
+        @Override
+        public String getName( ) {
+            return name;
+        }
+    }
+}
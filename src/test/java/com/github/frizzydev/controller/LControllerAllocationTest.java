@@ -0,0 +1,100 @@
+package com.github.frizzydev.controller;
+
+import net.java.games.input.Event;
+import net.java.games.input.TestEvents;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a poll cycle allocates nothing once the poller is warmed up, so tracking never causes garbage
+ * collection pauses no matter how many events a device reports.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class LControllerAllocationTest {
+
+    private static final int WARMUP_CYCLES = 50_000;
+
+    private static final int MEASURED_CYCLES = 100_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS = ( com.sun.management.ThreadMXBean ) ManagementFactory.getThreadMXBean( );
+
+    private final PollingEngine engine = new PollingEngine( 1 );
+
+    @AfterEach
+    void shutdown( ) {
+        engine.shutdown( );
+    }
+
+    @Test
+    void drainCycleCountingPressesDoesNotAllocate( ) {
+        FakeController controller = FakeController.withButtons( "Pad" , 16 );
+        controller.setEventQueueSize( 8 );
+        LController lController = new LController( controller , null , engine , "Pad" );
+
+        /*
+         * Every poll queues a press and a release of the next button, so every drain processes two events and
+         * counts one use.
+         */
+        Event event = new Event( );
+        int[] polls = new int[ 1 ];
+
+        controller.setOnPoll( ( ) -> {
+            FakeController.FakeComponent button = controller.component( polls[ 0 ]++ & 15 );
+            long nanos = System.nanoTime( );
+
+            event.set( button , 1f , nanos );
+            TestEvents.add( controller.getEventQueue( ) , event );
+            event.set( button , 0f , nanos );
+            TestEvents.add( controller.getEventQueue( ) , event );
+        } );
+
+        assertEquals( 0L , allocatedBytes( lController , null ) );
+        assertEquals( ( long ) ( WARMUP_CYCLES + MEASURED_CYCLES ) / 16 , lController.getUsage( "0" ) , "Every release should have been counted." );
+    }
+
+    @Test
+    void sampleCycleCountingPressesDoesNotAllocate( ) {
+        FakeController controller = FakeController.withButtons( "Pad" , 128 );
+        LController lController = new LController( controller , null , engine , "Pad" );
+        lController.setSampled( true );
+
+        assertEquals( 0L , allocatedBytes( lController , controller ) );
+        assertTrue( lController.getUsage( "0" ) > 0 , "Releases should have been counted." );
+    }
+
+    /**
+     * Runs poll cycles and returns the bytes all the measured cycles allocated together. If a controller is
+     * provided, a different button is pressed or released on every cycle.
+     */
+    private long allocatedBytes( LController lController , FakeController controller ) {
+        THREADS.setThreadAllocatedMemoryEnabled( true );
+
+        for ( int cycle = 0; cycle < WARMUP_CYCLES; cycle++ ) {
+            poll( lController , controller , cycle );
+        }
+
+        long before = THREADS.getCurrentThreadAllocatedBytes( );
+
+        for ( int cycle = 0; cycle < MEASURED_CYCLES; cycle++ ) {
+            poll( lController , controller , cycle );
+        }
+
+        return THREADS.getCurrentThreadAllocatedBytes( ) - before;
+    }
+    private void poll( LController lController , FakeController controller , int cycle ) {
+        if ( controller != null ) {
+            int button = cycle & 127;
+            controller.component( button ).set( ( cycle >>> 7 & 1 ) == 0 ? 1f : 0f );
+        }
+
+        lController.pollCycle( engine );
+    }
+}
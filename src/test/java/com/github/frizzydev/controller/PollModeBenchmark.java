@@ -0,0 +1,121 @@
+package com.github.frizzydev.controller;
+
+import com.github.frizzydev.Benchmark;
+import net.java.games.input.Event;
+import net.java.games.input.TestEvents;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the CPU time of a poll cycle when draining the event queue and when sampling, on a synthetic 128-button
+ * device. When draining, the events are queued inside poll ( ), the way JInput queues them. Run with
+ * {@code mvn test -Pbenchmark}.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+@Tag( "benchmark" )
+class PollModeBenchmark {
+
+    private static final int BUTTONS = 128;
+
+    private static final int CYCLES = 50_000;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean( );
+
+    private final PollingEngine engine = new PollingEngine( 1 );
+
+    @AfterEach
+    void shutdown( ) {
+        engine.shutdown( );
+    }
+
+    @Test
+    void cpuPerCycle( ) {
+        compare( "idle" , false , 1 );
+        compare( "every button changes" , true , 1 );
+        compare( "every button changes, 8 events each" , true , 8 );
+    }
+
+    private void compare( String scenario , boolean changing , int eventsPerChange ) {
+        LController drained = device( false , changing , eventsPerChange );
+        LController sampled = device( true , changing , eventsPerChange );
+
+        double drainNanos = cpuPerCycle( drained , changing );
+        double sampleNanos = cpuPerCycle( sampled , changing );
+
+        System.out.printf( "%-40s drain %,10.0f ns/cycle, sample %,10.0f ns/cycle%n" , scenario , drainNanos , sampleNanos );
+        Benchmark.compare( scenario + ", sampling speedup" , drainNanos , sampleNanos );
+
+        assertEquals( drained.getUsage( "0" ) , sampled.getUsage( "0" ) , "Both modes should count the same releases." );
+    }
+
+    /**
+     * Creates a 128-button device. A drained device queues eventsPerChange events for every button on every poll
+     * while its buttons are changing.
+     */
+    private LController device( boolean sampledMode , boolean changing , int eventsPerChange ) {
+        FakeController controller = FakeController.withButtons( "Pad" , BUTTONS );
+        LController lController = new LController( controller , null , engine , "Pad" );
+        lController.setSampled( sampledMode );
+
+        if ( !sampledMode && changing ) {
+            controller.setEventQueueSize( BUTTONS * eventsPerChange );
+            Event event = new Event( );
+
+            controller.setOnPoll( ( ) -> {
+                long nanos = System.nanoTime( );
+
+                for ( int button = 0; button < BUTTONS; button++ ) {
+                    FakeController.FakeComponent component = controller.component( button );
+                    event.set( component , component.getPollData( ) , nanos );
+
+                    for ( int i = 0; i < eventsPerChange; i++ ) {
+                        TestEvents.add( controller.getEventQueue( ) , event );
+                    }
+                }
+            } );
+        }
+
+        return lController;
+    }
+
+    /**
+     * Runs as many warmup cycles as measured cycles and returns the CPU time of a measured cycle. Every button is
+     * pressed on even cycles and released on odd ones if the buttons are changing.
+     */
+    private double cpuPerCycle( LController lController , boolean changing ) {
+        FakeController controller = ( FakeController ) lController.getController( );
+
+        for ( int cycle = 0; cycle < CYCLES; cycle++ ) {
+            cycle( lController , controller , changing , cycle );
+        }
+
+        long start = THREADS.getCurrentThreadCpuTime( );
+
+        for ( int cycle = 0; cycle < CYCLES; cycle++ ) {
+            cycle( lController , controller , changing , cycle );
+        }
+
+        return ( double ) ( THREADS.getCurrentThreadCpuTime( ) - start ) / CYCLES;
+    }
+
+    private void cycle( LController lController , FakeController controller , boolean changing , int cycle ) {
+        if ( changing ) {
+            float value = ( cycle & 1 ) == 0 ? 1f : 0f;
+
+            for ( int button = 0; button < BUTTONS; button++ ) {
+                controller.component( button ).set( value );
+            }
+        }
+
+        lController.pollCycle( engine );
+    }
+}
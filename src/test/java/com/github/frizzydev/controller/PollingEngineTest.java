@@ -0,0 +1,98 @@
+package com.github.frizzydev.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which intervals the polling engine picks for idle controllers, and that it stops polling devices that
+ * were disconnected. The idle cycles are run directly, so the intervals do not depend on how busy the machine
+ * running the test is.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class PollingEngineTest {
+
+    private static final int TARGET_RATE = 500;
+
+    private static final int IDLE_RATE = 10;
+
+    /**
+     * Enough empty cycles to wait out the idle cycles before backing off and every doubling up to the idle rate.
+     */
+    private static final int IDLE_CYCLES = PollScheduler.DEFAULT_IDLE_CYCLES + 32;
+
+    private final PollingEngine engine = new PollingEngine( 1 );
+
+    @AfterEach
+    void shutdown( ) {
+        engine.shutdown( );
+    }
+
+    /**
+     * Runs the provided number of empty poll cycles and returns the interval the engine picked after the last one.
+     */
+    private long idleFor( LController lController , int cycles ) {
+        long interval = 0L;
+
+        for ( int i = 0; i < cycles; i++ ) {
+            interval = PollingEngine.nextInterval( lController , lController.pollCycle( engine ) );
+        }
+
+        return interval;
+    }
+
+    @Test
+    void idleSampledControllerIsNotBackedOff( ) {
+        LController drained = new LController( FakeController.withButtons( "Drained" , 8 ) , null , engine , "Drained" );
+        LController sampled = new LController( FakeController.withButtons( "Sampled" , 8 ) , null , engine , "Sampled" );
+        sampled.setSampled( true );
+
+        long target = TimeUnit.SECONDS.toNanos( 1 ) / TARGET_RATE;
+        long idle = TimeUnit.SECONDS.toNanos( 1 ) / IDLE_RATE;
+
+        for ( LController lController : new LController[] { drained , sampled } ) {
+            lController.setPollRates( TARGET_RATE , IDLE_RATE );
+            lController.getPollScheduler( ).reset( );
+            assertEquals( target , idleFor( lController , PollScheduler.DEFAULT_IDLE_CYCLES ) , lController.getControllerName( ) );
+        }
+
+        assertEquals( idle , idleFor( drained , IDLE_CYCLES ) , "The drained controller backs off to the idle rate." );
+        assertEquals( target , idleFor( sampled , IDLE_CYCLES ) , "The sampled controller keeps the target rate." );
+    }
+
+    @Test
+    void disconnectedControllerIsUnregistered( ) throws InterruptedException {
+        FakeController device = FakeController.withButtons( "Unplugged" , 8 );
+        LController lController = new LController( device , null , engine , "Unplugged" );
+        lController.startEventPolling( );
+        device.setConnected( false );
+
+        long deadline = System.nanoTime( ) + TimeUnit.SECONDS.toNanos( 5 );
+
+        while ( engine.getRegisteredCount( ) > 0 && System.nanoTime( ) < deadline ) {
+            Thread.sleep( 1L );
+        }
+
+        assertEquals( 0 , engine.getRegisteredCount( ) );
+        assertFalse( lController.isPolling( ) );
+        assertFalse( lController.isConnected( ) );
+
+        int polls = device.polls( );
+        Thread.sleep( 50L );
+        assertEquals( polls , device.polls( ) , "The disconnected device was polled again." );
+
+        device.setConnected( true );
+        lController.startEventPolling( );
+
+        assertTrue( lController.isConnected( ) );
+        assertTrue( engine.isRegistered( lController ) );
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.frizzydev.controller.Profiles;
+
+import com.github.frizzydev.JSON.ProfileCatalog;
+import com.github.frizzydev.JSON.ProfilesProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs manifest based profile updates against a local HTTP server serving two versions of a profile pack, and
+ * applies each delta to the profile catalog in place the way ControllerManager does.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class ProfileManifestUpdateTest {
+
+    private static final String MANIFEST = "/pack/Profiles.manifest";
+
+    @TempDir
+    Path base;
+
+    private ProfileServer server;
+
+    private ProfilesDownloader downloader;
+
+    private Path folder;
+
+    @BeforeEach
+    void start( ) throws IOException {
+        server = new ProfileServer( );
+        downloader = new ProfilesDownloader( server.uri( "/pack/Profiles.zip" ) );
+        folder = base.resolve( "Profiles" );
+    }
+
+    @AfterEach
+    void stop( ) {
+        server.close( );
+    }
+
+    private static byte[] profile( String device , String description ) {
+        return ( "{\"DeviceName\":\"" + device + "\",\"DeviceDescription\":\"" + description + "\"}" ).getBytes( StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Serves the provided profile files and a manifest listing them.
+     */
+    private void publish( Map < String, byte[] > profiles ) {
+        StringBuilder manifest = new StringBuilder( "# Test pack\n" );
+
+        for ( Map.Entry < String, byte[] > entry : profiles.entrySet( ) ) {
+            String hash = HexFormat.of( ).formatHex( ProfileManifest.newDigest( ).digest( entry.getValue( ) ) );
+            manifest.append( hash ).append( "  " ).append( entry.getKey( ) ).append( '\n' );
+            server.put( "/pack/" + entry.getKey( ) , entry.getValue( ) );
+        }
+
+        server.put( MANIFEST , manifest.toString( ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private ProfileManifest.Delta update( ) {
+        return downloader.updateProfiles( server.uri( MANIFEST ) , folder.toString( ) );
+    }
+
+    /**
+     * Applies a delta to the catalog in place, the way ControllerManager.updateProfiles ( ) does.
+     */
+    private Set < String > apply( ProfilesProcessor processor , ProfileCatalog catalog , ProfileManifest.Delta delta ) {
+        List < File > changed = new ArrayList <>( );
+        List < File > removed = new ArrayList <>( );
+
+        delta.added( ).forEach( name -> changed.add( folder.resolve( name ).toFile( ) ) );
+        delta.changed( ).forEach( name -> changed.add( folder.resolve( name ).toFile( ) ) );
+        delta.removed( ).forEach( name -> removed.add( folder.resolve( name ).toFile( ) ) );
+
+        return processor.updateCatalog( catalog , changed , removed );
+    }
+
+    @Test
+    void onlyTheDeltaIsFetchedAndApplied( ) throws IOException {
+        Map < String, byte[] > first = new LinkedHashMap <>( );
+        first.put( "Pad.json" , profile( "Pad" , "Pad v1" ) );
+        first.put( "Wheel.json" , profile( "Wheel" , "Wheel v1" ) );
+        first.put( "Stick.json" , profile( "Stick" , "Stick v1" ) );
+        publish( first );
+
+        ProfileManifest.Delta initial = update( );
+
+        assertEquals( List.of( "Pad.json" , "Wheel.json" , "Stick.json" ) , initial.added( ) );
+        assertTrue( initial.changed( ).isEmpty( ) && initial.removed( ).isEmpty( ) );
+
+        ProfilesProcessor processor = new ProfilesProcessor( folder.toFile( ) );
+        ProfileCatalog catalog = processor.getCatalog( );
+        assertEquals( Set.of( "Pad" , "Wheel" , "Stick" ) , catalog.names( ) );
+
+        Map < String, byte[] > second = new LinkedHashMap <>( );
+        second.put( "Pad.json" , first.get( "Pad.json" ) );
+        second.put( "Wheel.json" , profile( "Wheel" , "Wheel v2" ) );
+        second.put( "Pedals.json" , profile( "Pedals" , "Pedals v1" ) );
+        server.remove( "/pack/Stick.json" );
+        publish( second );
+
+        ProfileManifest.Delta delta = update( );
+
+        assertEquals( List.of( "Pedals.json" ) , delta.added( ) );
+        assertEquals( List.of( "Wheel.json" ) , delta.changed( ) );
+        assertEquals( List.of( "Stick.json" ) , delta.removed( ) );
+        assertEquals( 1 , server.requests( "/pack/Pad.json" ).size( ) , "An unchanged profile should not be downloaded again." );
+        assertEquals( 2 , server.requests( "/pack/Wheel.json" ).size( ) );
+        assertFalse( Files.exists( folder.resolve( "Stick.json" ) ) );
+
+        Set < String > affected = apply( processor , catalog , delta );
+
+        assertEquals( Set.of( "Wheel" , "Pedals" , "Stick" ) , affected );
+        assertEquals( Set.of( "Pad" , "Wheel" , "Pedals" ) , catalog.names( ) );
+        assertEquals( "Wheel v2" , catalog.get( "Wheel" ).getDescription( ) );
+        assertEquals( "Pedals v1" , catalog.get( "Pedals" ).getDescription( ) );
+        assertNull( catalog.get( "Stick" ) );
+    }
+
+    @Test
+    void unchangedManifestCostsOneNotModified( ) {
+        publish( Map.of( "Pad.json" , profile( "Pad" , "Pad v1" ) ) );
+        update( );
+
+        ProfileManifest.Delta delta = update( );
+
+        assertTrue( delta.isEmpty( ) );
+        assertEquals( 304 , downloader.getLastStatus( ) );
+        assertEquals( 1 , server.requests( "/pack/Pad.json" ).size( ) );
+    }
+
+    @Test
+    void profileNotMatchingTheManifestChangesNothing( ) throws IOException {
+        publish( Map.of( "Pad.json" , profile( "Pad" , "Pad v1" ) ) );
+        update( );
+
+        publish( Map.of( "Pad.json" , profile( "Pad" , "Pad v2" ) , "Wheel.json" , profile( "Wheel" , "Wheel v1" ) ) );
+        server.put( "/pack/Wheel.json" , profile( "Wheel" , "Tampered" ) );
+
+        assertNull( update( ) );
+        assertTrue( Files.readString( folder.resolve( "Pad.json" ) ).contains( "Pad v1" ) );
+        assertFalse( Files.exists( folder.resolve( "Wheel.json" ) ) );
+        assertFalse( Files.exists( base.resolve( "Profiles.update" ) ) );
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.frizzydev.controller.Profiles;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A local stand-in for the server the profile pack and manifest are downloaded from. Every file is served with a
+ * strong ETag and honours If-None-Match, Range and If-Range. The next response of a file can be cut short to
+ * simulate an interrupted download.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+final class ProfileServer implements AutoCloseable {
+
+    /**
+     * A request the server received.
+     *
+     * @param path    The path of the request.
+     * @param headers The request headers, keyed by lower case name.
+     * @param status  The status the server answered with.
+     */
+    record Request( String path , Map < String, String > headers , int status ) {
+    }
+
+    private record Served( byte[] body , String etag ) {
+    }
+
+    private final HttpServer server;
+
+    private final Map < String, Served > files = new ConcurrentHashMap <>( );
+
+    private final Map < String, Integer > truncations = new ConcurrentHashMap <>( );
+
+    private final List < Request > requests = new CopyOnWriteArrayList <>( );
+
+    private int version = 0;
+
+    ProfileServer( ) throws IOException {
+        server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress( ) , 0 ) , 0 );
+        server.createContext( "/" , this::handle );
+        server.start( );
+    }
+
+    /**
+     * Serves the provided bytes at the provided path, under a new ETag.
+     */
+    synchronized void put( String path , byte[] body ) {
+        files.put( path , new Served( body , "\"v" + ( ++version ) + "\"" ) );
+    }
+
+    void remove( String path ) {
+        files.remove( path );
+    }
+
+    /**
+     * Cuts the next response of the provided path short after the provided number of body bytes.
+     */
+    void truncateNext( String path , int bytes ) {
+        truncations.put( path , bytes );
+    }
+
+    URI uri( String path ) {
+        return URI.create( "http://" + server.getAddress( ).getHostString( ) + ":" + server.getAddress( ).getPort( ) + path );
+    }
+
+    List < Request > requests( ) {
+        return requests;
+    }
+
+    /**
+     * Returns the requests of the provided path.
+     */
+    List < Request > requests( String path ) {
+        return requests.stream( ).filter( request -> request.path( ).equals( path ) ).toList( );
+    }
+
+    private void handle( HttpExchange exchange ) throws IOException {
+        String path = exchange.getRequestURI( ).getPath( );
+        Map < String, String > headers = new ConcurrentHashMap <>( );
+        exchange.getRequestHeaders( ).forEach( ( name , values ) -> headers.put( name.toLowerCase( ) , values.get( 0 ) ) );
+
+        Served served = files.get( path );
+
+        try ( exchange ) {
+            if ( served == null ) {
+                respond( exchange , path , headers , 404 , new byte[ 0 ] , 0 );
+                return;
+            }
+
+            exchange.getResponseHeaders( ).set( "ETag" , served.etag( ) );
+
+            if ( served.etag( ).equals( headers.get( "if-none-match" ) ) ) {
+                requests.add( new Request( path , headers , 304 ) );
+                exchange.sendResponseHeaders( 304 , -1 );
+                return;
+            }
+
+            String range = headers.get( "range" );
+            String ifRange = headers.get( "if-range" );
+
+            if ( range != null && ( ifRange == null || ifRange.equals( served.etag( ) ) ) ) {
+                int start = Integer.parseInt( range.substring( "bytes=".length( ) , range.indexOf( '-' ) ) );
+
+                if ( start >= served.body( ).length ) {
+                    exchange.getResponseHeaders( ).set( "Content-Range" , "bytes */" + served.body( ).length );
+                    respond( exchange , path , headers , 416 , new byte[ 0 ] , 0 );
+                    return;
+                }
+
+                exchange.getResponseHeaders( ).set( "Content-Range" , "bytes " + start + "-" + ( served.body( ).length - 1 ) + "/" + served.body( ).length );
+                respond( exchange , path , headers , 206 , served.body( ) , start );
+                return;
+            }
+
+            respond( exchange , path , headers , 200 , served.body( ) , 0 );
+        }
+    }
+
+    private void respond( HttpExchange exchange , String path , Map < String, String > headers , int status , byte[] body , int offset ) throws IOException {
+        requests.add( new Request( path , headers , status ) );
+
+        int length = body.length - offset;
+        Integer cut = truncations.remove( path );
+
+        if ( length == 0 ) {
+            exchange.sendResponseHeaders( status , -1 );
+            return;
+        }
+
+        exchange.sendResponseHeaders( status , length );
+
+        OutputStream out = exchange.getResponseBody( );
+
+        if ( cut != null && cut < length ) {
+            out.write( body , offset , cut );
+            out.flush( );
+
+            /*
+             * Closing the connection with bytes still owed makes the client see an interrupted body.
+             */
+            throw new IOException( "Response cut short on purpose." );
+        }
+
+        out.write( body , offset , length );
+    }
+
+    @Override
+    public void close( ) {
+        server.stop( 0 );
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.frizzydev.controller.Profiles;
+
+import com.github.frizzydev.JSON.ProfileCatalog;
+import com.github.frizzydev.JSON.ProfilesProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the profile pack download end to end against a local HTTP server.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class ProfilesDownloaderTest {
+
+    private static final String PACK = "/Profiles.zip";
+
+    @TempDir
+    Path folder;
+
+    private ProfileServer server;
+
+    private ProfilesDownloader downloader;
+
+    @BeforeEach
+    void start( ) throws IOException {
+        server = new ProfileServer( );
+        downloader = new ProfilesDownloader( server.uri( PACK ) );
+    }
+
+    @AfterEach
+    void stop( ) {
+        server.close( );
+    }
+
+    private static byte[] pack( long seed , int size ) {
+        byte[] bytes = new byte[ size ];
+        new Random( seed ).nextBytes( bytes );
+        return bytes;
+    }
+
+    private Path download( ) {
+        return Path.of( downloader.download( folder.toString( ) ) );
+    }
+
+    @Test
+    void unchangedPackCostsOneNotModified( ) throws IOException {
+        byte[] pack = pack( 1 , 200_000 );
+        server.put( PACK , pack );
+
+        assertArrayEquals( pack , Files.readAllBytes( download( ) ) );
+        assertEquals( 200 , downloader.getLastStatus( ) );
+
+        assertArrayEquals( pack , Files.readAllBytes( download( ) ) );
+        assertEquals( 304 , downloader.getLastStatus( ) );
+
+        List < ProfileServer.Request > requests = server.requests( PACK );
+        assertEquals( 2 , requests.size( ) );
+        assertEquals( "\"v1\"" , requests.get( 1 ).headers( ).get( "if-none-match" ) );
+    }
+
+    @Test
+    void changedPackIsDownloadedAgain( ) throws IOException {
+        server.put( PACK , pack( 1 , 50_000 ) );
+        download( );
+
+        byte[] changed = pack( 2 , 60_000 );
+        server.put( PACK , changed );
+
+        assertArrayEquals( changed , Files.readAllBytes( download( ) ) );
+        assertEquals( 200 , downloader.getLastStatus( ) );
+    }
+
+    @Test
+    void interruptedDownloadResumesWithRange( ) throws IOException {
+        byte[] pack = pack( 3 , 500_000 );
+        server.put( PACK , pack );
+        server.truncateNext( PACK , 200_000 );
+
+        assertEquals( "Failed" , downloader.download( folder.toString( ) ) );
+        assertFalse( Files.exists( folder.resolve( ProfilesDownloader.FILE_NAME ) ) );
+
+        long partial = Files.size( folder.resolve( ProfilesDownloader.FILE_NAME + ".part" ) );
+        assertTrue( partial > 0 && partial < pack.length , "The part file should keep the bytes received." );
+
+        assertArrayEquals( pack , Files.readAllBytes( download( ) ) );
+        assertEquals( 206 , downloader.getLastStatus( ) );
+
+        ProfileServer.Request resumed = server.requests( PACK ).get( 1 );
+        assertEquals( "bytes=" + partial + "-" , resumed.headers( ).get( "range" ) );
+        assertEquals( "\"v1\"" , resumed.headers( ).get( "if-range" ) );
+        assertFalse( Files.exists( folder.resolve( ProfilesDownloader.FILE_NAME + ".part" ) ) );
+    }
+
+    @Test
+    void packChangedDuringInterruptionStartsOver( ) throws IOException {
+        server.put( PACK , pack( 4 , 300_000 ) );
+        server.truncateNext( PACK , 100_000 );
+        downloader.download( folder.toString( ) );
+
+        byte[] changed = pack( 5 , 300_000 );
+        server.put( PACK , changed );
+
+        assertArrayEquals( changed , Files.readAllBytes( download( ) ) );
+        assertEquals( 200 , downloader.getLastStatus( ) );
+    }
+
+    @Test
+    void missingPackFails( ) {
+        assertEquals( "Failed" , downloader.download( folder.toString( ) ) );
+        assertEquals( 404 , downloader.getLastStatus( ) );
+        assertFalse( Files.exists( folder.resolve( ProfilesDownloader.FILE_NAME ) ) );
+    }
+
+    @Test
+    void downloadedPackIsReadByTheCatalog( ) throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream( );
+
+        try ( ZipOutputStream out = new ZipOutputStream( zip ) ) {
+            out.putNextEntry( new ZipEntry( "Wheel.json" ) );
+            out.write( "{\"DeviceName\":\"Wheel\",\"DeviceDescription\":\"From the pack\"}".getBytes( StandardCharsets.UTF_8 ) );
+            out.closeEntry( );
+        }
+
+        server.put( PACK , zip.toByteArray( ) );
+        download( );
+
+        ProfileCatalog catalog = new ProfilesProcessor( folder.resolve( "Profiles" ).toFile( ) ).getCatalog( );
+        assertEquals( "From the pack" , catalog.get( "Wheel" ).getDescription( ) );
+    }
+}
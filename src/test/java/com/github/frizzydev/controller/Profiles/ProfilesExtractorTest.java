@@ -0,0 +1,89 @@
+package com.github.frizzydev.controller.Profiles;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that refreshing a profile pack only rewrites what changed, in place, without ever removing the profiles
+ * folder or invalidating a watch on it.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class ProfilesExtractorTest {
+
+    @TempDir
+    Path base;
+
+    /**
+     * Writes a zip file holding the provided entries.
+     */
+    private static Path writeZip( Path zip , Map < String, String > entries ) throws IOException {
+        try ( ZipOutputStream out = new ZipOutputStream( Files.newOutputStream( zip ) ) ) {
+            for ( Map.Entry < String, String > entry : entries.entrySet( ) ) {
+                out.putNextEntry( new ZipEntry( entry.getKey( ) ) );
+                out.write( entry.getValue( ).getBytes( StandardCharsets.UTF_8 ) );
+                out.closeEntry( );
+            }
+        }
+
+        return zip;
+    }
+
+    @Test
+    void refreshUpdatesInPlaceAndKeepsTheWatch( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+        ProfilesExtractor extractor = new ProfilesExtractor( );
+
+        assertTrue( extractor.extractTo( writeZip( base.resolve( "v1.zip" ) , Map.of( "pad.json" , "pad 1" , "wheel.json" , "wheel 1" ) ).toString( ) , folder.toString( ) ) );
+        assertEquals( 2 , extractor.getWrittenCount( ) );
+
+        Files.writeString( folder.resolve( "custom.json" ) , "mine" );
+
+        try ( WatchService watcher = FileSystems.getDefault( ).newWatchService( ) ) {
+            WatchKey key = folder.register( watcher , StandardWatchEventKinds.ENTRY_CREATE , StandardWatchEventKinds.ENTRY_MODIFY );
+            Path v2 = writeZip( base.resolve( "v2.zip" ) , Map.of( "pad.json" , "pad 2" , "wheel.json" , "wheel 1" , "stick.json" , "stick 1" ) );
+
+            assertTrue( extractor.extractTo( v2.toString( ) , folder.toString( ) ) );
+            assertTrue( key.isValid( ) , "The watch on the profiles folder was cancelled." );
+        }
+
+        assertEquals( 2 , extractor.getWrittenCount( ) );
+        assertEquals( 1 , extractor.getSkippedCount( ) );
+        assertEquals( "pad 2" , Files.readString( folder.resolve( "pad.json" ) ) );
+        assertEquals( "wheel 1" , Files.readString( folder.resolve( "wheel.json" ) ) );
+        assertEquals( "stick 1" , Files.readString( folder.resolve( "stick.json" ) ) );
+        assertEquals( "mine" , Files.readString( folder.resolve( "custom.json" ) ) , "Files outside the pack are kept." );
+        assertFalse( Files.exists( base.resolve( "Profiles.staging" ) ) );
+    }
+
+    @Test
+    void rejectedPackLeavesTheFolderUntouched( ) throws IOException {
+        Path folder = base.resolve( "Profiles" );
+        Files.createDirectories( folder );
+        Files.writeString( folder.resolve( "pad.json" ) , "pad 1" );
+
+        Path zip = writeZip( base.resolve( "bad.zip" ) , Map.of( "pad.json" , "pad 2" , "../escape.json" , "bad" ) );
+
+        assertFalse( new ProfilesExtractor( ).extractTo( zip.toString( ) , folder.toString( ) ) );
+        assertEquals( "pad 1" , Files.readString( folder.resolve( "pad.json" ) ) );
+        assertFalse( Files.exists( base.resolve( "escape.json" ) ) );
+    }
+}
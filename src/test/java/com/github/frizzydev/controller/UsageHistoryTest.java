@@ -0,0 +1,182 @@
+package com.github.frizzydev.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks how the usage history buckets uses: bucket rollover at minute, hour and day boundaries, rings wrapping
+ * around once their window is full, and readers never seeing the buckets of a half recorded use.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class UsageHistoryTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static final long HOUR = 60 * MINUTE;
+
+    private static final long DAY = 24 * HOUR;
+
+    /**
+     * Midnight UTC, the start of a minute, an hour and a day bucket at once.
+     */
+    private static final long MIDNIGHT = 20_000L * DAY;
+
+    private static long bucket( UsageHistory.Resolution resolution , long timeMillis ) {
+        return resolution.bucketOf( timeMillis );
+    }
+
+    @Test
+    void usesRollOverAtEveryBoundary( ) {
+        UsageHistory history = new UsageHistory( 1 );
+
+        history.record( 0 , MIDNIGHT - 1L );
+        history.record( 0 , MIDNIGHT );
+        history.record( 0 , MIDNIGHT + MINUTE - 1L );
+
+        assertEquals( 1 , history.get( UsageHistory.Resolution.MINUTE , 0 , bucket( UsageHistory.Resolution.MINUTE , MIDNIGHT - 1L ) ) );
+        assertEquals( 2 , history.get( UsageHistory.Resolution.MINUTE , 0 , bucket( UsageHistory.Resolution.MINUTE , MIDNIGHT ) ) );
+        assertEquals( 1 , history.get( UsageHistory.Resolution.HOUR , 0 , bucket( UsageHistory.Resolution.HOUR , MIDNIGHT - 1L ) ) );
+        assertEquals( 2 , history.get( UsageHistory.Resolution.HOUR , 0 , bucket( UsageHistory.Resolution.HOUR , MIDNIGHT ) ) );
+        assertEquals( 1 , history.get( UsageHistory.Resolution.DAY , 0 , bucket( UsageHistory.Resolution.DAY , MIDNIGHT - 1L ) ) );
+        assertEquals( 2 , history.get( UsageHistory.Resolution.DAY , 0 , bucket( UsageHistory.Resolution.DAY , MIDNIGHT ) ) );
+
+        /*
+         * The last minute before midnight is in the last hour, but not in the last minute.
+         */
+        assertEquals( 2L , history.count( 0 , Duration.ofMinutes( 1 ) , MIDNIGHT + MINUTE - 1L ) );
+        assertEquals( 3L , history.count( 0 , Duration.ofMinutes( 2 ) , MIDNIGHT + MINUTE - 1L ) );
+        assertArrayEquals( new int[] { 1 , 2 , 0 } , history.series( UsageHistory.Resolution.MINUTE , 0 , 3 , MIDNIGHT + MINUTE ) );
+    }
+
+    @Test
+    void minuteRingWrapsAfterAnHour( ) {
+        UsageHistory history = new UsageHistory( 2 );
+        UsageHistory.Resolution minute = UsageHistory.Resolution.MINUTE;
+
+        history.record( 0 , MIDNIGHT );
+        history.record( 1 , MIDNIGHT + ( minute.capacity - 1 ) * MINUTE );
+
+        assertEquals( 1 , history.get( minute , 0 , bucket( minute , MIDNIGHT ) ) , "The oldest minute is still in the window." );
+
+        history.record( 1 , MIDNIGHT + minute.capacity * MINUTE );
+
+        assertEquals( 0 , history.get( minute , 0 , bucket( minute , MIDNIGHT ) ) , "The reused minute was not cleared." );
+        assertEquals( 1 , history.get( minute , 1 , bucket( minute , MIDNIGHT + ( minute.capacity - 1 ) * MINUTE ) ) );
+        assertEquals( 1 , history.get( UsageHistory.Resolution.HOUR , 0 , bucket( UsageHistory.Resolution.HOUR , MIDNIGHT ) ) , "Hours still hold the use." );
+    }
+
+    @Test
+    void hourRingWrapsAfterTwoDays( ) {
+        UsageHistory history = new UsageHistory( 1 );
+        UsageHistory.Resolution hour = UsageHistory.Resolution.HOUR;
+
+        history.record( 0 , MIDNIGHT );
+        history.record( 0 , MIDNIGHT + ( hour.capacity - 1 ) * HOUR );
+
+        assertEquals( 2L , history.count( 0 , hour.window( ) , MIDNIGHT + ( hour.capacity - 1 ) * HOUR ) );
+
+        history.record( 0 , MIDNIGHT + hour.capacity * HOUR );
+
+        assertEquals( 0 , history.get( hour , 0 , bucket( hour , MIDNIGHT ) ) );
+        assertEquals( 3L , history.count( 0 , Duration.ofDays( 3 ) , MIDNIGHT + hour.capacity * HOUR ) , "Days still hold every use." );
+    }
+
+    @Test
+    void dayRingWrapsAfterAYear( ) {
+        UsageHistory history = new UsageHistory( 1 );
+        UsageHistory.Resolution day = UsageHistory.Resolution.DAY;
+
+        history.record( 0 , MIDNIGHT );
+        history.record( 0 , MIDNIGHT + 100 * DAY );
+
+        /*
+         * A jump of more than a whole window clears the ring at once.
+         */
+        history.record( 0 , MIDNIGHT + ( day.capacity + 100 ) * DAY );
+
+        assertEquals( 0 , history.get( day , 0 , bucket( day , MIDNIGHT ) ) );
+        assertEquals( 0 , history.get( day , 0 , bucket( day , MIDNIGHT + 100 * DAY ) ) );
+        assertEquals( 1L , history.total( day.window( ) , MIDNIGHT + ( day.capacity + 100 ) * DAY ) );
+
+        history.restore( day , 0 , bucket( day , MIDNIGHT ) , 5 );
+
+        assertEquals( 1L , history.total( day.window( ) , MIDNIGHT + ( day.capacity + 100 ) * DAY ) , "Restored buckets outside the window are ignored." );
+    }
+
+    @Test
+    void snapshotKeepsTheBucketsItWasTakenWith( ) {
+        UsageHistory history = new UsageHistory( 1 );
+        history.record( 0 , MIDNIGHT );
+
+        UsageHistory.Snapshot snapshot = history.snapshot( );
+        history.record( 0 , MIDNIGHT + 2 * DAY );
+
+        assertEquals( 1L , snapshot.getVersion( ) );
+        assertEquals( 2L , history.getVersion( ) );
+        assertEquals( bucket( UsageHistory.Resolution.DAY , MIDNIGHT ) , snapshot.head( UsageHistory.Resolution.DAY ) );
+        assertEquals( 1 , snapshot.get( UsageHistory.Resolution.MINUTE , 0 , bucket( UsageHistory.Resolution.MINUTE , MIDNIGHT ) ) );
+        assertEquals( 0 , history.get( UsageHistory.Resolution.MINUTE , 0 , bucket( UsageHistory.Resolution.MINUTE , MIDNIGHT ) ) );
+    }
+
+    /**
+     * A use is added to its minute, hour and day bucket in one write, so every resolution always holds the same
+     * count for a use recorded at a single instant. A reader that slipped between the three writes would see the
+     * minute ahead of the day.
+     */
+    @Test
+    void readersNeverSeeAHalfRecordedUse( ) throws InterruptedException {
+        final int slots = 8;
+        final int uses = 200_000;
+        UsageHistory history = new UsageHistory( slots );
+        AtomicReference < String > torn = new AtomicReference <>( );
+        long minute = bucket( UsageHistory.Resolution.MINUTE , MIDNIGHT );
+        long hour = bucket( UsageHistory.Resolution.HOUR , MIDNIGHT );
+        long day = bucket( UsageHistory.Resolution.DAY , MIDNIGHT );
+
+        Thread writer = Thread.ofPlatform( ).start( ( ) -> {
+            for ( int i = 0; i < uses; i++ ) {
+                history.record( i % slots , MIDNIGHT );
+            }
+        } );
+
+        Thread[] readers = new Thread[ 2 ];
+
+        for ( int r = 0; r < readers.length; r++ ) {
+            int first = r;
+
+            readers[ r ] = Thread.ofPlatform( ).start( ( ) -> {
+                for ( int read = 0; writer.isAlive( ) || read == 0; read++ ) {
+                    int slot = ( first + read ) % slots;
+                    UsageHistory.Snapshot snapshot = history.snapshot( );
+                    int minutes = snapshot.get( UsageHistory.Resolution.MINUTE , slot , minute );
+                    int days = snapshot.get( UsageHistory.Resolution.DAY , slot , day );
+
+                    if ( minutes != snapshot.get( UsageHistory.Resolution.HOUR , slot , hour ) || minutes != days ) {
+                        torn.compareAndSet( null , "slot " + slot + ": minute " + minutes + ", day " + days );
+                        return;
+                    }
+                }
+            } );
+        }
+
+        writer.join( );
+
+        for ( Thread reader : readers ) {
+            reader.join( );
+        }
+
+        assertNull( torn.get( ) , "A reader saw a half recorded use" );
+        assertEquals( uses , history.getVersion( ) );
+        assertEquals( uses , history.total( Duration.ofDays( 1 ) , MIDNIGHT ) );
+        assertEquals( uses , history.snapshot( ).total( Duration.ofMinutes( 1 ) , MIDNIGHT ) );
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.frizzydev.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers a controller with a poller that counts a use on every slot each release cycle while several threads take
+ * usage snapshots, and checks that every snapshot is consistent.
+ * <br>
+ * Every use increases the usage version by one and no usage is loaded, so a snapshot is consistent exactly when
+ * the sum of its counts equals its version. A torn copy sees a count that does not match its version.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+class UsageSnapshotStressTest {
+
+    private static final int BUTTONS = 64;
+
+    private static final int SNAPSHOTTERS = 4;
+
+    private static final long RUN_MILLIS = 1_000L;
+
+    private final PollingEngine engine = new PollingEngine( 1 );
+
+    private final ExecutorService threads = Executors.newFixedThreadPool( SNAPSHOTTERS + 1 );
+
+    @AfterEach
+    void shutdown( ) {
+        threads.shutdownNow( );
+        engine.shutdown( );
+    }
+
+    @Test
+    void snapshotsStayConsistentWhilePolling( ) throws Exception {
+        FakeController controller = FakeController.withButtons( "Pad" , BUTTONS );
+        LController lController = new LController( controller , null , engine , "Pad" );
+        lController.setSampled( true );
+
+        AtomicBoolean running = new AtomicBoolean( true );
+        AtomicLong cycles = new AtomicLong( );
+        AtomicLong snapshots = new AtomicLong( );
+        CountDownLatch start = new CountDownLatch( 1 );
+
+        Future < ? > poller = threads.submit( ( ) -> {
+            start.await( );
+
+            for ( long cycle = 0; running.get( ); cycle++ ) {
+                float value = ( cycle & 1L ) == 0L ? 1f : 0f;
+
+                for ( int button = 0; button < BUTTONS; button++ ) {
+                    controller.component( button ).set( value );
+                }
+
+                lController.pollCycle( engine );
+                cycles.incrementAndGet( );
+            }
+
+            return null;
+        } );
+
+        List < Future < ? > > snapshotters = new ArrayList <>( );
+
+        for ( int i = 0; i < SNAPSHOTTERS; i++ ) {
+            snapshotters.add( threads.submit( ( ) -> {
+                start.await( );
+                long lastVersion = -1L;
+
+                while ( running.get( ) ) {
+                    UsageSnapshot snapshot = lController.snapshotUsage( );
+                    long sum = 0L;
+
+                    for ( long count : snapshot.getCounts( ).values( ) ) {
+                        sum += count;
+                    }
+
+                    assertEquals( snapshot.getVersion( ) , sum , "Snapshot counts do not match its version" );
+                    assertTrue( snapshot.getVersion( ) >= lastVersion , "Snapshot versions went backwards" );
+
+                    lastVersion = snapshot.getVersion( );
+                    snapshots.incrementAndGet( );
+                }
+
+                return null;
+            } ) );
+        }
+
+        start.countDown( );
+        Thread.sleep( RUN_MILLIS );
+        running.set( false );
+
+        poller.get( 10 , TimeUnit.SECONDS );
+
+        for ( Future < ? > snapshotter : snapshotters ) {
+            snapshotter.get( 10 , TimeUnit.SECONDS );
+        }
+
+        UsageSnapshot last = lController.snapshotUsage( );
+
+        assertTrue( cycles.get( ) > 0L && snapshots.get( ) > 0L , "Both sides should have made progress." );
+        assertEquals( last.getVersion( ) , last.getCounts( ).values( ).stream( ).mapToLong( Long::longValue ).sum( ) );
+        assertEquals( last.get( "0" ) , last.get( String.valueOf( BUTTONS - 1 ) ) , "Every button was released as often." );
+    }
+}
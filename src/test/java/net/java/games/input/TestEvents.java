@@ -0,0 +1,28 @@
+package net.java.games.input;
+
+/**
+ * Fills event queues from tests. Only JInput's own controllers can add events to an EventQueue, so this lives in
+ * the JInput package.
+ *
+ * @author FrizzyDev
+ * @version 0.1
+ * @since 0.1
+ */
+public final class TestEvents {
+
+    private TestEvents( ) {
+    }
+
+    /**
+     * Adds a copy of the provided event to the provided queue, unless the queue is full.
+     *
+     * @return Returns false if the queue was full.
+     */
+    public static boolean add( EventQueue queue , Event event ) {
+        if ( queue.isFull( ) )
+            return false;
+
+        queue.add( event );
+        return true;
+    }
+}